@@ -0,0 +1,193 @@
+package pl.kurs.sogaapplication.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.kurs.sogaapplication.SogaApplication;
+import pl.kurs.sogaapplication.dto.DailyGrossMarginDto;
+import pl.kurs.sogaapplication.dto.PodsumowanieTygodnia;
+import pl.kurs.sogaapplication.dto.RestaurantReportDto;
+import pl.kurs.sogaapplication.models.DzienPodzial;
+import pl.kurs.sogaapplication.models.SuspiciousBill;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
+import pl.kurs.sogaapplication.service.analysis.FoodCostCache;
+import pl.kurs.sogaapplication.service.analysis.FoodCostService;
+import pl.kurs.sogaapplication.service.analysis.SalesAnalysisService;
+import pl.kurs.sogaapplication.service.analysis.TimeAnalysisService;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+import pl.kurs.sogaapplication.service.validation.BillValidationService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki głównych ścieżek analitycznych na syntetycznej bazie (patrz SyntheticDatabase).
+ *
+ * Raportowane wartości:
+ * - ops/s - tryb Throughput,
+ * - alokacje - profiler GC (BenchmarkRunner dodaje go domyślnie; gc.alloc.rate i gc.alloc.rate.norm),
+ * - liczba zapytań - licznik pomocniczy "queries" (statystyki Hibernate: przygotowane instrukcje JDBC,
+ *   plus zapytania SalesJdbcRepository, które omijają Hibernate);
+ *   liczba zapytań na operację wypisywana jest też po każdym przebiegu.
+ *
+ * Rollup H2, cache food cost i obserwator rachunków nie mogą zafałszować pomiaru bazy:
+ * rollup i obserwator są wyłączone, cache czyszczony przed każdym wywołaniem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    private static final int YEAR = 2025;
+    private static final int MONTH = 12;
+
+    @Param({"MONTH", "YEAR", "FIVE_YEARS"})
+    public BenchmarkScale scale;
+
+    private ConfigurableApplicationContext context;
+    private Statistics statistics;
+    private SalesJdbcRepository salesJdbcRepository;
+    private FoodCostCache foodCostCache;
+
+    private SalesAnalysisService salesAnalysisService;
+    private FoodCostService foodCostService;
+    private TimeAnalysisService timeAnalysisService;
+    private BillValidationService billValidationService;
+
+    private List<Integer> defaultSellers;
+    private List<Integer> allSellers;
+
+    private long invocations;
+    private long queries;
+
+    /**
+     * Liczniki pomocnicze JMH - suma zapytań w iteracji.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QueryCounter {
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startContext() throws Exception {
+        String url = SyntheticDatabase.prepare(scale);
+        context = new SpringApplicationBuilder(SogaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.datasource.username=" + SyntheticDatabase.USER,
+                        "spring.datasource.password=" + SyntheticDatabase.PASSWORD,
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "restaurant.rollup.enabled=false",
+                        "restaurant.validation.watcher.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        salesJdbcRepository = context.getBean(SalesJdbcRepository.class);
+        foodCostCache = context.getBean(FoodCostCache.class);
+        salesAnalysisService = context.getBean(SalesAnalysisService.class);
+        foodCostService = context.getBean(FoodCostService.class);
+        timeAnalysisService = context.getBean(TimeAnalysisService.class);
+        billValidationService = context.getBean(BillValidationService.class);
+
+        RestaurantConfigService configService = context.getBean(RestaurantConfigService.class);
+        defaultSellers = configService.getDefaultSellers();
+        allSellers = configService.getAllSellers();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        foodCostCache.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        if (invocations > 0) {
+            System.out.println(String.format("%n[%s] zapytań na operację: %.1f", scale, (double) queries / invocations));
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public RestaurantReportDto generateSalesReport(QueryCounter counter) {
+        long before = executedQueries();
+        RestaurantReportDto result = salesAnalysisService.generateSalesReport(
+                scale.getFirstDay(), scale.getLastDay(), allSellers);
+        count(counter, before);
+        return result;
+    }
+
+    @Benchmark
+    public List<DzienPodzial> analyzeDailySales(QueryCounter counter) {
+        long before = executedQueries();
+        List<DzienPodzial> result = salesAnalysisService.analyzeDailySales(LocalDate.of(YEAR, MONTH, 1), allSellers);
+        count(counter, before);
+        return result;
+    }
+
+    @Benchmark
+    public DailyGrossMarginDto.MonthlySummary calculateDailyGrossMargin(QueryCounter counter) {
+        long before = executedQueries();
+        DailyGrossMarginDto.MonthlySummary result = foodCostService.calculateDailyGrossMargin(
+                YEAR, MONTH, defaultSellers, allSellers, "Kuchnia Domowa");
+        count(counter, before);
+        return result;
+    }
+
+    @Benchmark
+    public List<PodsumowanieTygodnia> generateYearlySummary(QueryCounter counter) {
+        long before = executedQueries();
+        List<PodsumowanieTygodnia> result = timeAnalysisService.generateYearlySummary(YEAR);
+        count(counter, before);
+        return result;
+    }
+
+    @Benchmark
+    public List<SuspiciousBill> findSuspiciousBills(QueryCounter counter) {
+        long before = executedQueries();
+        List<SuspiciousBill> result = billValidationService.findSuspiciousBills(
+                scale.getFirstDay(), scale.getLastDay());
+        count(counter, before);
+        return result;
+    }
+
+    private long executedQueries() {
+        return statistics.getPrepareStatementCount() + salesJdbcRepository.getExecutedQueries();
+    }
+
+    private void count(QueryCounter counter, long before) {
+        long executed = executedQueries() - before;
+        counter.queries += executed;
+        queries += executed;
+        invocations++;
+    }
+}
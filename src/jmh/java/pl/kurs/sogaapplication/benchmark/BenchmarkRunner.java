@@ -0,0 +1,26 @@
+package pl.kurs.sogaapplication.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Uruchamia benchmarki JMH z profilerem GC (alokacje), przyjmując standardowe argumenty JMH.
+ * Przykład: mvn -Pbenchmark compile exec:exec -Djmh.args="AnalysisBenchmark.findSuspiciousBills -p scale=YEAR"
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,30 @@
+package pl.kurs.sogaapplication.benchmark;
+
+import java.time.LocalDate;
+
+/**
+ * Skale syntetycznej bazy do benchmarków - każdy okres kończy się 31.12.2025,
+ * więc miesiąc i rok analizowany w benchmarkach są we wszystkich skalach te same.
+ */
+public enum BenchmarkScale {
+
+    MONTH(LocalDate.of(2025, 12, 1)),
+    YEAR(LocalDate.of(2025, 1, 1)),
+    FIVE_YEARS(LocalDate.of(2021, 1, 1));
+
+    public static final LocalDate LAST_DAY = LocalDate.of(2025, 12, 31);
+
+    private final LocalDate firstDay;
+
+    BenchmarkScale(LocalDate firstDay) {
+        this.firstDay = firstDay;
+    }
+
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    public LocalDate getLastDay() {
+        return LAST_DAY;
+    }
+}
@@ -0,0 +1,79 @@
+package pl.kurs.sogaapplication.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.kurs.sogaapplication.models.business.MoneyAccumulator;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sumowanie kwot: reduce(BigDecimal::add) vs MoneyAccumulator (z BigDecimal i z wartości nieskalowanych).
+ * Bez bazy i kontekstu Springa. Alokacje na dodanie (gc.alloc.rate.norm / ROWS) pokazuje profiler GC:
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="MoneyAccumulatorBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyAccumulatorBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private BigDecimal[] values;
+    private long[] unscaledValues;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new BigDecimal[ROWS];
+        unscaledValues = new long[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            // Kwoty jak WART_NU: skala 4, do 10 000 zł
+            unscaledValues[i] = random.nextInt(100_000_000);
+            values[i] = BigDecimal.valueOf(unscaledValues[i], 4);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BigDecimal reduceBigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal value : values) {
+            sum = sum.add(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BigDecimal accumulatorFromBigDecimal() {
+        MoneyAccumulator sum = new MoneyAccumulator();
+        for (BigDecimal value : values) {
+            sum.add(value);
+        }
+        return sum.toBigDecimal();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BigDecimal accumulatorFromUnscaled() {
+        MoneyAccumulator sum = new MoneyAccumulator();
+        for (long value : unscaledValues) {
+            sum.add(value, 4);
+        }
+        return sum.toBigDecimal();
+    }
+}
@@ -0,0 +1,340 @@
+package pl.kurs.sogaapplication.benchmark;
+
+import org.firebirdsql.management.FBManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tworzy plik embedded Firebirda z syntetycznymi danymi RACHUNKI/POZRACH/TOWARY/DOKUMENTY
+ * dla danej skali. Plik jest zakładany raz (katalog benchmark.db.dir, domyślnie target/benchmark-db)
+ * i używany ponownie przy kolejnych uruchomieniach.
+ *
+ * Dane są deterministyczne (stałe ziarno) i odwzorowują strukturę produkcyjnej bazy:
+ * - sprzedawcy 0-17 (11 = Kuchnia Domowa), ok. 120 rachunków dziennie,
+ * - towary kuchenne, bufetowe, opakowania i dowóz zgodne z application.properties oraz towary spoza kategorii,
+ * - zestawy (pozycja nadrzędna z NR_POZ_KOR=0 i składniki z NR_POZ_KOR>0),
+ * - pojedyncze rachunki z wysoką kwotą i krótkim czasem (kandydaci dla walidacji),
+ * - dokumenty FZ/PZ/KFZ/MMP/MM na magazynach kuchnia (8), bufet (9) i koszty (1).
+ */
+public final class SyntheticDatabase {
+
+    public static final String USER = "SYSDBA";
+    public static final String PASSWORD = "masterkey";
+
+    private static final int BILLS_PER_DAY = 120;
+    private static final int SELLERS = 18;
+    private static final int KITCHEN_DOMOWA_SELLER = 11;
+
+    private static final long[] KITCHEN_PRODUCTS = {4469, 4794, 4472, 5569, 942, 4593, 4382, 4473, 4471, 3777, 4476, 2678};
+    private static final long[] BUFFET_PRODUCTS = {4554, 3737, 5877, 330, 875, 4474, 329, 4556};
+    private static final long[] PACKAGING_PRODUCTS = {951, 5244, 5865};
+    private static final long[] DELIVERY_PRODUCTS = {4492};
+    private static final int[] KITCHEN_GROUPS = {41, 43, 46, 49, 80};
+    private static final int[] BUFFET_GROUPS = {32, 33, 34, 35, 36};
+    private static final int UNDEFINED_GROUP = 200;
+    private static final long GROUP_PRODUCTS_START = 10_000;
+    private static final int GROUP_PRODUCTS_PER_GROUP = 20;
+
+    private SyntheticDatabase() {
+    }
+
+    /**
+     * Zwraca URL JDBC bazy dla skali, zakładając i wypełniając ją przy pierwszym użyciu.
+     */
+    public static String prepare(BenchmarkScale scale) throws Exception {
+        Path dir = Path.of(System.getProperty("benchmark.db.dir", "target/benchmark-db")).toAbsolutePath();
+        Files.createDirectories(dir);
+        Path file = dir.resolve("soga-" + scale.name().toLowerCase() + ".fdb");
+        String url = "jdbc:firebirdsql:embedded:" + file + "?encoding=UTF8";
+
+        if (Files.exists(file)) {
+            return url;
+        }
+
+        try (FBManager manager = new FBManager("EMBEDDED")) {
+            manager.start();
+            manager.createDatabase(file.toString(), USER, PASSWORD);
+        }
+
+        try (Connection connection = DriverManager.getConnection(url, USER, PASSWORD)) {
+            createSchema(connection);
+            connection.setAutoCommit(false);
+            var products = insertProducts(connection);
+            insertSellersAndWarehouses(connection);
+            insertBills(connection, scale, products);
+            insertDocuments(connection, scale);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return url;
+    }
+
+    private record Product(long id, int groupId, BigDecimal price) { }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE UZYTKOWNICY (ID_UZ INTEGER NOT NULL PRIMARY KEY, NAZWA_UZ VARCHAR(40))");
+            st.execute("CREATE TABLE TOWARY (ID_TW BIGINT NOT NULL PRIMARY KEY, NAZWA_TW VARCHAR(80), ID_GR INTEGER)");
+            st.execute("""
+                CREATE TABLE RACHUNKI (
+                    ID_RACH BIGINT NOT NULL PRIMARY KEY,
+                    DATA_ROZ TIMESTAMP NOT NULL,
+                    DATA_ZAK TIMESTAMP NOT NULL,
+                    WART_NU NUMERIC(15,4) NOT NULL,
+                    WART_BU NUMERIC(15,4) NOT NULL,
+                    IL_OSOB INTEGER NOT NULL,
+                    ID_UZ INTEGER)""");
+            st.execute("""
+                CREATE TABLE POZRACH (
+                    ID_POZRACH BIGINT NOT NULL PRIMARY KEY,
+                    ID_RACH BIGINT NOT NULL,
+                    ID_TW BIGINT,
+                    ILOSC NUMERIC(12,3),
+                    NR_POZ INTEGER NOT NULL,
+                    NR_POZ_KOR INTEGER NOT NULL,
+                    WART_JN NUMERIC(15,4),
+                    WART_NU NUMERIC(15,4))""");
+            st.execute("""
+                CREATE TABLE MAGAZYNY (
+                    ID_MA INTEGER NOT NULL PRIMARY KEY,
+                    KOD_MA VARCHAR(10),
+                    NAZWA_MA VARCHAR(40),
+                    INWENT_STATUS INTEGER)""");
+            st.execute("""
+                CREATE TABLE DOKUMENTY (
+                    ID_DOK BIGINT NOT NULL PRIMARY KEY,
+                    TYP_DOK VARCHAR(5) NOT NULL,
+                    DATA_WST DATE NOT NULL,
+                    ID_MA INTEGER NOT NULL,
+                    ID_MA_2 INTEGER,
+                    ID_KATDOK INTEGER NOT NULL,
+                    WART_NU NUMERIC(15,4) NOT NULL,
+                    WART_BU NUMERIC(15,4) NOT NULL,
+                    WART_VU NUMERIC(15,4) NOT NULL,
+                    STATUS VARCHAR(5) NOT NULL,
+                    ID_POCHOD BIGINT,
+                    NR_ORYGIN VARCHAR(40),
+                    ID_FI INTEGER,
+                    CALY_NR VARCHAR(40))""");
+            st.execute("CREATE INDEX IX_RACHUNKI_DATA_ZAK ON RACHUNKI (DATA_ZAK)");
+            st.execute("CREATE INDEX IX_POZRACH_ID_RACH ON POZRACH (ID_RACH)");
+            st.execute("CREATE INDEX IX_DOKUMENTY_DATA_WST ON DOKUMENTY (DATA_WST)");
+        }
+    }
+
+    private static List<Product> insertProducts(Connection connection) throws SQLException {
+        var random = new Random(7);
+        var products = new ArrayList<Product>();
+        for (long id : KITCHEN_PRODUCTS) {
+            products.add(new Product(id, UNDEFINED_GROUP, price(random, 18, 45)));
+        }
+        for (long id : BUFFET_PRODUCTS) {
+            products.add(new Product(id, UNDEFINED_GROUP, price(random, 6, 20)));
+        }
+        for (long id : PACKAGING_PRODUCTS) {
+            products.add(new Product(id, UNDEFINED_GROUP, price(random, 1, 3)));
+        }
+        for (long id : DELIVERY_PRODUCTS) {
+            products.add(new Product(id, UNDEFINED_GROUP, price(random, 5, 10)));
+        }
+        long id = GROUP_PRODUCTS_START;
+        for (int group : KITCHEN_GROUPS) {
+            for (int i = 0; i < GROUP_PRODUCTS_PER_GROUP; i++) {
+                products.add(new Product(id++, group, price(random, 15, 40)));
+            }
+        }
+        for (int group : BUFFET_GROUPS) {
+            for (int i = 0; i < GROUP_PRODUCTS_PER_GROUP; i++) {
+                products.add(new Product(id++, group, price(random, 5, 25)));
+            }
+        }
+        for (int i = 0; i < GROUP_PRODUCTS_PER_GROUP; i++) {
+            products.add(new Product(id++, UNDEFINED_GROUP, price(random, 2, 12)));
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO TOWARY (ID_TW, NAZWA_TW, ID_GR) VALUES (?, ?, ?)")) {
+            for (Product product : products) {
+                ps.setLong(1, product.id());
+                ps.setString(2, "Towar " + product.id());
+                ps.setInt(3, product.groupId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return products;
+    }
+
+    private static void insertSellersAndWarehouses(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO UZYTKOWNICY (ID_UZ, NAZWA_UZ) VALUES (?, ?)")) {
+            for (int id = 0; id < SELLERS; id++) {
+                ps.setInt(1, id);
+                ps.setString(2, id == KITCHEN_DOMOWA_SELLER ? "Kuchnia Domowa" : "Kelner " + id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO MAGAZYNY (ID_MA, KOD_MA, NAZWA_MA, INWENT_STATUS) VALUES (1, 'KOSZ', 'Koszty', 0)");
+            st.execute("INSERT INTO MAGAZYNY (ID_MA, KOD_MA, NAZWA_MA, INWENT_STATUS) VALUES (8, 'KUCH', 'Kuchnia', 0)");
+            st.execute("INSERT INTO MAGAZYNY (ID_MA, KOD_MA, NAZWA_MA, INWENT_STATUS) VALUES (9, 'BUF', 'Bufet', 0)");
+        }
+    }
+
+    private static void insertBills(Connection connection, BenchmarkScale scale, List<Product> products)
+            throws SQLException {
+        var random = new Random(42);
+        long billId = 1;
+        long lineId = 1;
+
+        try (PreparedStatement bills = connection.prepareStatement(
+                "INSERT INTO RACHUNKI (ID_RACH, DATA_ROZ, DATA_ZAK, WART_NU, WART_BU, IL_OSOB, ID_UZ) VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement lines = connection.prepareStatement(
+                "INSERT INTO POZRACH (ID_POZRACH, ID_RACH, ID_TW, ILOSC, NR_POZ, NR_POZ_KOR, WART_JN, WART_NU) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+
+            for (LocalDate day = scale.getFirstDay(); !day.isAfter(scale.getLastDay()); day = day.plusDays(1)) {
+                for (int b = 0; b < BILLS_PER_DAY; b++) {
+                    LocalDateTime start = day.atTime(10, 0).plusMinutes(random.nextInt(11 * 60));
+                    int sellerId = random.nextInt(4) == 0 ? KITCHEN_DOMOWA_SELLER : random.nextInt(SELLERS);
+                    BigDecimal total = BigDecimal.ZERO;
+                    int positions = 1 + random.nextInt(5);
+
+                    for (int nrPoz = 1; nrPoz <= positions; nrPoz++) {
+                        Product product = products.get(random.nextInt(products.size()));
+                        BigDecimal quantity = BigDecimal.valueOf(1 + random.nextInt(3));
+                        BigDecimal value = product.price().multiply(quantity);
+                        addLine(lines, lineId++, billId, product.id(), quantity, nrPoz, 0, product.price(), value);
+                        total = total.add(value);
+
+                        // Co dziesiąta pozycja to zestaw - składniki z NR_POZ_KOR>0 i ceną jednostkową
+                        if (random.nextInt(10) == 0) {
+                            for (int kor = 1; kor <= 2; kor++) {
+                                Product component = products.get(random.nextInt(products.size()));
+                                BigDecimal unitPrice = component.price().divide(BigDecimal.valueOf(2), 4, RoundingMode.HALF_UP);
+                                addLine(lines, lineId++, billId, component.id(), BigDecimal.ONE, nrPoz, kor,
+                                        unitPrice, BigDecimal.ZERO);
+                            }
+                        }
+                    }
+
+                    // Ok. 0,5% rachunków: wysoka kwota zamknięta w kilka minut (kandydaci dla walidacji)
+                    int minutes = 15 + random.nextInt(90);
+                    if (random.nextInt(200) == 0) {
+                        total = total.add(BigDecimal.valueOf(1000 + random.nextInt(2000)));
+                        minutes = 1 + random.nextInt(9);
+                    }
+
+                    bills.setLong(1, billId);
+                    bills.setTimestamp(2, Timestamp.valueOf(start));
+                    bills.setTimestamp(3, Timestamp.valueOf(start.plusMinutes(minutes)));
+                    bills.setBigDecimal(4, total);
+                    bills.setBigDecimal(5, total.multiply(new BigDecimal("1.08")).setScale(4, RoundingMode.HALF_UP));
+                    bills.setInt(6, 1 + random.nextInt(4));
+                    bills.setInt(7, sellerId);
+                    bills.addBatch();
+                    billId++;
+                }
+                bills.executeBatch();
+                lines.executeBatch();
+            }
+        }
+    }
+
+    private static void addLine(PreparedStatement lines, long lineId, long billId, long productId,
+                                BigDecimal quantity, int nrPoz, int nrPozKor,
+                                BigDecimal unitPrice, BigDecimal value) throws SQLException {
+        lines.setLong(1, lineId);
+        lines.setLong(2, billId);
+        lines.setLong(3, productId);
+        lines.setBigDecimal(4, quantity);
+        lines.setInt(5, nrPoz);
+        lines.setInt(6, nrPozKor);
+        lines.setBigDecimal(7, unitPrice);
+        lines.setBigDecimal(8, value);
+        lines.addBatch();
+    }
+
+    private static void insertDocuments(Connection connection, BenchmarkScale scale) throws SQLException {
+        var random = new Random(99);
+        long docId = 1;
+        int[] warehouses = {8, 9, 1};
+
+        try (PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO DOKUMENTY (ID_DOK, TYP_DOK, DATA_WST, ID_MA, ID_MA_2, ID_KATDOK, WART_NU, WART_BU, WART_VU,
+                                       STATUS, ID_POCHOD, NR_ORYGIN, ID_FI, CALY_NR)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""")) {
+
+            for (LocalDate day = scale.getFirstDay(); !day.isAfter(scale.getLastDay()); day = day.plusDays(1)) {
+                for (int warehouse : warehouses) {
+                    // Dostawa: PZ + FZ wskazująca PZ przez ID_POCHOD
+                    long pzId = docId++;
+                    BigDecimal value = price(random, 200, 1500);
+                    addDocument(ps, pzId, "PZ", day, warehouse, null, value, 0L, random);
+                    addDocument(ps, docId++, "FZ", day, warehouse, null, value, pzId, random);
+
+                    // Co kilka dni: samodzielna PZ, korekta KFZ i przesunięcie MM/MMP między kuchnią a bufetem
+                    if (random.nextInt(4) == 0) {
+                        addDocument(ps, docId++, "PZ", day, warehouse, null, price(random, 50, 300), 0L, random);
+                    }
+                    if (random.nextInt(10) == 0) {
+                        addDocument(ps, docId++, "KFZ", day, warehouse, null, price(random, -100, -10), pzId, random);
+                    }
+                    if (warehouse != 1 && random.nextInt(7) == 0) {
+                        int other = warehouse == 8 ? 9 : 8;
+                        BigDecimal moved = price(random, 20, 150);
+                        addDocument(ps, docId++, "MM", day, warehouse, other, moved, 0L, random);
+                        addDocument(ps, docId++, "MMP", day, other, warehouse, moved, 0L, random);
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    private static void addDocument(PreparedStatement ps, long id, String type, LocalDate day, int warehouse,
+                                    Integer sourceWarehouse, BigDecimal net, long originId,
+                                    Random random) throws SQLException {
+        BigDecimal vat = net.multiply(new BigDecimal("0.08")).setScale(4, RoundingMode.HALF_UP);
+        ps.setLong(1, id);
+        ps.setString(2, type);
+        ps.setDate(3, java.sql.Date.valueOf(day));
+        ps.setInt(4, warehouse);
+        if (sourceWarehouse != null) {
+            ps.setInt(5, sourceWarehouse);
+        } else {
+            ps.setNull(5, java.sql.Types.INTEGER);
+        }
+        ps.setInt(6, 1 + random.nextInt(5));
+        ps.setBigDecimal(7, net);
+        ps.setBigDecimal(8, net.add(vat));
+        ps.setBigDecimal(9, vat);
+        ps.setString(10, "Z");
+        ps.setLong(11, originId);
+        ps.setString(12, type + "/" + id);
+        ps.setInt(13, 1 + random.nextInt(50));
+        ps.setString(14, type + "/" + id + "/" + day.getYear());
+        ps.addBatch();
+    }
+
+    private static BigDecimal price(Random random, int min, int max) {
+        double value = min + random.nextDouble() * (max - min);
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
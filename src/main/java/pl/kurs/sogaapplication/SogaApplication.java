@@ -3,24 +3,44 @@ package pl.kurs.sogaapplication;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import pl.kurs.sogaapplication.models.business.PointOfSale;
 import pl.kurs.sogaapplication.service.cli.CommandLineInterface;
 import pl.kurs.sogaapplication.service.config.PointOfSaleService;
+import pl.kurs.sogaapplication.service.config.ProductCategoryTableService;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+import pl.kurs.sogaapplication.service.metrics.StartupTimingReport;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 @SpringBootApplication
+@EnableScheduling
 public class SogaApplication {
 
     public static void main(String[] args) {
-        ConfigurableApplicationContext ctx = SpringApplication.run(SogaApplication.class, args);
+        // --startup-report: raport czasu startu (fazy Spring Boot, najwolniejsze beany) przed menu CLI
+        StartupTimingReport startupReport = Arrays.asList(args).contains("--startup-report")
+                ? StartupTimingReport.start()
+                : null;
+
+        SpringApplication application = new SpringApplication(SogaApplication.class);
+        if (startupReport != null) {
+            application.setApplicationStartup(startupReport.getApplicationStartup());
+        }
+        ConfigurableApplicationContext ctx = application.run(args);
+        if (startupReport != null) {
+            startupReport.contextStarted();
+        }
         
         // Sprawdź czy są argumenty z linii komend
         if (args.length > 0 && args[0].equals("--cli")) {
             // Uruchom interfejs CLI
             CommandLineInterface cli = ctx.getBean(CommandLineInterface.class);
+            if (startupReport != null) {
+                System.out.println(startupReport.format());
+            }
             cli.run();
         } else {
             // Uruchom przykładowe analizy (tryb demo)
@@ -42,6 +62,8 @@ public class SogaApplication {
             var formatter = ctx.getBean(pl.kurs.sogaapplication.service.display.ReportFormatter.class);
             var pointOfSaleService = ctx.getBean(PointOfSaleService.class);
             var configService = ctx.getBean(RestaurantConfigService.class);
+            // Raporty kategorii czytają PRODUCT_CATEGORY - przy fast-start pierwsza synchronizacja trwa w tle
+            ctx.getBean(ProductCategoryTableService.class).ensureSynced();
             System.out.println("✅ Serwisy zainicjalizowane\n");
             System.out.flush();
 
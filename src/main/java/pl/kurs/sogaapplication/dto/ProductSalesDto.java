@@ -0,0 +1,16 @@
+package pl.kurs.sogaapplication.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO dla sprzedaży jednego towaru w okresie (pozycja rankingu produktów).
+ * Ilość i przychód netto są liczone z korektą zestawów (NR_POZ_KOR).
+ */
+public record ProductSalesDto(
+        Long towarId, // null = pozycje bez towaru w TOWARY
+        String towarNazwa,
+        Integer towarGrupa,
+        long liczbaRachunkow, // liczba rachunków, na których towar wystąpił
+        BigDecimal ilosc,
+        BigDecimal przychodNetto
+) { }
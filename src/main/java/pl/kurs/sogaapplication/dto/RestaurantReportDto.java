@@ -1,6 +1,7 @@
 package pl.kurs.sogaapplication.dto;
 
 import pl.kurs.sogaapplication.models.SuspiciousBill;
+import pl.kurs.sogaapplication.models.business.MoneyAccumulator;
 import pl.kurs.sogaapplication.service.validation.BillValidationService.SuspiciousBillStats;
 
 import java.math.BigDecimal;
@@ -45,21 +46,20 @@ public record RestaurantReportDto(
     public static RestaurantReportDto create(LocalDate from, LocalDate to, List<Integer> sellerIds,
                                            KitchenBuffetSales kitchenBuffet, List<DailySales> dailySales,
                                            List<SuspiciousBill> suspiciousBills, SuspiciousBillStats suspiciousStats) {
-        BigDecimal totalKitchen = dailySales.stream()
-                .map(DailySales::kitchen)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalBuffet = dailySales.stream()
-                .map(DailySales::buffet)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalPackaging = dailySales.stream()
-                .map(DailySales::packaging)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalDelivery = dailySales.stream()
-                .map(DailySales::delivery)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        var kitchenSum = new MoneyAccumulator();
+        var buffetSum = new MoneyAccumulator();
+        var packagingSum = new MoneyAccumulator();
+        var deliverySum = new MoneyAccumulator();
+        for (DailySales day : dailySales) {
+            kitchenSum.add(day.kitchen());
+            buffetSum.add(day.buffet());
+            packagingSum.add(day.packaging());
+            deliverySum.add(day.delivery());
+        }
+        BigDecimal totalKitchen = kitchenSum.toBigDecimal();
+        BigDecimal totalBuffet = buffetSum.toBigDecimal();
+        BigDecimal totalPackaging = packagingSum.toBigDecimal();
+        BigDecimal totalDelivery = deliverySum.toBigDecimal();
         
         return new RestaurantReportDto(
                 from, to, sellerIds, kitchenBuffet, dailySales,
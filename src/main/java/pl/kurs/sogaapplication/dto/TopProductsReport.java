@@ -0,0 +1,61 @@
+package pl.kurs.sogaapplication.dto;
+
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Ranking najlepiej sprzedających się produktów (ProductAnalysisService) -
+ * osobno dla każdego punktu sprzedaży i kategorii.
+ */
+public record TopProductsReport(
+        LocalDate from,
+        LocalDate to,
+        int limit,
+        List<Section> sections
+) {
+
+    /**
+     * Top N dla jednego punktu sprzedaży i kategorii, według trzech miar.
+     */
+    public record Section(
+            String pointOfSaleId,
+            String pointOfSaleName,
+            ProductCategory category,
+            int productCount, // liczba różnych towarów sprzedanych w sekcji
+            BigDecimal totalRevenue,
+            List<ProductSalesDto> byRevenue,
+            List<ProductSalesDto> byQuantity,
+            List<ProductSalesDto> byBillCount
+    ) {
+
+        public List<ProductSalesDto> ranking(Ranking ranking) {
+            return switch (ranking) {
+                case REVENUE -> byRevenue;
+                case QUANTITY -> byQuantity;
+                case BILL_COUNT -> byBillCount;
+            };
+        }
+    }
+
+    /**
+     * Miara, według której ułożony jest ranking
+     */
+    public enum Ranking {
+        REVENUE("przychód netto"),
+        QUANTITY("ilość"),
+        BILL_COUNT("liczba rachunków");
+
+        private final String label;
+
+        Ranking(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
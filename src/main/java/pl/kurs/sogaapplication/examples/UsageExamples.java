@@ -148,10 +148,7 @@ public class UsageExamples {
 
         var kitchenBuffetAnalysis = salesAnalysisService.analyzeKitchenBuffetSales(
                 from.atStartOfDay(),
-                to.atTime(23, 59, 59),
-                configService.getKitchenProducts(),
-                configService.getPackagingProducts(),
-                configService.getDeliveryProducts());
+                to.atTime(23, 59, 59));
 
         System.out.println("Analiza kuchnia / bufet / opakowania / dowóz (po konkretnych towarach - ID_TW):");
         System.out.println("🍳 Kuchnia:      " + kitchenBuffetAnalysis.kuchniaNetto());
@@ -0,0 +1,29 @@
+package pl.kurs.sogaapplication.models;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Niemutowalny widok rachunku do analiz (walidacja, grupowanie po sprzedawcy) - bez encji Rachunek,
+ * więc bez proxy użytkownika, rejestracji w kontekście persystencji i migawek do dirty checkingu.
+ * Ładowany przez SalesJdbcRepository.
+ */
+public record BillView(
+        long id,
+        LocalDateTime dataRozpoczecia,
+        LocalDateTime dataZakonczenia,
+        BigDecimal wartNu,
+        BigDecimal wartBu,
+        Integer iloscOsob,
+        Integer sellerId,
+        String sellerName
+) {
+
+    /**
+     * Czas trwania rachunku (od rozpoczęcia do zakończenia)
+     */
+    public Duration duration() {
+        return Duration.between(dataRozpoczecia, dataZakonczenia);
+    }
+}
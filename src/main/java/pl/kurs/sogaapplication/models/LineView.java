@@ -0,0 +1,16 @@
+package pl.kurs.sogaapplication.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Niemutowalny widok pozycji rachunku (POZRACH z nazwą towaru) - odpowiednik BillView dla pozycji.
+ */
+public record LineView(
+        long idPozycji,
+        long rachunekId,
+        Long towarId,
+        String towarNazwa,
+        BigDecimal ilosc,
+        BigDecimal wartoscNetto
+) {
+}
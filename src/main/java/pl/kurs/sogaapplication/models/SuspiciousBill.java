@@ -20,28 +20,17 @@ public record SuspiciousBill(
 ) {
     
     /**
-     * Tworzy SuspiciousBill z Rachunek i powodem
+     * Tworzy SuspiciousBill z widoku rachunku i powodem
      */
-    public static SuspiciousBill from(Rachunek rachunek, String reason, String severity) {
-        Duration duration = Duration.between(rachunek.getDataRozpoczecia(), rachunek.getDataZakonczenia());
-        
-        String sellerName = "Nieznany";
-        Integer sellerId = null;
-        if (rachunek.getUzytkownik() != null) {
-            sellerId = rachunek.getUzytkownik().getId();
-            if (org.hibernate.Hibernate.isInitialized(rachunek.getUzytkownik())) {
-                sellerName = rachunek.getUzytkownik().getNazwaUzytkownika();
-            }
-        }
-        
+    public static SuspiciousBill from(BillView bill, String reason, String severity) {
         return new SuspiciousBill(
-                rachunek.getId(),
-                rachunek.getDataRozpoczecia(),
-                rachunek.getDataZakonczenia(),
-                duration,
-                rachunek.getWartNu(),
-                sellerName,
-                sellerId,
+                bill.id(),
+                bill.dataRozpoczecia(),
+                bill.dataZakonczenia(),
+                bill.duration(),
+                bill.wartNu(),
+                bill.sellerName() != null ? bill.sellerName() : "Nieznany",
+                bill.sellerId(),
                 reason,
                 severity
         );
@@ -0,0 +1,42 @@
+package pl.kurs.sogaapplication.models.business;
+
+/**
+ * Kategoria pozycji rachunku wyznaczana przez ProductClassifier.
+ * Kod (getCode) to wartość używana w raportach, SalesItemDetailDto i rollupie.
+ */
+public enum ProductCategory {
+    /**
+     * Opakowania (na wynos itp.)
+     */
+    PACKAGING("packaging"),
+
+    /**
+     * Dowóz (dopłaty do abonamentów itp.)
+     */
+    DELIVERY("delivery"),
+
+    /**
+     * Kuchnia (dania, zupy, dodatki kuchenne)
+     */
+    KITCHEN("kitchen"),
+
+    /**
+     * Bufet (napoje, alkohole, desery)
+     */
+    BUFFET("buffet"),
+
+    /**
+     * Towar spoza konfiguracji - wchodzi tylko do sumy całkowitej
+     */
+    UNDEFINED("undefined");
+
+    private final String code;
+
+    ProductCategory(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,67 @@
+package pl.kurs.sogaapplication.models.business;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+
+/**
+ * Sposób numerowania tygodni w podsumowaniu rocznym
+ */
+public enum WeekNumbering {
+    /**
+     * Kolejne 7-dniowe bloki liczone od 1 stycznia (ostatni blok roku jest krótszy)
+     */
+    BLOCKS_FROM_JAN_1,
+
+    /**
+     * Tygodnie ISO-8601 (poniedziałek-niedziela, tydzień 1 zawiera 4 stycznia) -
+     * rok ISO może zaczynać się w grudniu poprzedniego roku i kończyć w styczniu następnego
+     */
+    ISO;
+
+    /**
+     * Pierwszy dzień tygodnia nr 1 w danym roku
+     */
+    public LocalDate firstDay(int year) {
+        return switch (this) {
+            case BLOCKS_FROM_JAN_1 -> LocalDate.of(year, 1, 1);
+            case ISO -> LocalDate.of(year, 1, 4).with(DayOfWeek.MONDAY);
+        };
+    }
+
+    /**
+     * Ostatni dzień ostatniego tygodnia w danym roku (włącznie)
+     */
+    public LocalDate lastDay(int year) {
+        return switch (this) {
+            case BLOCKS_FROM_JAN_1 -> LocalDate.of(year, 12, 31);
+            case ISO -> firstDay(year).plusWeeks(weekCount(year)).minusDays(1);
+        };
+    }
+
+    /**
+     * Liczba tygodni w roku (52 lub 53)
+     */
+    public int weekCount(int year) {
+        return switch (this) {
+            case BLOCKS_FROM_JAN_1 -> (LocalDate.of(year, 12, 31).getDayOfYear() + 6) / 7;
+            case ISO -> LocalDate.of(year, 12, 28).get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        };
+    }
+
+    /**
+     * Pierwszy dzień tygodnia o podanym numerze (od 1)
+     */
+    public LocalDate weekStart(int year, int weekNumber) {
+        return firstDay(year).plusWeeks(weekNumber - 1L);
+    }
+
+    /**
+     * Ostatni dzień tygodnia o podanym numerze (włącznie, nie dalej niż lastDay)
+     */
+    public LocalDate weekEnd(int year, int weekNumber) {
+        LocalDate end = weekStart(year, weekNumber).plusDays(6);
+        LocalDate last = lastDay(year);
+        return end.isAfter(last) ? last : end;
+    }
+}
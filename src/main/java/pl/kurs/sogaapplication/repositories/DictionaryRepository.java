@@ -0,0 +1,313 @@
+package pl.kurs.sogaapplication.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Słowniki towarów (TOWARY: nazwa, grupa), użytkowników (UZYTKOWNICY: nazwa) i magazynów (MAGAZYNY: nazwa)
+ * trzymane w pamięci - zapytania raportowe zwracają tylko ID i fakty, a nazwy i grupy rozwiązywane są tutaj
+ * zamiast LEFT JOIN TOWARY / JOIN UZYTKOWNICY w każdym wierszu.
+ *
+ * - ładowane przy pierwszym użyciu (nie przy starcie - menu CLI nie czeka na pulę połączeń i Firebirda),
+ * - każda tabela to mapa z otwartym adresowaniem ID -> slot i kolumny per slot (bez boxingu kluczy),
+ * - odświeżanie przyrostowe po największym znanym ID: zapytanie o ID spoza słownika, ale większe od
+ *   maksimum, dociąga nowe wiersze (WHERE ID > max); zmiany nazw istniejących wierszy wymagają reload(),
+ * - słowniki są niemutowalne po zbudowaniu (poza znacznikiem brakujących ID, który ogranicza odświeżenia) - odświeżenie buduje kopię i podmienia ją razem z numerem wersji.
+ */
+@Repository
+public class DictionaryRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryRepository.class);
+
+    /** Brak grupy (ID_GR IS NULL) w kolumnie int */
+    private static final int NO_GROUP = Integer.MIN_VALUE;
+
+    private static final long REFRESH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Dictionaries dictionaries;
+    private volatile long lastRefreshNanos = System.nanoTime() - REFRESH_INTERVAL_NANOS - 1;
+
+    private record Dictionaries(long version, Table products, Table users, Table warehouses) {
+    }
+
+    public DictionaryRepository(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(1000);
+    }
+
+    /**
+     * Nazwa towaru (NAZWA_TW) albo null dla nieznanego towaru
+     */
+    public String productName(Long towarId) {
+        if (towarId == null) {
+            return null;
+        }
+        Dictionaries dict = resolve(towarId, Dictionaries::products);
+        int slot = dict.products().slot(towarId);
+        return slot >= 0 ? dict.products().names[slot] : null;
+    }
+
+    /**
+     * Grupa towaru (ID_GR) albo null dla nieznanego towaru lub towaru bez grupy
+     */
+    public Integer productGroup(Long towarId) {
+        if (towarId == null) {
+            return null;
+        }
+        Dictionaries dict = resolve(towarId, Dictionaries::products);
+        int slot = dict.products().slot(towarId);
+        if (slot < 0 || dict.products().groups[slot] == NO_GROUP) {
+            return null;
+        }
+        return dict.products().groups[slot];
+    }
+
+    /**
+     * Nazwa użytkownika / sprzedawcy (NAZWA_UZ) albo null
+     */
+    public String userName(Integer userId) {
+        if (userId == null) {
+            return null;
+        }
+        Dictionaries dict = resolve(userId, Dictionaries::users);
+        int slot = dict.users().slot(userId);
+        return slot >= 0 ? dict.users().names[slot] : null;
+    }
+
+    /**
+     * Nazwa magazynu (NAZWA_MA) albo null
+     */
+    public String warehouseName(Integer warehouseId) {
+        if (warehouseId == null) {
+            return null;
+        }
+        Dictionaries dict = resolve(warehouseId, Dictionaries::warehouses);
+        int slot = dict.warehouses().slot(warehouseId);
+        return slot >= 0 ? dict.warehouses().names[slot] : null;
+    }
+
+    /**
+     * Wersja słowników - rośnie przy każdej zmianie zawartości
+     */
+    public long getVersion() {
+        return current().version();
+    }
+
+    /**
+     * Dociąga wiersze o ID większym niż największe znane (nowe towary, użytkownicy, magazyny).
+     */
+    public synchronized void refresh() {
+        lastRefreshNanos = System.nanoTime();
+        Dictionaries old = current();
+        Table products = old.products().copy();
+        Table users = old.users().copy();
+        Table warehouses = old.warehouses().copy();
+        int added = loadProducts(products, old.products().maxId())
+                + loadUsers(users, old.users().maxId())
+                + loadWarehouses(warehouses, old.warehouses().maxId());
+        if (added > 0) {
+            dictionaries = new Dictionaries(old.version() + 1, products, users, warehouses);
+            logger.info("Słowniki odświeżone (wersja {}): {} nowych wierszy", old.version() + 1, added);
+        }
+    }
+
+    /**
+     * Wczytuje słowniki od nowa (np. po zmianie nazw lub grup istniejących towarów).
+     */
+    public synchronized void reload() {
+        long version = dictionaries != null ? dictionaries.version() + 1 : 1;
+        dictionaries = loadAll(version);
+    }
+
+    private Dictionaries current() {
+        Dictionaries dict = dictionaries;
+        if (dict == null) {
+            synchronized (this) {
+                if (dictionaries == null) {
+                    dictionaries = loadAll(1);
+                }
+                dict = dictionaries;
+            }
+        }
+        return dict;
+    }
+
+    /**
+     * ID większe od największego znanego oznacza nowy wiersz w bazie - odświeżamy przyrostowo od razu,
+     * także gdy chwilę wcześniej odświeżał inny wątek (inaczej nowy towar dostałby grupę null).
+     * Limit REFRESH_INTERVAL_NANOS dotyczy tylko ID, których nie było także po odświeżeniu (np. usunięty towar):
+     * takie ID (i mniejsze od niego) nie wywołują zapytania przy każdym wierszu.
+     */
+    private Dictionaries resolve(long id, Function<Dictionaries, Table> table) {
+        Dictionaries dict = current();
+        Table known = table.apply(dict);
+        if (id <= known.maxId()) {
+            return dict;
+        }
+        if (id > known.highestMissing() || System.nanoTime() - lastRefreshNanos > REFRESH_INTERVAL_NANOS) {
+            refresh();
+            dict = current();
+            known = table.apply(dict);
+            if (known.slot(id) < 0) {
+                known.markMissing(id);
+            }
+        }
+        return dict;
+    }
+
+    private Dictionaries loadAll(long version) {
+        long start = System.nanoTime();
+        Table products = new Table();
+        Table users = new Table();
+        Table warehouses = new Table();
+        loadProducts(products, Long.MIN_VALUE);
+        loadUsers(users, Long.MIN_VALUE);
+        loadWarehouses(warehouses, Long.MIN_VALUE);
+        logger.info("Słowniki wczytane (wersja {}): {} towarów, {} użytkowników, {} magazynów, {} ms",
+                version, products.size(), users.size(), warehouses.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Dictionaries(version, products, users, warehouses);
+    }
+
+    private int loadProducts(Table table, long afterId) {
+        int[] rows = {0};
+        jdbc.query("SELECT ID_TW, NAZWA_TW, ID_GR FROM TOWARY WHERE ID_TW > ?", rs -> {
+            int group = rs.getInt(3);
+            table.put(rs.getLong(1), rs.getString(2), rs.wasNull() ? NO_GROUP : group);
+            rows[0]++;
+        }, afterId);
+        return rows[0];
+    }
+
+    private int loadUsers(Table table, long afterId) {
+        int[] rows = {0};
+        jdbc.query("SELECT ID_UZ, NAZWA_UZ FROM UZYTKOWNICY WHERE ID_UZ > ?", rs -> {
+            table.put(rs.getInt(1), rs.getString(2), NO_GROUP);
+            rows[0]++;
+        }, afterId);
+        return rows[0];
+    }
+
+    private int loadWarehouses(Table table, long afterId) {
+        int[] rows = {0};
+        jdbc.query("SELECT ID_MA, NAZWA_MA FROM MAGAZYNY WHERE ID_MA > ?", rs -> {
+            table.put(rs.getInt(1), rs.getString(2), NO_GROUP);
+            rows[0]++;
+        }, afterId);
+        return rows[0];
+    }
+
+    /**
+     * Mapa z otwartym adresowaniem ID -> slot oraz kolumny nazw i grup per slot.
+     */
+    private static final class Table {
+
+        private static final int EMPTY = -1;
+
+        private long[] keys = new long[64];
+        private int[] index = new int[64];
+        private String[] names = new String[32];
+        private int[] groups = new int[32];
+        private int size;
+        private long maxId = Long.MIN_VALUE;
+        /** Największe ID nieznalezione po odświeżeniu - jedyne pole zmieniane po zbudowaniu tabeli */
+        private volatile long highestMissing = Long.MIN_VALUE;
+
+        Table() {
+            Arrays.fill(index, EMPTY);
+        }
+
+        int size() {
+            return size;
+        }
+
+        long maxId() {
+            return maxId;
+        }
+
+        long highestMissing() {
+            return highestMissing;
+        }
+
+        synchronized void markMissing(long id) {
+            highestMissing = Math.max(highestMissing, id);
+        }
+
+        int slot(long id) {
+            int mask = keys.length - 1;
+            int pos = mix(id) & mask;
+            while (index[pos] != EMPTY) {
+                if (keys[pos] == id) {
+                    return index[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+            return EMPTY;
+        }
+
+        void put(long id, String name, int group) {
+            int slot = slot(id);
+            if (slot == EMPTY) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                    groups = Arrays.copyOf(groups, size * 2);
+                }
+                slot = size++;
+                insert(keys, index, id, slot);
+                if (size * 2 > keys.length) {
+                    rehash();
+                }
+            }
+            names[slot] = name;
+            groups[slot] = group;
+            maxId = Math.max(maxId, id);
+        }
+
+        Table copy() {
+            Table copy = new Table();
+            copy.keys = keys.clone();
+            copy.index = index.clone();
+            copy.names = names.clone();
+            copy.groups = groups.clone();
+            copy.size = size;
+            copy.maxId = maxId;
+            copy.highestMissing = highestMissing;
+            return copy;
+        }
+
+        private void rehash() {
+            long[] newKeys = new long[keys.length * 2];
+            int[] newIndex = new int[keys.length * 2];
+            Arrays.fill(newIndex, EMPTY);
+            for (int pos = 0; pos < keys.length; pos++) {
+                if (index[pos] != EMPTY) {
+                    insert(newKeys, newIndex, keys[pos], index[pos]);
+                }
+            }
+            keys = newKeys;
+            index = newIndex;
+        }
+
+        private static void insert(long[] keys, int[] index, long id, int slot) {
+            int mask = keys.length - 1;
+            int pos = mix(id) & mask;
+            while (index[pos] != EMPTY) {
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = id;
+            index[pos] = slot;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
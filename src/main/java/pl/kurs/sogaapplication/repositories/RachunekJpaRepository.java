@@ -26,9 +26,6 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
             @Param("end") LocalDateTime end
     );
 
-    List<Rachunek> findByDataRozpoczeciaBetween(LocalDateTime start, LocalDateTime end);
-
-
     Rachunek findRachunekById(Long id);
 
     @Query("""
@@ -55,79 +52,6 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
             """)
     Optional<Rachunek> findByIdWithUserPozycjeAndTowar(@Param("id") Long id);
 
-    //    @Query("""
-//              select new pl.kurs.sogaapplication.models.ObrotSprzedawcyGodzina(
-//                u.id,
-//                u.nazwaUzytkownika,
-//                cast(function('hour', r.dataRozpoczecia) as integer),
-//                coalesce(sum(r.wartNu), 0)
-//              )
-//              from Rachunek r join r.uzytkownik u
-//              where r.dataRozpoczecia >= :from and r.dataRozpoczecia < :to
-//              group by u.id, u.nazwaUzytkownika, cast(function('hour', r.dataRozpoczecia) as integer)
-//              order by u.nazwaUzytkownika, cast(function('hour', r.dataRozpoczecia) as integer)
-//            """)
-    @Query(value = """
-              SELECT
-                  u.ID_UZ                                AS sellerId,
-                  u.NAZWA_UZ                             AS sellerName,
-                  EXTRACT(HOUR FROM r.DATA_ROZ)          AS godzina,
-                  COALESCE(SUM(r.WART_NU), 0)            AS suma
-              FROM RACHUNKI r
-              JOIN UZYTKOWNICY u ON u.ID_UZ = r.ID_UZ
-              WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
-              GROUP BY u.ID_UZ, u.NAZWA_UZ, EXTRACT(HOUR FROM r.DATA_ROZ)
-              ORDER BY u.NAZWA_UZ, godzina
-            """, nativeQuery = true)
-    List<pl.kurs.sogaapplication.models.ObrotSprzedawcyGodzina> sumyGodzinowe(LocalDateTime from, LocalDateTime to);
-
-
-    @Query(value = """
-            SELECT
-                u.ID_UZ                                   AS sellerId,
-                u.NAZWA_UZ                                AS sellerName,
-                EXTRACT(WEEKDAY FROM r.DATA_ROZ)          AS dzien,
-                EXTRACT(HOUR    FROM r.DATA_ROZ)          AS godzina,
-                COALESCE(SUM(r.WART_NU), 0)               AS suma
-            FROM RACHUNKI r
-            JOIN UZYTKOWNICY u ON u.ID_UZ = r.ID_UZ
-            WHERE r.DATA_ROZ >= :from
-              AND r.DATA_ROZ <  :to
-              AND u.ID_UZ IN (:sellerIds)
-            GROUP BY u.ID_UZ, u.NAZWA_UZ,
-                     EXTRACT(WEEKDAY FROM r.DATA_ROZ),
-                     EXTRACT(HOUR    FROM r.DATA_ROZ)
-            ORDER BY u.NAZWA_UZ, dzien, godzina
-            """, nativeQuery = true)
-    List<pl.kurs.sogaapplication.models.ObrotDzienGodzinaView> sumyDzienGodzina(
-            @Param("from") java.time.LocalDateTime from,
-            @Param("to") java.time.LocalDateTime to,
-            @Param("sellerIds") java.util.Collection<Integer> sellerIds
-    );
-
-    @Query(value = """
-            SELECT
-                u.ID_UZ                                   AS sellerId,
-                u.NAZWA_UZ                                AS sellerName,
-                EXTRACT(WEEKDAY FROM r.DATA_ROZ)          AS dzien,
-                EXTRACT(HOUR    FROM r.DATA_ROZ)          AS godzina,
-                COALESCE(SUM(r.WART_NU), 0)               AS suma
-            FROM RACHUNKI r
-            JOIN UZYTKOWNICY u ON u.ID_UZ = r.ID_UZ
-            WHERE r.DATA_ROZ >= :from
-              AND r.DATA_ROZ <  :to
-              AND u.ID_UZ IN (:sellerIds)
-            GROUP BY u.ID_UZ, u.NAZWA_UZ,
-                     EXTRACT(WEEKDAY FROM r.DATA_ROZ),
-                     EXTRACT(HOUR    FROM r.DATA_ROZ)
-            ORDER BY u.NAZWA_UZ, dzien, godzina
-            """, nativeQuery = true)
-    List<pl.kurs.sogaapplication.models.ObrotDzien> sumyDzien(
-            @Param("from") java.time.LocalDateTime from,
-            @Param("to") java.time.LocalDateTime to,
-            @Param("sellerIds") java.util.Collection<Integer> sellerIds
-    );
-
     @Query(value = """
   SELECT COALESCE(SUM(r.WART_NU), 0)
   FROM RACHUNKI r
@@ -137,28 +61,19 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
                          @Param("to")   LocalDateTime to);
     
     /**
-     * Znajduje ostatni dzień ze sprzedażą w danym roku (dla wszystkich sprzedawców).
-     * Zwraca datę jako LocalDate lub null jeśli brak sprzedaży.
+     * Znajduje ostatni dzień ze sprzedażą w zakresie [from, to) (dla wszystkich sprzedawców).
+     * Zakres zamiast EXTRACT(YEAR ...) = :year, żeby Firebird mógł użyć indeksu na DATA_ROZ.
+     * Zwraca datę lub null jeśli brak sprzedaży.
      */
     @Query(value = """
-  SELECT MAX(CAST(r.DATA_ROZ AS DATE))
+  SELECT CAST(MAX(r.DATA_ROZ) AS DATE)
   FROM RACHUNKI r
-  WHERE EXTRACT(YEAR FROM r.DATA_ROZ) = :year
-    AND r.WART_NU > 0
-  """, nativeQuery = true)
-    java.sql.Date findLastSalesDateInYear(@Param("year") int year);
-    
-    /**
-     * Zlicza liczbę unikalnych dni ze sprzedażą w danym roku (dla wszystkich sprzedawców).
-     * Zwraca liczbę dni, które miały sprzedaż > 0.
-     */
-    @Query(value = """
-  SELECT COUNT(DISTINCT CAST(r.DATA_ROZ AS DATE))
-  FROM RACHUNKI r
-  WHERE EXTRACT(YEAR FROM r.DATA_ROZ) = :year
+  WHERE r.DATA_ROZ >= :from
+    AND r.DATA_ROZ < :to
     AND r.WART_NU > 0
   """, nativeQuery = true)
-    long countDaysWithSalesInYear(@Param("year") int year);
+    java.sql.Date findLastSalesDateInDateRange(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
     
     /**
      * Zlicza liczbę unikalnych dni ze sprzedażą w zadanym zakresie dat (dla wszystkich sprzedawców).
@@ -190,28 +105,30 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
                                                  @Param("to") LocalDateTime to,
                                                  @Param("sellerIds") Collection<Integer> sellerIds);
     /**
-     * Suma sprzedaży KUCHNI liczona po konkretnych towarach (ID_TW), z korektą zestawów.
+     * Suma sprzedaży kategorii (kod ProductCategory: kitchen, buffet, packaging, delivery) z korektą zestawów.
+     * Towary kategorii z tabeli PRODUCT_CATEGORY (ProductCategoryTableService) - tekst zapytania nie zależy od konfiguracji.
      */
     @Query(value = """
   SELECT COALESCE(SUM(
-           CASE WHEN p.ID_TW IN (:productIds) THEN
-                CASE WHEN p.NR_POZ_KOR > 0
-                     THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)  -- dziecko * ilość rodzica
-                     ELSE p.WART_NU                                     -- zwykła pozycja
-                END
-           ELSE 0 END
+           CASE WHEN p.NR_POZ_KOR > 0
+                THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)  -- dziecko * ilość rodzica
+                ELSE p.WART_NU                                     -- zwykła pozycja
+           END
          ), 0)
   FROM RACHUNKI r
   JOIN POZRACH p        ON p.ID_RACH = r.ID_RACH
+  JOIN PRODUCT_CATEGORY k
+         ON k.ID_TW = p.ID_TW
+        AND k.KATEGORIA = :category
   LEFT JOIN POZRACH parent
          ON parent.ID_RACH = p.ID_RACH
         AND parent.NR_POZ  = p.NR_POZ
         AND parent.NR_POZ_KOR = 0
   WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
   """, nativeQuery = true)
-    BigDecimal sumaKuchnia(@Param("from") LocalDateTime from,
-                           @Param("to")   LocalDateTime to,
-                           @Param("productIds") Collection<Long> productIds);
+    BigDecimal sumaKategorii(@Param("from") LocalDateTime from,
+                             @Param("to")   LocalDateTime to,
+                             @Param("category") String category);
 
 
 //    @Query(value = """
@@ -244,54 +161,75 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
                                   @Param("to")   LocalDateTime to,
                                   @Param("sellerIds") Collection<Integer> sellerIds);
 
+    /**
+     * Sumy rachunków (WART_NU) per dzień dla sprzedawców - jeden wiersz na dzień ze sprzedażą.
+     * Zwraca: [dzien, suma].
+     */
     @Query(value = """
-  SELECT COUNT(*)
+  SELECT CAST(r.DATA_ROZ AS DATE) AS dzien,
+         COALESCE(SUM(r.WART_NU), 0) AS suma
   FROM RACHUNKI r
   WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
     AND r.ID_UZ IN (:sellerIds)
+  GROUP BY CAST(r.DATA_ROZ AS DATE)
   """, nativeQuery = true)
-    long liczbaRachunkowBySellers(@Param("from") LocalDateTime from,
-                                  @Param("to")   LocalDateTime to,
-                                  @Param("sellerIds") Collection<Integer> sellerIds);
+    List<Object[]> sumaRazemByDayBySellers(@Param("from") LocalDateTime from,
+                                           @Param("to")   LocalDateTime to,
+                                           @Param("sellerIds") Collection<Integer> sellerIds);
 
-    // KUCHNIA po konkretnych towarach (ID_TW) z korektą zestawów + filtr po sprzedawcach
+    /**
+     * Sumy pozycji per dzień i kategoria (z korektą zestawów) dla sprzedawców - jedno zapytanie na cały okres
+     * zamiast osobnych sum dla każdego dnia i kategorii.
+     * Kategoria pochodzi z PRODUCT_CATEGORY (kolejność reguł jak w ProductClassifier); towary spoza tabeli są pomijane.
+     * Zwraca: [dzien, kategoria, suma].
+     */
     @Query(value = """
-  SELECT COALESCE(SUM(
-           CASE WHEN p.ID_TW IN (:productIds) THEN
-                CASE WHEN p.NR_POZ_KOR > 0
-                     THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
-                     ELSE p.WART_NU
-                END
-           ELSE 0 END
-         ), 0)
+  SELECT CAST(r.DATA_ROZ AS DATE) AS dzien,
+         k.KATEGORIA AS kategoria,
+         COALESCE(SUM(
+             CASE WHEN p.NR_POZ_KOR > 0
+                  THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                  ELSE p.WART_NU
+             END
+         ), 0) AS suma
   FROM RACHUNKI r
   JOIN POZRACH p        ON p.ID_RACH = r.ID_RACH
+  JOIN PRODUCT_CATEGORY k ON k.ID_TW = p.ID_TW
   LEFT JOIN POZRACH parent
          ON parent.ID_RACH = p.ID_RACH
         AND parent.NR_POZ  = p.NR_POZ
         AND parent.NR_POZ_KOR = 0
   WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
     AND r.ID_UZ IN (:sellerIds)
+  GROUP BY CAST(r.DATA_ROZ AS DATE), k.KATEGORIA
   """, nativeQuery = true)
-    BigDecimal sumaKuchniaBySellers(@Param("from") LocalDateTime from,
-                                    @Param("to")   LocalDateTime to,
-                                    @Param("productIds") Collection<Long> productIds,
-                                    @Param("sellerIds") Collection<Integer> sellerIds);
+    List<Object[]> sumaKategorieByDayBySellers(@Param("from") LocalDateTime from,
+                                               @Param("to")   LocalDateTime to,
+                                               @Param("sellerIds") Collection<Integer> sellerIds);
 
-    /**
-     * Sumuje sprzedaż bufetu po produktach bufetowych (ID_TW) z korektą zestawów + filtr po sprzedawcach.
-     */
+    @Query(value = """
+  SELECT COUNT(*)
+  FROM RACHUNKI r
+  WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
+    AND r.ID_UZ IN (:sellerIds)
+  """, nativeQuery = true)
+    long liczbaRachunkowBySellers(@Param("from") LocalDateTime from,
+                                  @Param("to")   LocalDateTime to,
+                                  @Param("sellerIds") Collection<Integer> sellerIds);
+
+    // Kategoria (PRODUCT_CATEGORY) z korektą zestawów + filtr po sprzedawcach
     @Query(value = """
   SELECT COALESCE(SUM(
-           CASE WHEN p.ID_TW IN (:productIds) THEN
-                CASE WHEN p.NR_POZ_KOR > 0
-                     THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
-                     ELSE p.WART_NU
-                END
-           ELSE 0 END
+           CASE WHEN p.NR_POZ_KOR > 0
+                THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                ELSE p.WART_NU
+           END
          ), 0)
   FROM RACHUNKI r
   JOIN POZRACH p        ON p.ID_RACH = r.ID_RACH
+  JOIN PRODUCT_CATEGORY k
+         ON k.ID_TW = p.ID_TW
+        AND k.KATEGORIA = :category
   LEFT JOIN POZRACH parent
          ON parent.ID_RACH = p.ID_RACH
         AND parent.NR_POZ  = p.NR_POZ
@@ -299,56 +237,53 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
   WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
     AND r.ID_UZ IN (:sellerIds)
   """, nativeQuery = true)
-    BigDecimal sumaBufetByProductsBySellers(@Param("from") LocalDateTime from,
-                                           @Param("to")   LocalDateTime to,
-                                           @Param("productIds") Collection<Long> productIds,
-                                           @Param("sellerIds") Collection<Integer> sellerIds);
+    BigDecimal sumaKategoriiBySellers(@Param("from") LocalDateTime from,
+                                      @Param("to")   LocalDateTime to,
+                                      @Param("category") String category,
+                                      @Param("sellerIds") Collection<Integer> sellerIds);
 
     /**
      * Sumuje sprzedaż bufetu po grupach bufetowych (ID_GR) z korektą zestawów (bez filtrowania po sprzedawcach).
-     * Wyklucza produkty już w liście produktów bufetowych, żeby uniknąć podwójnego liczenia.
+     * Pomija towary z PRODUCT_CATEGORY (przypisane regułą produktową), żeby uniknąć podwójnego liczenia.
      */
     @Query(value = """
   SELECT COALESCE(SUM(
-           CASE WHEN t.ID_GR IN (:groupIds) AND (:excludedProductIdsCount = 0 OR p.ID_TW NOT IN (:excludedProductIds)) THEN
-                CASE WHEN p.NR_POZ_KOR > 0
-                     THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
-                     ELSE p.WART_NU
-                END
-           ELSE 0 END
+           CASE WHEN p.NR_POZ_KOR > 0
+                THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                ELSE p.WART_NU
+           END
          ), 0)
   FROM RACHUNKI r
   JOIN POZRACH p        ON p.ID_RACH = r.ID_RACH
-  LEFT JOIN TOWARY t    ON t.ID_TW = p.ID_TW
+  JOIN TOWARY t         ON t.ID_TW = p.ID_TW
+  LEFT JOIN PRODUCT_CATEGORY k ON k.ID_TW = p.ID_TW
   LEFT JOIN POZRACH parent
          ON parent.ID_RACH = p.ID_RACH
         AND parent.NR_POZ  = p.NR_POZ
         AND parent.NR_POZ_KOR = 0
   WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
     AND t.ID_GR IN (:groupIds)
+    AND k.ID_TW IS NULL
   """, nativeQuery = true)
     BigDecimal sumaBufetByGroups(@Param("from") LocalDateTime from,
                                  @Param("to")   LocalDateTime to,
-                                 @Param("groupIds") Collection<Integer> groupIds,
-                                 @Param("excludedProductIds") Collection<Long> excludedProductIds,
-                                 @Param("excludedProductIdsCount") int excludedProductIdsCount);
+                                 @Param("groupIds") Collection<Integer> groupIds);
 
     /**
      * Sumuje sprzedaż bufetu po grupach bufetowych (ID_GR) z korektą zestawów + filtr po sprzedawcach.
-     * Wyklucza produkty już w liście produktów bufetowych, żeby uniknąć podwójnego liczenia.
+     * Pomija towary z PRODUCT_CATEGORY (przypisane regułą produktową), żeby uniknąć podwójnego liczenia.
      */
     @Query(value = """
   SELECT COALESCE(SUM(
-           CASE WHEN t.ID_GR IN (:groupIds) AND (:excludedProductIdsCount = 0 OR p.ID_TW NOT IN (:excludedProductIds)) THEN
-                CASE WHEN p.NR_POZ_KOR > 0
-                     THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
-                     ELSE p.WART_NU
-                END
-           ELSE 0 END
+           CASE WHEN p.NR_POZ_KOR > 0
+                THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                ELSE p.WART_NU
+           END
          ), 0)
   FROM RACHUNKI r
   JOIN POZRACH p        ON p.ID_RACH = r.ID_RACH
-  LEFT JOIN TOWARY t    ON t.ID_TW = p.ID_TW
+  JOIN TOWARY t         ON t.ID_TW = p.ID_TW
+  LEFT JOIN PRODUCT_CATEGORY k ON k.ID_TW = p.ID_TW
   LEFT JOIN POZRACH parent
          ON parent.ID_RACH = p.ID_RACH
         AND parent.NR_POZ  = p.NR_POZ
@@ -356,50 +291,118 @@ public interface RachunekJpaRepository extends JpaRepository<Rachunek, Long> {
   WHERE r.DATA_ROZ >= :from AND r.DATA_ROZ < :to
     AND r.ID_UZ IN (:sellerIds)
     AND t.ID_GR IN (:groupIds)
+    AND k.ID_TW IS NULL
   """, nativeQuery = true)
     BigDecimal sumaBufetByGroupsBySellers(@Param("from") LocalDateTime from,
                                     @Param("to")   LocalDateTime to,
-                                    @Param("groupIds") Collection<Integer> groupIds,
-                                         @Param("sellerIds") Collection<Integer> sellerIds,
-                                         @Param("excludedProductIds") Collection<Long> excludedProductIds,
-                                         @Param("excludedProductIdsCount") int excludedProductIdsCount);
+                                         @Param("groupIds") Collection<Integer> groupIds,
+                                         @Param("sellerIds") Collection<Integer> sellerIds);
 
     /**
-     * Pobiera szczegółową listę pozycji sprzedanych dla konkretnej daty i sprzedawców.
-     * Zwraca pozycje z rachunków wraz z informacją o kategorii (kuchnia/bufet/opakowania/dowóz).
+     * Pozycje zagregowane per dzień, sprzedawca i towar (z korektą zestawów) - źródło dla rollupu dziennego.
+     * Zwraca: [dzien, sellerId, towarId, ilosc, wartoscNetto]; grupę towaru rozwiązuje DictionaryRepository.
      */
     @Query(value = """
-        SELECT 
-            r.ID_RACH as rachunekId,
-            u.NAZWA_UZ as sellerName,
-            u.ID_UZ as sellerId,
-            t.ID_TW as towarId,
-            t.NAZWA_TW as towarNazwa,
-            t.ID_GR as towarGrupa,
-            CASE 
-                WHEN p.NR_POZ_KOR > 0 THEN COALESCE(parent.ILOSC, p.ILOSC)
-                ELSE p.ILOSC
-            END as ilosc,
-            CASE 
-                WHEN p.NR_POZ_KOR > 0 THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
-                ELSE p.WART_NU
-            END as wartoscNetto
+        SELECT
+            CAST(r.DATA_ROZ AS DATE) as dzien,
+            r.ID_UZ as sellerId,
+            p.ID_TW as towarId,
+            SUM(p.ILOSC) as ilosc,
+            SUM(CASE
+                    WHEN p.NR_POZ_KOR > 0 THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                    ELSE p.WART_NU
+                END) as wartoscNetto
         FROM POZRACH p
         JOIN RACHUNKI r ON r.ID_RACH = p.ID_RACH
-        JOIN UZYTKOWNICY u ON u.ID_UZ = r.ID_UZ
-        LEFT JOIN TOWARY t ON t.ID_TW = p.ID_TW
         LEFT JOIN POZRACH parent
                ON parent.ID_RACH = p.ID_RACH
               AND parent.NR_POZ  = p.NR_POZ
               AND parent.NR_POZ_KOR = 0
         WHERE r.DATA_ROZ >= :from
           AND r.DATA_ROZ < :to
-          AND r.ID_UZ IN (:sellerIds)
-        ORDER BY r.ID_RACH, p.NR_POZ
+        GROUP BY CAST(r.DATA_ROZ AS DATE), r.ID_UZ, p.ID_TW
+        """, nativeQuery = true)
+    List<Object[]> sumyPozycjiDzienSprzedawcaTowar(@Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
+
+    /**
+     * Rachunki zagregowane per dzień i sprzedawca - źródło dla rollupu dziennego.
+     * Zwraca: [dzien, sellerId, liczbaRachunkow, sumaNetto, sumaBrutto, liczbaOsob].
+     */
+    @Query(value = """
+        SELECT
+            CAST(r.DATA_ROZ AS DATE) as dzien,
+            r.ID_UZ as sellerId,
+            COUNT(*) as liczbaRachunkow,
+            COALESCE(SUM(r.WART_NU), 0) as sumaNetto,
+            COALESCE(SUM(r.WART_BU), 0) as sumaBrutto,
+            COALESCE(SUM(r.IL_OSOB), 0) as liczbaOsob
+        FROM RACHUNKI r
+        WHERE r.DATA_ROZ >= :from
+          AND r.DATA_ROZ < :to
+        GROUP BY CAST(r.DATA_ROZ AS DATE), r.ID_UZ
+        """, nativeQuery = true)
+    List<Object[]> sumyRachunkowDzienSprzedawca(@Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    /**
+     * Rachunki zagregowane w 7-dniowe bloki liczone od 1 stycznia (YEARDAY w Firebirdzie liczy od 0).
+     * Zakres powinien mieścić się w jednym roku kalendarzowym.
+     * Zwraca: [numerTygodnia, liczbaRachunkow, sumaNetto, sumaBrutto, liczbaOsob].
+     */
+    @Query(value = """
+        SELECT
+            EXTRACT(YEARDAY FROM r.DATA_ROZ) / 7 + 1 as tydzien,
+            COUNT(*) as liczbaRachunkow,
+            COALESCE(SUM(r.WART_NU), 0) as sumaNetto,
+            COALESCE(SUM(r.WART_BU), 0) as sumaBrutto,
+            COALESCE(SUM(r.IL_OSOB), 0) as liczbaOsob
+        FROM RACHUNKI r
+        WHERE r.DATA_ROZ >= :from
+          AND r.DATA_ROZ < :to
+        GROUP BY EXTRACT(YEARDAY FROM r.DATA_ROZ) / 7 + 1
+        """, nativeQuery = true)
+    List<Object[]> sumyRachunkowTydzienBlokiRoku(@Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    /**
+     * Rachunki zagregowane w tygodnie ISO-8601 (EXTRACT(WEEK)).
+     * Zakres powinien obejmować jeden rok ISO (od poniedziałku tygodnia 1 do niedzieli ostatniego tygodnia).
+     * Zwraca: [numerTygodnia, liczbaRachunkow, sumaNetto, sumaBrutto, liczbaOsob].
+     */
+    @Query(value = """
+        SELECT
+            EXTRACT(WEEK FROM r.DATA_ROZ) as tydzien,
+            COUNT(*) as liczbaRachunkow,
+            COALESCE(SUM(r.WART_NU), 0) as sumaNetto,
+            COALESCE(SUM(r.WART_BU), 0) as sumaBrutto,
+            COALESCE(SUM(r.IL_OSOB), 0) as liczbaOsob
+        FROM RACHUNKI r
+        WHERE r.DATA_ROZ >= :from
+          AND r.DATA_ROZ < :to
+        GROUP BY EXTRACT(WEEK FROM r.DATA_ROZ)
+        """, nativeQuery = true)
+    List<Object[]> sumyRachunkowTydzienIso(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT MAX(r.ID_RACH) FROM RACHUNKI r", nativeQuery = true)
+    Long findMaxRachunekId();
+
+    @Query(value = "SELECT MIN(CAST(r.DATA_ROZ AS DATE)) FROM RACHUNKI r", nativeQuery = true)
+    java.sql.Date findFirstSalesDate();
+
+    /**
+     * Dni, w których pojawiły się rachunki o ID większym niż podany znacznik, a data rozpoczęcia
+     * jest wcześniejsza niż :before (rachunki dopisane wstecz do dni już zagregowanych).
+     */
+    @Query(value = """
+        SELECT DISTINCT CAST(r.DATA_ROZ AS DATE)
+        FROM RACHUNKI r
+        WHERE r.ID_RACH > :lastId
+          AND r.DATA_ROZ < :before
         """, nativeQuery = true)
-    List<Object[]> findSalesItemsByDateAndSellers(@Param("from") LocalDateTime from,
-                                                    @Param("to") LocalDateTime to,
-                                    @Param("sellerIds") Collection<Integer> sellerIds);
+    List<Object> findSalesDaysWithBillsAfterId(@Param("lastId") Long lastId,
+                                               @Param("before") LocalDateTime before);
 
     // Diagnostyczne zapytanie do sprawdzania grup towarów używanych przez Kuchnię Domową
     @Query(value = """
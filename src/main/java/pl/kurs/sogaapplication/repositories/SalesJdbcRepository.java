@@ -0,0 +1,415 @@
+package pl.kurs.sogaapplication.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import pl.kurs.sogaapplication.dto.DokumentZakupuDto;
+import pl.kurs.sogaapplication.models.BillView;
+import pl.kurs.sogaapplication.models.LineView;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Odczyt dużych zbiorów wierszy dla raportów czystym JDBC (JdbcTemplate + RowCallbackHandler), z pominięciem Hibernate.
+ *
+ * Wiersze nie są zbierane w listę Object[]: każdy trafia od razu do handlera wywołującego, a kolumny
+ * odczytywane są raz, do docelowego typu (getLong/getInt/getBigDecimal/getObject(LocalDate.class)).
+ * Zapytania korzystają z połączenia bieżącej transakcji JPA (DataSourceUtils), więc działa też
+ * kierowanie odczytów do kopii analitycznej. Handlery muszą być wywoływane w obrębie transakcji.
+ *
+ * Rachunki i pozycje do analiz czytane są jako BillView/LineView, bez encji Rachunek.
+ * Zapytania zwracają tylko ID i fakty - nazwy towarów i sprzedawców oraz grupy towarów
+ * rozwiązywane są w pamięci (DictionaryRepository), bez JOIN TOWARY / UZYTKOWNICY.
+ * Hibernate zostaje dla encji (RachunekService) i małych agregatów w RachunekJpaRepository.
+ * Każda metoda zwraca liczbę przeczytanych wierszy.
+ */
+@Repository
+public class SalesJdbcRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Korekta zestawów: pozycja korygująca (NR_POZ_KOR > 0) liczona z ilością pozycji nadrzędnej
+    private static final String CORRECTED_QUANTITY = """
+            CASE
+                WHEN p.NR_POZ_KOR > 0 THEN COALESCE(parent.ILOSC, p.ILOSC)
+                ELSE p.ILOSC
+            END""";
+
+    private static final String CORRECTED_VALUE = """
+            CASE
+                WHEN p.NR_POZ_KOR > 0 THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                ELSE p.WART_NU
+            END""";
+
+    private static final String PARENT_JOIN = """
+            LEFT JOIN POZRACH parent
+                   ON parent.ID_RACH = p.ID_RACH
+                  AND parent.NR_POZ  = p.NR_POZ
+                  AND parent.NR_POZ_KOR = 0
+            """;
+
+    private static final String SALES_ITEMS_SQL = """
+            SELECT r.ID_RACH, r.DATA_ROZ, r.ID_UZ, p.ID_TW,
+                   %s,
+                   %s
+            FROM POZRACH p
+            JOIN RACHUNKI r ON r.ID_RACH = p.ID_RACH
+            %s
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+              AND r.ID_UZ IN (:sellerIds)
+            ORDER BY r.ID_RACH, p.NR_POZ
+            """.formatted(CORRECTED_QUANTITY, CORRECTED_VALUE, PARENT_JOIN);
+
+    private static final String DAILY_ITEM_VALUES_SQL = """
+            SELECT CAST(r.DATA_ROZ AS DATE), p.ID_TW,
+                   %s
+            FROM POZRACH p
+            JOIN RACHUNKI r ON r.ID_RACH = p.ID_RACH
+            %s
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+              AND r.ID_UZ IN (:sellerIds)
+            """.formatted(CORRECTED_VALUE, PARENT_JOIN);
+
+    private static final String PRODUCT_SALES_PER_BILL_SQL = """
+            SELECT r.ID_UZ, p.ID_TW,
+                   SUM(%s),
+                   SUM(%s)
+            FROM POZRACH p
+            JOIN RACHUNKI r ON r.ID_RACH = p.ID_RACH
+            %s
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+              AND r.ID_UZ IN (:sellerIds)
+            GROUP BY r.ID_RACH, r.ID_UZ, p.ID_TW
+            """.formatted(CORRECTED_QUANTITY, CORRECTED_VALUE, PARENT_JOIN);
+
+    private static final String CUBE_BILLS_SQL = """
+            SELECT CAST(r.DATA_ROZ AS DATE), EXTRACT(HOUR FROM r.DATA_ROZ), r.ID_UZ,
+                   COUNT(*), COALESCE(SUM(r.WART_NU), 0)
+            FROM RACHUNKI r
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+            GROUP BY CAST(r.DATA_ROZ AS DATE), EXTRACT(HOUR FROM r.DATA_ROZ), r.ID_UZ
+            """;
+
+    private static final String CUBE_POSITIONS_SQL = """
+            SELECT CAST(r.DATA_ROZ AS DATE), EXTRACT(HOUR FROM r.DATA_ROZ), r.ID_UZ, p.ID_TW,
+                   SUM(%s)
+            FROM POZRACH p
+            JOIN RACHUNKI r ON r.ID_RACH = p.ID_RACH
+            %s
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+            GROUP BY CAST(r.DATA_ROZ AS DATE), EXTRACT(HOUR FROM r.DATA_ROZ), r.ID_UZ, p.ID_TW
+            """.formatted(CORRECTED_VALUE, PARENT_JOIN);
+
+    private static final String PURCHASE_DOCUMENTS_SQL = """
+            SELECT d.ID_DOK, d.TYP_DOK, d.ID_POCHOD, d.NR_ORYGIN, d.ID_FI,
+                   d.DATA_WST, d.CALY_NR, d.WART_NU, d.ID_MA, d.ID_MA_2
+            FROM DOKUMENTY d
+            WHERE d.TYP_DOK IN ('FZ', 'PZ', 'KFZ', 'MMP', 'MM')
+              AND d.DATA_WST >= :from AND d.DATA_WST < :to
+              AND d.ID_MA IN (:warehouseIds)
+            ORDER BY d.DATA_WST, d.ID_DOK
+            """;
+
+    private static final String BILL_COLUMNS = """
+            SELECT r.ID_RACH, r.DATA_ROZ, r.DATA_ZAK, r.WART_NU, r.WART_BU, r.IL_OSOB, r.ID_UZ
+            FROM RACHUNKI r
+            """;
+
+    private static final String BILLS_SQL = BILL_COLUMNS + """
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+            ORDER BY r.ID_RACH
+            """;
+
+    // Filtr wstępny walidacji: kwota powyżej progu i krótki czas (luźniej, <=) albo data w przyszłości
+    private static final String SUSPICIOUS_BILL_CANDIDATES_SQL = BILL_COLUMNS + """
+            WHERE r.DATA_ROZ >= :from
+              AND r.DATA_ROZ < :to
+              AND r.ID_UZ IN (:sellerIds)
+              AND ((r.WART_NU > :amount AND DATEDIFF(MINUTE FROM r.DATA_ROZ TO r.DATA_ZAK) <= :maxMinutes)
+                   OR r.DATA_ROZ > :now)
+            ORDER BY r.ID_RACH
+            """;
+
+    private static final String BILLS_AFTER_ID_SQL = BILL_COLUMNS + """
+            WHERE r.ID_RACH > :lastId
+            ORDER BY r.ID_RACH
+            ROWS :limit
+            """;
+
+    private static final String LINES_SQL = """
+            SELECT p.ID_POZRACH, p.ID_RACH, p.ID_TW, p.ILOSC, p.WART_NU
+            FROM POZRACH p
+            WHERE p.ID_RACH IN (:billIds)
+            ORDER BY p.ID_RACH, p.NR_POZ
+            """;
+
+    /**
+     * Jedna pozycja sprzedaży (wiersz POZRACH z korektą zestawów) z danymi rachunku, sprzedawcy i towaru.
+     */
+    public record SalesItem(long rachunekId, LocalDateTime dataRozpoczecia, int sellerId, String sellerName,
+                            Long towarId, String towarNazwa, Integer towarGrupa,
+                            BigDecimal ilosc, BigDecimal wartoscNetto) {
+    }
+
+    @FunctionalInterface
+    public interface DailyItemValueHandler {
+        void accept(LocalDate day, Long towarId, Integer towarGrupa, BigDecimal wartoscNetto);
+    }
+
+    @FunctionalInterface
+    public interface ProductSaleHandler {
+        void accept(int sellerId, Long towarId, String towarNazwa, Integer towarGrupa,
+                    BigDecimal ilosc, BigDecimal wartoscNetto);
+    }
+
+    @FunctionalInterface
+    public interface CubeBillHandler {
+        void accept(LocalDate day, int hour, int sellerId, String sellerName, int billCount, BigDecimal sumaNetto);
+    }
+
+    @FunctionalInterface
+    public interface CubePositionHandler {
+        void accept(LocalDate day, int hour, int sellerId, Long towarId, Integer towarGrupa, BigDecimal wartoscNetto);
+    }
+
+    @FunctionalInterface
+    public interface PurchaseDocumentHandler {
+        void accept(DokumentZakupuDto document, Integer idMa, Integer idMa2);
+    }
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final DictionaryRepository dictionaries;
+
+    // Statystyki Hibernate nie widzą tych zapytań - licznik dla benchmarków (AnalysisBenchmark)
+    private final LongAdder executedQueries = new LongAdder();
+
+    public SalesJdbcRepository(DataSource dataSource, DictionaryRepository dictionaries) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * Pozycje sprzedaży z zakresu [from, to) dla sprzedawców, w kolejności ID_RACH, NR_POZ -
+     * szczegóły dnia i eksport pozycji (zakres może obejmować cały rok).
+     */
+    public long forEachSalesItem(LocalDateTime from, LocalDateTime to, Collection<Integer> sellerIds,
+                                 Consumer<SalesItem> handler) {
+        return query(SALES_ITEMS_SQL, range(from, to).addValue("sellerIds", sellerIds), rs -> {
+            int sellerId = rs.getInt(3);
+            Long towarId = getLong(rs, 4);
+            handler.accept(new SalesItem(
+                    rs.getLong(1),
+                    rs.getObject(2, LocalDateTime.class),
+                    sellerId,
+                    dictionaries.userName(sellerId),
+                    towarId,
+                    dictionaries.productName(towarId),
+                    dictionaries.productGroup(towarId),
+                    rs.getBigDecimal(5),
+                    rs.getBigDecimal(6)));
+        });
+    }
+
+    /**
+     * Wartości netto pozycji (z korektą zestawów) z dniem i towarem - podział dzienny na kategorie
+     * dla całego zakresu jednym zapytaniem.
+     */
+    public long forEachDailyItemValue(LocalDateTime from, LocalDateTime to, Collection<Integer> sellerIds,
+                                      DailyItemValueHandler handler) {
+        return query(DAILY_ITEM_VALUES_SQL, range(from, to).addValue("sellerIds", sellerIds), rs -> {
+            Long towarId = getLong(rs, 2);
+            handler.accept(
+                    rs.getObject(1, LocalDate.class),
+                    towarId,
+                    dictionaries.productGroup(towarId),
+                    rs.getBigDecimal(3));
+        });
+    }
+
+    /**
+     * Sprzedaż towarów zsumowana per rachunek - źródło rankingu produktów. Jeden wiersz = jeden towar
+     * na jednym rachunku, więc liczba wierszy towaru to liczba rachunków, na których wystąpił.
+     */
+    public long forEachProductSalePerBill(LocalDateTime from, LocalDateTime to, Collection<Integer> sellerIds,
+                                          ProductSaleHandler handler) {
+        return query(PRODUCT_SALES_PER_BILL_SQL, range(from, to).addValue("sellerIds", sellerIds), rs -> {
+            Long towarId = getLong(rs, 2);
+            handler.accept(
+                    rs.getInt(1),
+                    towarId,
+                    dictionaries.productName(towarId),
+                    dictionaries.productGroup(towarId),
+                    rs.getBigDecimal(3),
+                    rs.getBigDecimal(4));
+        });
+    }
+
+    /**
+     * Rachunki zagregowane per dzień, godzina i sprzedawca - źródło kostki sprzedaży.
+     */
+    public long forEachCubeBillCell(LocalDateTime from, LocalDateTime to, CubeBillHandler handler) {
+        return query(CUBE_BILLS_SQL, range(from, to), rs -> {
+            int sellerId = rs.getInt(3);
+            handler.accept(
+                    rs.getObject(1, LocalDate.class),
+                    rs.getInt(2),
+                    sellerId,
+                    dictionaries.userName(sellerId),
+                    rs.getInt(4),
+                    rs.getBigDecimal(5));
+        });
+    }
+
+    /**
+     * Pozycje zagregowane per dzień, godzina, sprzedawca i towar (z korektą zestawów) - źródło kostki sprzedaży.
+     */
+    public long forEachCubePositionCell(LocalDateTime from, LocalDateTime to, CubePositionHandler handler) {
+        return query(CUBE_POSITIONS_SQL, range(from, to), rs -> {
+            Long towarId = getLong(rs, 4);
+            handler.accept(
+                    rs.getObject(1, LocalDate.class),
+                    rs.getInt(2),
+                    rs.getInt(3),
+                    towarId,
+                    dictionaries.productGroup(towarId),
+                    rs.getBigDecimal(5));
+        });
+    }
+
+    /**
+     * Dokumenty zakupowe i przeniesienia (FZ, PZ, KFZ, MMP, MM) z okresu [from, to) dla magazynów (ID_MA),
+     * w kolejności DATA_WST, ID_DOK. Dalsze filtrowanie (PZ bez ID_POCHOD, MMP po ID_MA_2) robi FoodCostService.
+     */
+    public long forEachPurchaseDocument(LocalDate from, LocalDate to, Collection<Integer> warehouseIds,
+                                        PurchaseDocumentHandler handler) {
+        var params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("warehouseIds", warehouseIds);
+        return query(PURCHASE_DOCUMENTS_SQL, params, rs -> handler.accept(
+                new DokumentZakupuDto(
+                        rs.getLong(1),
+                        rs.getString(2),
+                        getLong(rs, 3),
+                        rs.getString(4),
+                        getInt(rs, 5),
+                        rs.getObject(6, LocalDate.class),
+                        rs.getString(7),
+                        rs.getBigDecimal(8)),
+                getInt(rs, 9),
+                getInt(rs, 10)));
+    }
+
+    /**
+     * Liczba zapytań wykonanych przez repozytorium od startu aplikacji.
+     */
+    public long getExecutedQueries() {
+        return executedQueries.sum();
+    }
+
+    /**
+     * Rachunki (wszyscy sprzedawcy) z zakresu [from, to) w kolejności ID_RACH.
+     */
+    public long forEachBill(LocalDateTime from, LocalDateTime to, Consumer<BillView> handler) {
+        return query(BILLS_SQL, range(from, to), rs -> handler.accept(toBillView(rs)));
+    }
+
+    /**
+     * Kandydaci na podejrzane rachunki - kwota powyżej progu i czas nie dłuższy niż maxMinutes albo
+     * data rozpoczęcia po now. Dokładna reguła sprawdzana jest w BillValidationService.
+     */
+    public long forEachSuspiciousBillCandidate(LocalDateTime from, LocalDateTime to, Collection<Integer> sellerIds,
+                                               BigDecimal amount, int maxMinutes, LocalDateTime now,
+                                               Consumer<BillView> handler) {
+        var params = range(from, to)
+                .addValue("sellerIds", sellerIds)
+                .addValue("amount", amount)
+                .addValue("maxMinutes", maxMinutes)
+                .addValue("now", now);
+        return query(SUSPICIOUS_BILL_CANDIDATES_SQL, params, rs -> handler.accept(toBillView(rs)));
+    }
+
+    /**
+     * Co najwyżej limit rachunków o ID_RACH większym niż lastId, rosnąco - dla obserwatora nowych rachunków.
+     */
+    public long forEachBillAfterId(long lastId, int limit, Consumer<BillView> handler) {
+        var params = new MapSqlParameterSource()
+                .addValue("lastId", lastId)
+                .addValue("limit", limit);
+        return query(BILLS_AFTER_ID_SQL, params, rs -> handler.accept(toBillView(rs)));
+    }
+
+    /**
+     * Pozycje wskazanych rachunków w kolejności ID_RACH, NR_POZ. Lista ID nie może być pusta
+     * i powinna być krótka (Firebird ogranicza IN do 1500 elementów).
+     */
+    public long forEachLine(Collection<Long> billIds, Consumer<LineView> handler) {
+        return query(LINES_SQL, new MapSqlParameterSource("billIds", billIds), rs -> {
+            Long towarId = getLong(rs, 3);
+            handler.accept(new LineView(
+                    rs.getLong(1),
+                    rs.getLong(2),
+                    towarId,
+                    dictionaries.productName(towarId),
+                    rs.getBigDecimal(4),
+                    rs.getBigDecimal(5)));
+        });
+    }
+
+    private BillView toBillView(ResultSet rs) throws SQLException {
+        Integer sellerId = getInt(rs, 7);
+        return new BillView(
+                rs.getLong(1),
+                rs.getObject(2, LocalDateTime.class),
+                rs.getObject(3, LocalDateTime.class),
+                rs.getBigDecimal(4),
+                rs.getBigDecimal(5),
+                getInt(rs, 6),
+                sellerId,
+                dictionaries.userName(sellerId));
+    }
+
+    private long query(String sql, MapSqlParameterSource params, RowCallbackHandler handler) {
+        executedQueries.increment();
+        long[] rows = {0};
+        jdbc.query(sql, params, rs -> {
+            handler.processRow(rs);
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    private static MapSqlParameterSource range(LocalDateTime from, LocalDateTime to) {
+        return new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to);
+    }
+
+    private static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer getInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
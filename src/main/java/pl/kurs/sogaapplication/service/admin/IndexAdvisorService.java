@@ -0,0 +1,234 @@
+package pl.kurs.sogaapplication.service.admin;
+
+import org.firebirdsql.jdbc.FirebirdPreparedStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Doradca indeksów dla zapytań raportowych (polecenie administracyjne w CLI).
+ *
+ * Sprawdza w metadanych (RDB$INDICES / RDB$INDEX_SEGMENTS), czy tabele produkcyjne mają indeksy, na których
+ * opierają się zapytania analiz:
+ * - RACHUNKI(DATA_ROZ) - wszystkie zakresy dat [from, to),
+ * - RACHUNKI(ID_UZ, DATA_ROZ) - zakresy dat dla sprzedawców,
+ * - POZRACH(ID_RACH, NR_POZ) - złączenie pozycji korygującej z pozycją nadrzędną (korekta zestawów).
+ * Indeks istniejący spełnia wymaganie, jeśli jego początkowe kolumny to kolumny kandydata.
+ *
+ * Dla zapytań próbnych pokazuje plan Firebirda (Jaybird getExecutionPlan) i najlepszy z kilku czasów wykonania,
+ * a po założeniu brakujących indeksów - plan i czas ponownie. Działa na bazie produkcyjnej
+ * (kopia analityczna ma własne indeksy zakładane przez SnapshotMirrorService).
+ */
+@Service
+public class IndexAdvisorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexAdvisorService.class);
+
+    private static final int PROBE_RUNS = 3;
+    private static final int RECENT_DAYS = 30;
+
+    /**
+     * Indeks pomocniczy zakładany przez doradcę.
+     */
+    public record IndexCandidate(String name, String table, List<String> columns, String reason) {
+
+        String ddl() {
+            return "CREATE INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")";
+        }
+    }
+
+    /**
+     * Stan kandydata - coveredBy to nazwa istniejącego indeksu spełniającego wymaganie albo null.
+     */
+    public record IndexStatus(IndexCandidate candidate, String coveredBy) {
+
+        public boolean missing() {
+            return coveredBy == null;
+        }
+    }
+
+    /**
+     * Plan i najlepszy czas zapytania próbnego.
+     */
+    public record ProbeResult(String name, String plan, long millis) {
+    }
+
+    /**
+     * Wynik porównania: stan indeksów, zapytania próbne przed i (po założeniu indeksów) po zmianie.
+     */
+    public record Report(List<IndexStatus> indexes, List<String> created,
+                         List<ProbeResult> before, List<ProbeResult> after) {
+    }
+
+    private static final List<IndexCandidate> CANDIDATES = List.of(
+            new IndexCandidate("SOGA_RACHUNKI_DATA_ROZ", "RACHUNKI", List.of("DATA_ROZ"),
+                    "zakresy dat rachunków"),
+            new IndexCandidate("SOGA_RACHUNKI_ID_UZ_DATA_ROZ", "RACHUNKI", List.of("ID_UZ", "DATA_ROZ"),
+                    "zakresy dat dla sprzedawców"),
+            new IndexCandidate("SOGA_POZRACH_ID_RACH_NR_POZ", "POZRACH", List.of("ID_RACH", "NR_POZ"),
+                    "pozycja nadrzędna zestawu"));
+
+    private static final String INDEX_SEGMENTS_SQL = """
+            SELECT i.RDB$INDEX_NAME, s.RDB$FIELD_NAME
+            FROM RDB$INDICES i
+            JOIN RDB$INDEX_SEGMENTS s ON s.RDB$INDEX_NAME = i.RDB$INDEX_NAME
+            WHERE i.RDB$RELATION_NAME = ?
+              AND COALESCE(i.RDB$INDEX_INACTIVE, 0) = 0
+            ORDER BY i.RDB$INDEX_NAME, s.RDB$FIELD_POSITION
+            """;
+
+    /**
+     * Zapytanie próbne: parametry [from, to] (ostatnie RECENT_DAYS dni albo rok ostatniej sprzedaży)
+     * i opcjonalnie ID domyślnego sprzedawcy.
+     */
+    private record Probe(String name, boolean wholeYear, boolean perSeller, String sql) {
+    }
+
+    private static final List<Probe> PROBES = List.of(
+            new Probe("Suma rachunków za ostatnie " + RECENT_DAYS + " dni", false, false, """
+                    SELECT COALESCE(SUM(r.WART_NU), 0)
+                    FROM RACHUNKI r
+                    WHERE r.DATA_ROZ >= ? AND r.DATA_ROZ < ?
+                    """),
+            new Probe("Dni ze sprzedażą sprzedawcy w roku", true, true, """
+                    SELECT COUNT(DISTINCT CAST(r.DATA_ROZ AS DATE))
+                    FROM RACHUNKI r
+                    WHERE r.DATA_ROZ >= ? AND r.DATA_ROZ < ?
+                      AND r.ID_UZ = ?
+                      AND r.WART_NU > 0
+                    """),
+            new Probe("Pozycje z korektą zestawów (" + RECENT_DAYS + " dni)", false, false, """
+                    SELECT COALESCE(SUM(
+                               CASE WHEN p.NR_POZ_KOR > 0
+                                    THEN p.WART_JN * COALESCE(parent.ILOSC, p.ILOSC)
+                                    ELSE p.WART_NU
+                               END), 0)
+                    FROM RACHUNKI r
+                    JOIN POZRACH p ON p.ID_RACH = r.ID_RACH
+                    LEFT JOIN POZRACH parent
+                           ON parent.ID_RACH = p.ID_RACH
+                          AND parent.NR_POZ  = p.NR_POZ
+                          AND parent.NR_POZ_KOR = 0
+                    WHERE r.DATA_ROZ >= ? AND r.DATA_ROZ < ?
+                    """));
+
+    private final JdbcTemplate jdbc;
+    private final RestaurantConfigService configService;
+
+    public IndexAdvisorService(DataSource dataSource, RestaurantConfigService configService) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.configService = configService;
+    }
+
+    /**
+     * Stan indeksów pomocniczych w bazie produkcyjnej.
+     */
+    public List<IndexStatus> inspectIndexes() {
+        Map<String, Map<String, List<String>>> indexesByTable = new LinkedHashMap<>();
+        List<IndexStatus> result = new ArrayList<>();
+        for (IndexCandidate candidate : CANDIDATES) {
+            Map<String, List<String>> indexes = indexesByTable.computeIfAbsent(candidate.table(), this::loadIndexes);
+            String coveredBy = null;
+            for (var index : indexes.entrySet()) {
+                List<String> columns = index.getValue();
+                if (columns.size() >= candidate.columns().size()
+                        && columns.subList(0, candidate.columns().size()).equals(candidate.columns())) {
+                    coveredBy = index.getKey();
+                    break;
+                }
+            }
+            result.add(new IndexStatus(candidate, coveredBy));
+        }
+        return result;
+    }
+
+    /**
+     * Plany i czasy zapytań próbnych bez zmian w bazie.
+     */
+    public Report analyze() {
+        return new Report(inspectIndexes(), List.of(), runProbes(), List.of());
+    }
+
+    /**
+     * Mierzy zapytania próbne, zakłada brakujące indeksy i mierzy je ponownie.
+     */
+    public Report createMissingIndexes() {
+        List<IndexStatus> indexes = inspectIndexes();
+        List<ProbeResult> before = runProbes();
+
+        List<String> created = new ArrayList<>();
+        for (IndexStatus status : indexes) {
+            if (!status.missing()) {
+                continue;
+            }
+            long start = System.nanoTime();
+            jdbc.execute(status.candidate().ddl());
+            created.add(status.candidate().name());
+            logger.info("Założono indeks {} ({} ms)", status.candidate().ddl(), (System.nanoTime() - start) / 1_000_000);
+        }
+
+        List<ProbeResult> after = created.isEmpty() ? List.of() : runProbes();
+        return new Report(inspectIndexes(), created, before, after);
+    }
+
+    private Map<String, List<String>> loadIndexes(String table) {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        jdbc.query(INDEX_SEGMENTS_SQL, rs -> {
+            indexes.computeIfAbsent(rs.getString(1).trim(), name -> new ArrayList<>()).add(rs.getString(2).trim());
+        }, table);
+        return indexes;
+    }
+
+    private List<ProbeResult> runProbes() {
+        Timestamp lastSale = jdbc.queryForObject("SELECT MAX(r.DATA_ROZ) FROM RACHUNKI r", Timestamp.class);
+        LocalDate lastDay = lastSale != null ? lastSale.toLocalDateTime().toLocalDate() : LocalDate.now();
+        LocalDateTime to = lastDay.plusDays(1).atStartOfDay();
+        LocalDateTime recentFrom = lastDay.minusDays(RECENT_DAYS - 1).atStartOfDay();
+        LocalDateTime yearFrom = lastDay.withDayOfYear(1).atStartOfDay();
+        List<Integer> sellers = configService.getDefaultSellers();
+        int sellerId = sellers.isEmpty() ? 0 : sellers.get(0);
+
+        List<ProbeResult> results = new ArrayList<>();
+        for (Probe probe : PROBES) {
+            List<Object> params = new ArrayList<>(List.of(
+                    Timestamp.valueOf(probe.wholeYear() ? yearFrom : recentFrom), Timestamp.valueOf(to)));
+            if (probe.perSeller()) {
+                params.add(sellerId);
+            }
+            results.add(jdbc.execute((ConnectionCallback<ProbeResult>) connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(probe.sql())) {
+                    String plan = statement.unwrap(FirebirdPreparedStatement.class).getExecutionPlan();
+                    for (int i = 0; i < params.size(); i++) {
+                        statement.setObject(i + 1, params.get(i));
+                    }
+                    long best = Long.MAX_VALUE;
+                    for (int run = 0; run < PROBE_RUNS; run++) {
+                        long start = System.nanoTime();
+                        try (ResultSet rs = statement.executeQuery()) {
+                            while (rs.next()) {
+                                // wynik nieistotny - liczy się czas
+                            }
+                        }
+                        best = Math.min(best, System.nanoTime() - start);
+                    }
+                    return new ProbeResult(probe.name(), plan != null ? plan.trim() : "", best / 1_000_000);
+                }
+            }));
+        }
+        return results;
+    }
+}
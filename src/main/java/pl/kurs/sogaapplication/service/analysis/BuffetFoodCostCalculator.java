@@ -1,6 +1,7 @@
 package pl.kurs.sogaapplication.service.analysis;
 
 import org.springframework.stereotype.Component;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
 import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
 
@@ -17,12 +18,15 @@ import java.util.List;
 public class BuffetFoodCostCalculator extends AbstractWarehouseFoodCostCalculator {
     
     private final RachunekJpaRepository rachunekRepository;
+    private final SalesRollupService salesRollupService;
     
     public BuffetFoodCostCalculator(org.springframework.beans.factory.ObjectProvider<FoodCostService> foodCostServiceProvider,
                                    RestaurantConfigService configService,
-                                   RachunekJpaRepository rachunekRepository) {
+                                   RachunekJpaRepository rachunekRepository,
+                                   SalesRollupService salesRollupService) {
         super(foodCostServiceProvider, configService);
         this.rachunekRepository = rachunekRepository;
+        this.salesRollupService = salesRollupService;
     }
     
     @Override
@@ -37,29 +41,38 @@ public class BuffetFoodCostCalculator extends AbstractWarehouseFoodCostCalculato
     
     @Override
     protected BigDecimal calculateSales(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
-        var kitchenProducts = configService.getKitchenProducts();
-        var packagingProducts = configService.getPackagingProducts();
-        var deliveryProducts = configService.getDeliveryProducts();
+        // Dni zamknięte z rollupu, reszta okresu z Firebirda
+        BigDecimal rollupSales = BigDecimal.ZERO;
+        LocalDate firebirdFrom = from;
+        LocalDate lastCovered = salesRollupService.lastCoveredDay(from, to);
+        if (lastCovered != null) {
+            var categories = salesRollupService.categorySums(from, lastCovered, sellerIds);
+            rollupSales = salesRollupService.billTotals(from, lastCovered, sellerIds).sumaNetto()
+                    .subtract(categories.kitchen())
+                    .subtract(categories.packaging())
+                    .subtract(categories.delivery());
+            if (!lastCovered.isBefore(to)) {
+                return rollupSales;
+            }
+            firebirdFrom = lastCovered.plusDays(1);
+        }
         
-        LocalDateTime fromDateTime = from.atStartOfDay();
+        LocalDateTime fromDateTime = firebirdFrom.atStartOfDay();
         LocalDateTime toDateTime = to.plusDays(1).atStartOfDay();
         
         BigDecimal totalSales = rachunekRepository.sumaRazemBySellers(fromDateTime, toDateTime, sellerIds);
-        BigDecimal kitchenSales = (kitchenProducts == null || kitchenProducts.isEmpty())
-                ? BigDecimal.ZERO
-                : rachunekRepository.sumaKuchniaBySellers(fromDateTime, toDateTime, kitchenProducts, sellerIds);
-        BigDecimal packagingSales = (packagingProducts == null || packagingProducts.isEmpty())
-                ? BigDecimal.ZERO
-                : rachunekRepository.sumaKuchniaBySellers(fromDateTime, toDateTime, packagingProducts, sellerIds);
-        BigDecimal deliverySales = (deliveryProducts == null || deliveryProducts.isEmpty())
-                ? BigDecimal.ZERO
-                : rachunekRepository.sumaKuchniaBySellers(fromDateTime, toDateTime, deliveryProducts, sellerIds);
+        BigDecimal kitchenSales = rachunekRepository.sumaKategoriiBySellers(
+                fromDateTime, toDateTime, ProductCategory.KITCHEN.getCode(), sellerIds);
+        BigDecimal packagingSales = rachunekRepository.sumaKategoriiBySellers(
+                fromDateTime, toDateTime, ProductCategory.PACKAGING.getCode(), sellerIds);
+        BigDecimal deliverySales = rachunekRepository.sumaKategoriiBySellers(
+                fromDateTime, toDateTime, ProductCategory.DELIVERY.getCode(), sellerIds);
         
         // Sprzedaż bufetu = całkowita sprzedaż - sprzedaż kuchni - sprzedaż opakowań - sprzedaż dowozu
-        return totalSales
+        return rollupSales.add(totalSales
                 .subtract(kitchenSales)
                 .subtract(packagingSales)
-                .subtract(deliverySales);
+                .subtract(deliverySales));
     }
     
     @Override
@@ -0,0 +1,168 @@
+package pl.kurs.sogaapplication.service.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.kurs.sogaapplication.repositories.DokumentJpaRepository;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigChangedEvent;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Współdzielony, ograniczony (LRU) cache wyników food cost i średnich dziennych kosztów.
+ * Klucz: rodzaj wyniku (np. nazwa magazynu), okres i posortowana lista sprzedawców.
+ *
+ * Zasady ważności wpisu:
+ * - przy każdym odczycie porównywany jest odcisk dokumentów DOKUMENTY z okresu (liczba, MAX(ID_DOK), suma) -
+ *   nowe lub zmienione dokumenty unieważniają wpis,
+ * - okresy zamknięte (koniec przed dzisiejszym dniem) nie wygasają,
+ * - okresy otwarte wygasają po restaurant.foodcost.cache.open-period-ttl-seconds (sprzedaż w toku),
+ * - wpis pamięta wersje sekcji kategorii i magazynów konfiguracji, z którymi został policzony -
+ *   po zmianie tych sekcji jest nieaktualny; zmiana samych sprzedawców go nie unieważnia (sprzedawcy są w kluczu).
+ */
+@Component
+public class FoodCostCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FoodCostCache.class);
+
+    private final DokumentJpaRepository dokumentRepository;
+    private final RestaurantConfigService configService;
+
+    @Value("${restaurant.foodcost.cache.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${restaurant.foodcost.cache.open-period-ttl-seconds:300}")
+    private long openPeriodTtlSeconds;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public FoodCostCache(DokumentJpaRepository dokumentRepository, RestaurantConfigService configService) {
+        this.dokumentRepository = dokumentRepository;
+        this.configService = configService;
+    }
+
+    private record CacheKey(String kind, LocalDate from, LocalDate to, List<Integer> sellerIds) { }
+
+    private record CacheEntry(Object value, String fingerprint, Instant expiresAt,
+                              long categoriesVersion, long warehousesVersion) {
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && now.isAfter(expiresAt);
+        }
+
+        boolean isCurrent(RestaurantConfigService.ConfigVersion version) {
+            return categoriesVersion == version.categories() && warehousesVersion == version.warehouses();
+        }
+    }
+
+    /**
+     * Statystyki cache (liczniki od startu aplikacji).
+     */
+    public record CacheStats(long hits, long misses, int size) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * Zwraca wartość z cache albo wylicza ją przez loader i zapamiętuje.
+     *
+     * @param kind      rodzaj wyniku, np. "Kuchnia", "Bufet", "Koszty"
+     * @param from      początek okresu (włącznie)
+     * @param to        koniec okresu (włącznie)
+     * @param sellerIds sprzedawcy (kolejność nie ma znaczenia)
+     * @param loader    wyliczenie wartości przy braku ważnego wpisu
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, LocalDate from, LocalDate to, Collection<Integer> sellerIds, Supplier<T> loader) {
+        var key = new CacheKey(kind, from, to, sellerIds.stream().sorted().distinct().toList());
+        String fingerprint = fingerprint(from, to);
+        Instant now = Instant.now();
+        RestaurantConfigService.ConfigVersion version = configService.getVersion();
+
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now) && entry.isCurrent(version)
+                    && entry.fingerprint().equals(fingerprint)) {
+                hits.incrementAndGet();
+                return (T) entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+
+        misses.incrementAndGet();
+        T value = loader.get();
+        Instant expiresAt = to.isBefore(LocalDate.now())
+                ? null
+                : now.plus(Duration.ofSeconds(openPeriodTtlSeconds));
+
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(value, fingerprint, expiresAt,
+                    version.categories(), version.warehouses()));
+        }
+        log.debug("Food cost cache: zapisano {} {} - {} {} (wygasa: {})", kind, from, to, key.sellerIds(), expiresAt);
+        return value;
+    }
+
+    /**
+     * Po zmianie kategorii lub magazynów usuwa tylko wpisy policzone ze starszą wersją tych sekcji.
+     */
+    @EventListener
+    public void onConfigChanged(RestaurantConfigChangedEvent event) {
+        if (!event.categoriesChanged() && !event.warehousesChanged()) {
+            return;
+        }
+        int removed;
+        synchronized (entries) {
+            int before = entries.size();
+            entries.values().removeIf(entry -> !entry.isCurrent(event.current()));
+            removed = before - entries.size();
+        }
+        log.info("Food cost cache: usunięto {} wpisów po zmianie konfiguracji (wersja {})",
+                removed, event.current().version());
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return new CacheStats(hits.get(), misses.get(), entries.size());
+        }
+    }
+
+    private String fingerprint(LocalDate from, LocalDate to) {
+        List<Object[]> rows = dokumentRepository.findDocumentsFingerprint(from, to.plusDays(1));
+        if (rows.isEmpty()) {
+            return "";
+        }
+        Object[] row = rows.get(0);
+        return row[0] + ":" + row[1] + ":" + row[2];
+    }
+}
@@ -1,7 +1,10 @@
 package pl.kurs.sogaapplication.service.analysis;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.kurs.sogaapplication.dto.DailyGrossMarginDto;
@@ -9,9 +12,14 @@ import pl.kurs.sogaapplication.dto.DokumentZakupuDto;
 import pl.kurs.sogaapplication.dto.FoodCostSummary;
 import pl.kurs.sogaapplication.dto.KitchenPurchasesSummary;
 import pl.kurs.sogaapplication.models.DzienPodzial;
+import pl.kurs.sogaapplication.models.business.MoneyAccumulator;
+import pl.kurs.sogaapplication.models.business.PointOfSale;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
 import pl.kurs.sogaapplication.repositories.DokumentJpaRepository;
 import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
 import pl.kurs.sogaapplication.service.analysis.SalesAnalysisService;
+import pl.kurs.sogaapplication.service.config.PointOfSaleService;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
 
 import java.math.BigDecimal;
@@ -28,6 +36,12 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class FoodCostService {
@@ -36,19 +50,40 @@ public class FoodCostService {
 
     private final DokumentJpaRepository dokumentRepository;
     private final RachunekJpaRepository rachunekRepository;
+    private final SalesJdbcRepository salesJdbcRepository;
     private final RestaurantConfigService configService;
     private final SalesAnalysisService salesAnalysisService;
     private final java.util.Map<String, WarehouseFoodCostCalculator> calculators;
+    private final FoodCostCache foodCostCache;
+    private final PointOfSaleService pointOfSaleService;
+    // Własny proxy - zadania punktów sprzedaży otwierają osobne transakcje (@Transactional działa tylko przez proxy)
+    private final ObjectProvider<FoodCostService> self;
+    private final ExecutorService marginExecutor;
 
     public FoodCostService(DokumentJpaRepository dokumentRepository,
                            RachunekJpaRepository rachunekRepository,
+                           SalesJdbcRepository salesJdbcRepository,
                            RestaurantConfigService configService,
                            SalesAnalysisService salesAnalysisService,
-                           java.util.List<WarehouseFoodCostCalculator> calculatorList) {
+                           java.util.List<WarehouseFoodCostCalculator> calculatorList,
+                           FoodCostCache foodCostCache,
+                           PointOfSaleService pointOfSaleService,
+                           ObjectProvider<FoodCostService> self,
+                           @Value("${restaurant.snapshot.pool-size:4}") int parallelReads) {
         this.dokumentRepository = dokumentRepository;
         this.rachunekRepository = rachunekRepository;
+        this.salesJdbcRepository = salesJdbcRepository;
         this.configService = configService;
         this.salesAnalysisService = salesAnalysisService;
+        this.foodCostCache = foodCostCache;
+        this.pointOfSaleService = pointOfSaleService;
+        this.self = self;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.marginExecutor = Executors.newFixedThreadPool(Math.max(1, parallelReads), task -> {
+            Thread thread = new Thread(task, "margin-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         
         // Tworzymy mapę kalkulatorów po nazwie magazynu
         this.calculators = calculatorList.stream()
@@ -69,6 +104,13 @@ public class FoodCostService {
         return calculator;
     }
 
+    /**
+     * Statystyki współdzielonego cache food cost (trafienia/chybienia).
+     */
+    public FoodCostCache.CacheStats getFoodCostCacheStats() {
+        return foodCostCache.getStats();
+    }
+
     /**
      * Wylicza food cost dla kuchni w zadanym miesiącu.
      *
@@ -101,10 +143,10 @@ public class FoodCostService {
         LocalDateTime fromDateTime = from.atStartOfDay();
         LocalDateTime toDateTime = to.plusDays(1).atStartOfDay();
 
-        BigDecimal kitchenSales = rachunekRepository.sumaKuchniaBySellers(
+        BigDecimal kitchenSales = rachunekRepository.sumaKategoriiBySellers(
                 fromDateTime,
                 toDateTime,
-                kitchenProducts,
+                ProductCategory.KITCHEN.getCode(),
                 sellerIds
         );
 
@@ -155,196 +197,103 @@ public class FoodCostService {
         Integer kitchenWarehouseId = kitchenWarehouses.isEmpty() ? 8 : kitchenWarehouses.get(0);
         Integer buffetWarehouseId = buffetWarehouses.isEmpty() ? 9 : buffetWarehouses.get(0);
         
-        // Zakupy podstawowe: FZ, PZ, KFZ
-        BigDecimal purchasesFz = dokumentRepository.sumFzNettoByWarehouses(from, toExclusive, warehouseIds);
-        BigDecimal purchasesPz = dokumentRepository.sumStandalonePzNettoByWarehouses(from, toExclusive, warehouseIds);
-        BigDecimal purchasesKfz = dokumentRepository.sumKfzNettoByWarehouses(from, toExclusive, warehouseIds);
-        
-        BigDecimal purchasesMmp = BigDecimal.ZERO;
-        BigDecimal purchasesMm = BigDecimal.ZERO;
-        
-        // MMP i MM zależą od wybranego magazynu
+        // Przeniesienia zależą od wybranego magazynu:
+        // MMP - przyjęcia do magazynu docelowego z magazynów źródłowych (dodawane), MM - wydania z magazynu (odejmowane)
+        Integer transferWarehouseId = null;
+        List<Integer> transferSourceIds = Collections.emptyList();
         if ("Kuchnia".equals(warehouseName)) {
-            // Dla kuchni: MMP z bufetu do kuchni (dodawane), MM z kuchni (odejmowane)
-            purchasesMmp = dokumentRepository.sumMmpNettoByWarehouses(from, toExclusive, kitchenWarehouseId, buffetWarehouseId);
-            purchasesMm = dokumentRepository.sumMmNettoByWarehouses(from, toExclusive, kitchenWarehouseId);
+            transferWarehouseId = kitchenWarehouseId;
+            transferSourceIds = List.of(buffetWarehouseId);
         } else if ("Bufet".equals(warehouseName)) {
-            // Dla bufetu: MMP z kuchni do bufetu (dodawane), MM z bufetu (odejmowane)
-            purchasesMmp = dokumentRepository.sumMmpNettoByWarehouses(from, toExclusive, buffetWarehouseId, kitchenWarehouseId);
-            purchasesMm = dokumentRepository.sumMmNettoByWarehouses(from, toExclusive, buffetWarehouseId);
+            transferWarehouseId = buffetWarehouseId;
+            transferSourceIds = List.of(kitchenWarehouseId);
         } else if ("Koszty".equals(warehouseName)) {
-            // Dla kosztów: sprawdzamy przeniesienia do/z magazynu koszty
+            // Dla kosztów: przeniesienia do/z magazynu koszty, źródła MMP: kuchnia, bufet
             var costsWarehouses = configService.getCostWarehouses();
             if (!costsWarehouses.isEmpty()) {
-                Integer costsWarehouseId = costsWarehouses.get(0);
-                
-                // MMP: przeniesienia DO magazynu koszty (z innych magazynów)
-                // Sprawdzamy wszystkie możliwe źródła: kuchnia, bufet
-                BigDecimal mmpFromKitchen = dokumentRepository.sumMmpNettoByWarehouses(from, toExclusive, costsWarehouseId, kitchenWarehouseId);
-                BigDecimal mmpFromBuffet = dokumentRepository.sumMmpNettoByWarehouses(from, toExclusive, costsWarehouseId, buffetWarehouseId);
-                purchasesMmp = mmpFromKitchen.add(mmpFromBuffet);
-                
-                // MM: przeniesienia Z magazynu koszty (do innych magazynów)
-                purchasesMm = dokumentRepository.sumMmNettoByWarehouses(from, toExclusive, costsWarehouseId);
+                transferWarehouseId = costsWarehouses.get(0);
+                transferSourceIds = List.of(kitchenWarehouseId, buffetWarehouseId);
             }
         }
-        
-        BigDecimal totalPurchases = purchasesFz.add(purchasesPz).add(purchasesKfz).add(purchasesMmp).subtract(purchasesMm);
 
-        // Pobierz listę dokumentów
-        List<Object[]> fzDocs = dokumentRepository.findFzDocumentsByWarehouses(from, toExclusive, warehouseIds);
-        List<Object[]> pzDocs = dokumentRepository.findStandalonePzDocumentsByWarehouses(from, toExclusive, warehouseIds);
-        List<Object[]> kfzDocs = dokumentRepository.findKfzDocumentsByWarehouses(from, toExclusive, warehouseIds);
-        
-        List<Object[]> mmpDocs;
-        List<Object[]> mmDocs;
-        
-        if ("Kuchnia".equals(warehouseName)) {
-            mmpDocs = dokumentRepository.findMmpDocumentsByWarehouses(from, toExclusive, kitchenWarehouseId, buffetWarehouseId);
-            mmDocs = dokumentRepository.findMmDocumentsByWarehouses(from, toExclusive, kitchenWarehouseId);
-        } else if ("Bufet".equals(warehouseName)) {
-            mmpDocs = dokumentRepository.findMmpDocumentsByWarehouses(from, toExclusive, buffetWarehouseId, kitchenWarehouseId);
-            mmDocs = dokumentRepository.findMmDocumentsByWarehouses(from, toExclusive, buffetWarehouseId);
-        } else if ("Koszty".equals(warehouseName)) {
-            // Dla kosztów: pobierz przeniesienia do/z magazynu koszty
-            var costsWarehouses = configService.getCostWarehouses();
-            if (!costsWarehouses.isEmpty()) {
-                Integer costsWarehouseId = costsWarehouses.get(0);
-                
-                // MMP: przeniesienia DO magazynu koszty (z kuchni i bufetu)
-                List<Object[]> mmpFromKitchen = dokumentRepository.findMmpDocumentsByWarehouses(from, toExclusive, costsWarehouseId, kitchenWarehouseId);
-                List<Object[]> mmpFromBuffet = dokumentRepository.findMmpDocumentsByWarehouses(from, toExclusive, costsWarehouseId, buffetWarehouseId);
-                mmpDocs = new java.util.ArrayList<>();
-                mmpDocs.addAll(mmpFromKitchen);
-                mmpDocs.addAll(mmpFromBuffet);
-                
-                // MM: przeniesienia Z magazynu koszty
-                mmDocs = dokumentRepository.findMmDocumentsByWarehouses(from, toExclusive, costsWarehouseId);
-            } else {
-                mmpDocs = Collections.emptyList();
-                mmDocs = Collections.emptyList();
-            }
-        } else {
-            mmpDocs = Collections.emptyList();
-            mmDocs = Collections.emptyList();
-        }
-        
-        List<DokumentZakupuDto> dokumenty = new java.util.ArrayList<>();
-        
-        // Mapuj FZ
-        for (Object[] row : fzDocs) {
-            LocalDate dataWst;
-            if (row[5] instanceof java.sql.Date) {
-                dataWst = ((java.sql.Date) row[5]).toLocalDate();
-            } else if (row[5] instanceof java.time.LocalDate) {
-                dataWst = (java.time.LocalDate) row[5];
-            } else {
-                dataWst = ((java.sql.Timestamp) row[5]).toLocalDateTime().toLocalDate();
-            }
-            
-            dokumenty.add(new DokumentZakupuDto(
-                    ((Number) row[0]).longValue(),      // ID_DOK
-                    (String) row[1],                     // TYP_DOK
-                    row[2] != null ? ((Number) row[2]).longValue() : null,  // ID_POCHOD
-                    row[3] != null ? (String) row[3] : null,               // NR_ORYGIN
-                    row[4] != null ? ((Number) row[4]).intValue() : null,  // ID_FI
-                    dataWst,                            // DATA_WST
-                    row[6] != null ? (String) row[6] : null,               // CALY_NR
-                    ((java.math.BigDecimal) row[7])                        // WART_NU
-            ));
-        }
-        
-        // Mapuj PZ
-        for (Object[] row : pzDocs) {
-            LocalDate dataWst;
-            if (row[5] instanceof java.sql.Date) {
-                dataWst = ((java.sql.Date) row[5]).toLocalDate();
-            } else if (row[5] instanceof java.time.LocalDate) {
-                dataWst = (java.time.LocalDate) row[5];
-            } else {
-                dataWst = ((java.sql.Timestamp) row[5]).toLocalDateTime().toLocalDate();
-            }
-            
-            dokumenty.add(new DokumentZakupuDto(
-                    ((Number) row[0]).longValue(),
-                    (String) row[1],
-                    row[2] != null ? ((Number) row[2]).longValue() : null,
-                    row[3] != null ? (String) row[3] : null,
-                    row[4] != null ? ((Number) row[4]).intValue() : null,
-                    dataWst,
-                    row[6] != null ? (String) row[6] : null,
-                    ((java.math.BigDecimal) row[7])
-            ));
-        }
-        
-        // Mapuj KFZ
-        for (Object[] row : kfzDocs) {
-            LocalDate dataWst;
-            if (row[5] instanceof java.sql.Date) {
-                dataWst = ((java.sql.Date) row[5]).toLocalDate();
-            } else if (row[5] instanceof java.time.LocalDate) {
-                dataWst = (java.time.LocalDate) row[5];
-            } else {
-                dataWst = ((java.sql.Timestamp) row[5]).toLocalDateTime().toLocalDate();
-            }
-            
-            dokumenty.add(new DokumentZakupuDto(
-                    ((Number) row[0]).longValue(),
-                    (String) row[1],
-                    row[2] != null ? ((Number) row[2]).longValue() : null,
-                    row[3] != null ? (String) row[3] : null,
-                    row[4] != null ? ((Number) row[4]).intValue() : null,
-                    dataWst,
-                    row[6] != null ? (String) row[6] : null,
-                    ((java.math.BigDecimal) row[7])
-            ));
+        var queriedWarehouseIds = new java.util.LinkedHashSet<>(warehouseIds);
+        if (transferWarehouseId != null) {
+            queriedWarehouseIds.add(transferWarehouseId);
         }
-        
-        // Mapuj MMP
-        for (Object[] row : mmpDocs) {
-            LocalDate dataWst;
-            if (row[5] instanceof java.sql.Date) {
-                dataWst = ((java.sql.Date) row[5]).toLocalDate();
-            } else if (row[5] instanceof java.time.LocalDate) {
-                dataWst = (java.time.LocalDate) row[5];
-            } else {
-                dataWst = ((java.sql.Timestamp) row[5]).toLocalDateTime().toLocalDate();
-            }
-            
-            dokumenty.add(new DokumentZakupuDto(
-                    ((Number) row[0]).longValue(),
-                    (String) row[1],
-                    row[2] != null ? ((Number) row[2]).longValue() : null,
-                    row[3] != null ? (String) row[3] : null,
-                    row[4] != null ? ((Number) row[4]).intValue() : null,
-                    dataWst,
-                    row[6] != null ? (String) row[6] : null,
-                    ((java.math.BigDecimal) row[7])
-            ));
+
+        List<DokumentZakupuDto> fzDocs = new ArrayList<>();
+        List<DokumentZakupuDto> pzDocs = new ArrayList<>();
+        List<DokumentZakupuDto> kfzDocs = new ArrayList<>();
+        Map<Integer, List<DokumentZakupuDto>> mmpDocsBySource = new java.util.LinkedHashMap<>();
+        for (Integer sourceId : transferSourceIds) {
+            mmpDocsBySource.putIfAbsent(sourceId, new ArrayList<>());
         }
-        
-        // Mapuj MM (dokumenty odejmowane - przeniesienia z kuchni do bufetu)
-        for (Object[] row : mmDocs) {
-            LocalDate dataWst;
-            if (row[5] instanceof java.sql.Date) {
-                dataWst = ((java.sql.Date) row[5]).toLocalDate();
-            } else if (row[5] instanceof java.time.LocalDate) {
-                dataWst = (java.time.LocalDate) row[5];
-            } else {
-                dataWst = ((java.sql.Timestamp) row[5]).toLocalDateTime().toLocalDate();
+        List<DokumentZakupuDto> mmDocs = new ArrayList<>();
+
+        var sumFz = new MoneyAccumulator();
+        var sumPz = new MoneyAccumulator();
+        var sumKfz = new MoneyAccumulator();
+        var sumMmp = new MoneyAccumulator();
+        var sumMm = new MoneyAccumulator();
+        Integer transferId = transferWarehouseId;
+
+        // Jedno zapytanie o wszystkie dokumenty - listy i sumy liczone z tych samych wierszy
+        salesJdbcRepository.forEachPurchaseDocument(from, toExclusive, queriedWarehouseIds, (doc, idMa, idMa2) -> {
+            boolean inWarehouses = idMa != null && warehouseIds.contains(idMa);
+            boolean isTransferWarehouse = idMa != null && idMa.equals(transferId);
+
+            switch (doc.typDok().trim()) {
+                case "FZ" -> {
+                    if (inWarehouses) {
+                        fzDocs.add(doc);
+                        sumFz.add(doc.wartNu());
+                    }
+                }
+                case "PZ" -> {
+                    // Tylko PZ niepowiązane z innymi dokumentami (ID_POCHOD = 0 lub NULL)
+                    if (inWarehouses && (doc.idPochodzenia() == null || doc.idPochodzenia() == 0L)) {
+                        pzDocs.add(doc);
+                        sumPz.add(doc.wartNu());
+                    }
+                }
+                case "KFZ" -> {
+                    if (inWarehouses) {
+                        kfzDocs.add(doc);
+                        sumKfz.add(doc.wartNu());
+                    }
+                }
+                case "MMP" -> {
+                    if (isTransferWarehouse && idMa2 != null && mmpDocsBySource.containsKey(idMa2)) {
+                        mmpDocsBySource.get(idMa2).add(doc);
+                        sumMmp.add(doc.wartNu());
+                    }
+                }
+                case "MM" -> {
+                    if (isTransferWarehouse) {
+                        // wartość ujemna, bo odejmujemy
+                        mmDocs.add(withNegatedValue(doc));
+                        sumMm.add(doc.wartNu());
+                    }
+                }
+                default -> { }
             }
-            
-            dokumenty.add(new DokumentZakupuDto(
-                    ((Number) row[0]).longValue(),
-                    (String) row[1],
-                    row[2] != null ? ((Number) row[2]).longValue() : null,
-                    row[3] != null ? (String) row[3] : null,
-                    row[4] != null ? ((Number) row[4]).intValue() : null,
-                    dataWst,
-                    row[6] != null ? (String) row[6] : null,
-                    ((java.math.BigDecimal) row[7]).negate() // wartość ujemna, bo odejmujemy
-            ));
-        }
+        });
+
+        BigDecimal purchasesFz = sumFz.toBigDecimal();
+        BigDecimal purchasesPz = sumPz.toBigDecimal();
+        BigDecimal purchasesKfz = sumKfz.toBigDecimal();
+        BigDecimal purchasesMmp = sumMmp.toBigDecimal();
+        BigDecimal purchasesMm = sumMm.toBigDecimal();
+
+        BigDecimal totalPurchases = purchasesFz.add(purchasesPz).add(purchasesKfz).add(purchasesMmp).subtract(purchasesMm);
+
+        // Kolejność jak w raporcie: FZ, PZ, KFZ, MMP (po magazynie źródłowym), MM
+        List<DokumentZakupuDto> dokumenty = new ArrayList<>();
+        dokumenty.addAll(fzDocs);
+        dokumenty.addAll(pzDocs);
+        dokumenty.addAll(kfzDocs);
+        mmpDocsBySource.values().forEach(dokumenty::addAll);
+        dokumenty.addAll(mmDocs);
 
         log.debug("Zakupy {} {} - {} | magazyny {} | FZ {} | PZ {} | KFZ {} | MMP {} | MM {} | razem {} | dokumentów: {}",
                 warehouseName, from, to, warehouseIds, purchasesFz, purchasesPz, purchasesKfz, purchasesMmp, purchasesMm, totalPurchases, dokumenty.size());
@@ -364,6 +313,11 @@ public class FoodCostService {
         );
     }
 
+    private static DokumentZakupuDto withNegatedValue(DokumentZakupuDto doc) {
+        return new DokumentZakupuDto(doc.idDok(), doc.typDok(), doc.idPochodzenia(), doc.nrOryginalny(),
+                doc.idFirmy(), doc.dataWst(), doc.calyNumer(), doc.wartNu() != null ? doc.wartNu().negate() : null);
+    }
+
     /**
      * Proste podsumowanie zakupów kuchni z wybranego okresu (bez porównania ze sprzedażą).
      * Metoda pomocnicza dla kompatybilności wstecznej.
@@ -381,7 +335,8 @@ public class FoodCostService {
      */
     @Transactional(readOnly = true)
     public FoodCostSummary calculateFoodCostForKitchen(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
-        return getCalculator("Kuchnia").calculateFoodCost(from, to, sellerIds);
+        return foodCostCache.get("Kuchnia", from, to, sellerIds,
+                () -> getCalculator("Kuchnia").calculateFoodCost(from, to, sellerIds));
     }
 
     /**
@@ -392,17 +347,102 @@ public class FoodCostService {
      */
     @Transactional(readOnly = true)
     public FoodCostSummary calculateFoodCostForBuffet(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
-        return getCalculator("Bufet").calculateFoodCost(from, to, sellerIds);
+        return foodCostCache.get("Bufet", from, to, sellerIds,
+                () -> getCalculator("Bufet").calculateFoodCost(from, to, sellerIds));
     }
     
     /**
      * Oblicza food cost dla magazynu koszty.
      * Dla kosztów nie ma sprzedaży, więc zwraca tylko zakupy bez food cost %.
      * Deleguje do CostsFoodCostCalculator.
+     * Wyniki food cost (kuchnia, bufet, koszty) są zapamiętywane we współdzielonym FoodCostCache.
      */
     @Transactional(readOnly = true)
     public FoodCostSummary calculateFoodCostForCosts(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
-        return getCalculator("Koszty").calculateFoodCost(from, to, sellerIds);
+        return foodCostCache.get("Koszty", from, to, sellerIds,
+                () -> getCalculator("Koszty").calculateFoodCost(from, to, sellerIds));
+    }
+
+    /**
+     * Dane wspólne dla raportu marży wszystkich punktów sprzedaży w danym miesiącu:
+     * food cost % kuchni i bufetu, koszty ogólne miesiąca i obrót wszystkich sprzedawców (do podziału kosztów).
+     */
+    record MonthlyMarginInputs(LocalDate from,
+                               LocalDate to,
+                               FoodCostSummary kitchenFoodCost,
+                               FoodCostSummary buffetFoodCost,
+                               BigDecimal kitchenFoodCostFraction,
+                               BigDecimal buffetFoodCostFraction,
+                               BigDecimal averageDailyCostsForAllPoints,
+                               BigDecimal totalMonthlyCosts,
+                               BigDecimal totalSalesAll) { }
+
+    /**
+     * Dane jednego punktu sprzedaży odczytane z bazy - reszta obliczeń nie wymaga już połączenia.
+     */
+    private record PointOfSaleMarginData(String pointOfSaleName,
+                                         Collection<Integer> sellerIds,
+                                         List<DzienPodzial> dailySales,
+                                         BigDecimal pointOfSaleSales,
+                                         long daysWithSales) { }
+
+    /**
+     * Podsumowanie dni ze sprzedażą liczone w jednym przebiegu po liście dni (sumy w MoneyAccumulator).
+     * Dni z zerową sprzedażą są pomijane. Przy remisie najlepszym/najgorszym dniem zostaje wcześniejszy
+     * (jak Stream.max/min).
+     */
+    private record MarginTotals(long profitDays,
+                                long lossDays,
+                                BigDecimal totalSales,
+                                BigDecimal totalCost,
+                                BigDecimal totalCosts,
+                                BigDecimal totalGrossMargin,
+                                BigDecimal totalNetMargin,
+                                BigDecimal averageDailyMargin,
+                                DailyGrossMarginDto bestDay,
+                                DailyGrossMarginDto worstDay) {
+
+        static MarginTotals of(List<DailyGrossMarginDto> dailyMargins) {
+            long days = 0;
+            long profitDays = 0;
+            var sales = new MoneyAccumulator();
+            var cost = new MoneyAccumulator();
+            var costs = new MoneyAccumulator();
+            var grossMargin = new MoneyAccumulator();
+            var netMargin = new MoneyAccumulator();
+            DailyGrossMarginDto best = null;
+            DailyGrossMarginDto worst = null;
+
+            for (DailyGrossMarginDto day : dailyMargins) {
+                if (day.totalSales().compareTo(BigDecimal.ZERO) <= 0) {
+                    continue;
+                }
+                days++;
+                if (day.isProfit()) {
+                    profitDays++;
+                }
+                sales.add(day.totalSales());
+                cost.add(day.totalCost());
+                costs.add(day.costs());
+                grossMargin.add(day.grossMargin());
+                netMargin.add(day.netMargin());
+                if (best == null || day.netMargin().compareTo(best.netMargin()) > 0) {
+                    best = day;
+                }
+                if (worst == null || day.netMargin().compareTo(worst.netMargin()) < 0) {
+                    worst = day;
+                }
+            }
+
+            BigDecimal totalNetMargin = netMargin.toBigDecimal();
+            BigDecimal averageDailyMargin = days == 0
+                    ? BigDecimal.ZERO
+                    : totalNetMargin.divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP);
+
+            return new MarginTotals(profitDays, days - profitDays,
+                    sales.toBigDecimal(), cost.toBigDecimal(), costs.toBigDecimal(),
+                    grossMargin.toBigDecimal(), totalNetMargin, averageDailyMargin, best, worst);
+        }
     }
 
     /**
@@ -420,6 +460,74 @@ public class FoodCostService {
                                                                         Collection<Integer> sellerIds,
                                                                         Collection<Integer> foodCostSellerIds,
                                                                         String pointOfSaleName) {
+        MonthlyMarginInputs inputs = loadMonthlyMarginInputs(year, month, foodCostSellerIds);
+        return buildDailyGrossMargin(inputs, loadPointOfSaleMarginData(inputs, sellerIds, pointOfSaleName));
+    }
+
+    /**
+     * Oblicza marżę brutto dzienną dla wszystkich punktów sprzedaży z PointOfSaleService w jednym wywołaniu.
+     * Dane wspólne (food cost %, koszty roczne, obrót wszystkich sprzedawców) liczone są raz.
+     * Każdy punkt (odczyt danych i pętla dzienna) liczony jest jako osobne zadanie na puli restaurant.snapshot.pool-size
+     * wątków, we własnej transakcji tylko do odczytu; wyniki scalane są w kolejności ID punktów.
+     * Zadania wykonują się równolegle tylko przy włączonej kopii analitycznej (restaurant.snapshot.enabled=true) -
+     * transakcje tylko do odczytu biorą wtedy połączenia z puli kopii. Bez kopii czekają na siebie na jedynym
+     * połączeniu Hikari (spring.datasource.hikari.maximum-pool-size=1).
+     * Metoda nie otwiera transakcji - trzymałaby połączenie, na które czekałyby zadania punktów.
+     *
+     * @return mapa: nazwa punktu sprzedaży -> podsumowanie miesiąca (w kolejności ID punktów)
+     */
+    public Map<String, DailyGrossMarginDto.MonthlySummary> calculateDailyGrossMarginForAllPointsOfSale(
+            int year, int month, Collection<Integer> foodCostSellerIds) {
+        FoodCostService proxy = self.getObject();
+        MonthlyMarginInputs inputs = proxy.loadSharedMarginInputs(year, month, foodCostSellerIds);
+
+        List<PointOfSale> points = pointOfSaleService.getAllPointsOfSale().stream()
+                .sorted(Comparator.comparing(PointOfSale::getId))
+                .toList();
+        List<CompletableFuture<DailyGrossMarginDto.MonthlySummary>> futures = points.stream()
+                .map(pos -> CompletableFuture.supplyAsync(
+                        () -> proxy.calculatePointOfSaleMargin(inputs, pos.getSellerIds(), pos.getNazwa()),
+                        marginExecutor))
+                .toList();
+
+        Map<String, DailyGrossMarginDto.MonthlySummary> summaries = new LinkedHashMap<>();
+        for (int i = 0; i < points.size(); i++) {
+            try {
+                summaries.put(points.get(i).getNazwa(), futures.get(i).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Dane wspólne raportu marży we własnej transakcji (wywoływane przez proxy).
+     */
+    @Transactional(readOnly = true)
+    MonthlyMarginInputs loadSharedMarginInputs(int year, int month, Collection<Integer> foodCostSellerIds) {
+        return loadMonthlyMarginInputs(year, month, foodCostSellerIds);
+    }
+
+    /**
+     * Marża jednego punktu sprzedaży we własnej transakcji (zadanie na marginExecutor, wywoływane przez proxy).
+     */
+    @Transactional(readOnly = true)
+    DailyGrossMarginDto.MonthlySummary calculatePointOfSaleMargin(MonthlyMarginInputs inputs,
+                                                                 Collection<Integer> sellerIds,
+                                                                 String pointOfSaleName) {
+        return buildDailyGrossMargin(inputs, loadPointOfSaleMarginData(inputs, sellerIds, pointOfSaleName));
+    }
+
+    @PreDestroy
+    public void shutdownMarginExecutor() {
+        marginExecutor.shutdownNow();
+    }
+
+    private MonthlyMarginInputs loadMonthlyMarginInputs(int year, int month, Collection<Integer> foodCostSellerIds) {
         LocalDate from = LocalDate.of(year, month, 1);
         LocalDate to = from.with(TemporalAdjusters.lastDayOfMonth());
 
@@ -432,41 +540,63 @@ public class FoodCostService {
         BigDecimal buffetFoodCostPercent = buffetFoodCost.foodCostPercent()
                 .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
 
-        // Pobierz dzienną sprzedaż - użyjmy publicznej metody analyzeDaily
-        // analyzeDaily przyjmuje pierwszy dzień miesiąca i sellerIds, zwraca listę dla całego miesiąca
-        List<DzienPodzial> dailySales = salesAnalysisService.analyzeDailySales(from, sellerIds);
-
-        // Cache dla kosztów kumulatywnych - klucz: rok, wartość: średnia dzienna kosztów
-        Map<Integer, BigDecimal> yearlyAverageCostsCache = new HashMap<>();
-        
         // Oblicz średnią dzienną kosztów dla wszystkich punktów (skumulowane koszty / wszystkie dni kalendarzowe)
-        BigDecimal averageDailyCostsForAllPoints = calculateAverageDailyCostsForYear(year, yearlyAverageCostsCache);
+        BigDecimal averageDailyCostsForAllPoints = calculateAverageDailyCostsForYear(year);
         
         // Koszty całkowite miesiąca = średnia dzienna × liczba dni w miesiącu
         long daysInMonth = ChronoUnit.DAYS.between(from, to.plusDays(1));
         BigDecimal totalMonthlyCosts = averageDailyCostsForAllPoints.multiply(BigDecimal.valueOf(daysInMonth))
                 .setScale(2, RoundingMode.HALF_UP);
-        
-        // Oblicz proporcje sprzedaży dla tego punktu sprzedaży za CAŁY MIESIĄC
-        BigDecimal monthlySalesShare = calculateMonthlySalesShareForPointOfSale(from, to, sellerIds);
-        
-        // Koszty miesiąca dla tego punktu = koszty całkowite miesiąca × udział w sprzedaży
-        BigDecimal pointOfSaleMonthlyCosts = totalMonthlyCosts.multiply(monthlySalesShare)
-                .setScale(2, RoundingMode.HALF_UP);
-        
+
+        // Całkowity obrót miesiąca dla wszystkich sprzedawców (mianownik udziału punktu w kosztach)
+        BigDecimal totalSalesAll = rachunekRepository.sumaRazemBySellers(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                configService.getAllSellers());
+
+        return new MonthlyMarginInputs(from, to, kitchenFoodCost, buffetFoodCost,
+                kitchenFoodCostPercent, buffetFoodCostPercent,
+                averageDailyCostsForAllPoints, totalMonthlyCosts, totalSalesAll);
+    }
+
+    private PointOfSaleMarginData loadPointOfSaleMarginData(MonthlyMarginInputs inputs,
+                                                            Collection<Integer> sellerIds,
+                                                            String pointOfSaleName) {
+        // Pobierz dzienną sprzedaż - analyzeDailySales przyjmuje pierwszy dzień miesiąca i zwraca listę dla całego miesiąca
+        List<DzienPodzial> dailySales = salesAnalysisService.analyzeDailySales(inputs.from(), sellerIds);
+
+        LocalDateTime monthStartDateTime = inputs.from().atStartOfDay();
+        LocalDateTime monthEndDateTime = inputs.to().plusDays(1).atStartOfDay();
+        BigDecimal pointOfSaleSales = rachunekRepository.sumaRazemBySellers(monthStartDateTime, monthEndDateTime, sellerIds);
+
         // Zlicz liczbę dni ze sprzedażą dla tego punktu w miesiącu
-        LocalDateTime monthStartDateTime = from.atStartOfDay();
-        LocalDateTime monthEndDateTime = to.plusDays(1).atStartOfDay();
         long daysWithSalesForPoint = rachunekRepository.countDaysWithSalesInDateRangeBySellers(
                 monthStartDateTime, monthEndDateTime, sellerIds);
+
+        return new PointOfSaleMarginData(pointOfSaleName, sellerIds, dailySales, pointOfSaleSales, daysWithSalesForPoint);
+    }
+
+    /**
+     * Liczy marżę dzienną i podsumowanie miesiąca punktu sprzedaży z wcześniej odczytanych danych (bez dostępu do bazy).
+     */
+    private DailyGrossMarginDto.MonthlySummary buildDailyGrossMargin(MonthlyMarginInputs inputs, PointOfSaleMarginData data) {
+        String pointOfSaleName = data.pointOfSaleName();
+        Collection<Integer> sellerIds = data.sellerIds();
+        List<DzienPodzial> dailySales = data.dailySales();
+
+        // Proporcja sprzedaży dla tego punktu sprzedaży za CAŁY MIESIĄC
+        BigDecimal monthlySalesShare = calculateMonthlySalesShare(inputs.totalSalesAll(), data.pointOfSaleSales());
+        
+        // Koszty miesiąca dla tego punktu = koszty całkowite miesiąca × udział w sprzedaży
+        BigDecimal pointOfSaleMonthlyCosts = inputs.totalMonthlyCosts().multiply(monthlySalesShare)
+                .setScale(2, RoundingMode.HALF_UP);
         
         // Koszty dzienne dla tego punktu = koszty miesiąca / liczba dni ze sprzedażą
+        long daysWithSalesForPoint = data.daysWithSales();
         BigDecimal pointOfSaleDailyCosts = (daysWithSalesForPoint == 0)
                 ? BigDecimal.ZERO
                 : pointOfSaleMonthlyCosts.divide(BigDecimal.valueOf(daysWithSalesForPoint), 2, RoundingMode.HALF_UP);
         
-        log.debug("Koszty dla punktu {} w miesiącu {}: średnia dzienna wszystkich punktów: {}, dni w miesiącu: {}, koszty całkowite miesiąca: {}, udział sprzedaży: {}, koszty miesiąca punktu: {}, dni ze sprzedażą punktu: {}, koszty dzienne punktu: {}",
-                pointOfSaleName, from, averageDailyCostsForAllPoints, daysInMonth, totalMonthlyCosts, monthlySalesShare, pointOfSaleMonthlyCosts, daysWithSalesForPoint, pointOfSaleDailyCosts);
+        log.debug("Koszty dla punktu {} w miesiącu {}: średnia dzienna wszystkich punktów: {}, koszty całkowite miesiąca: {}, udział sprzedaży: {}, koszty miesiąca punktu: {}, dni ze sprzedażą punktu: {}, koszty dzienne punktu: {}",
+                pointOfSaleName, inputs.from(), inputs.averageDailyCostsForAllPoints(), inputs.totalMonthlyCosts(), monthlySalesShare, pointOfSaleMonthlyCosts, daysWithSalesForPoint, pointOfSaleDailyCosts);
         
         List<DailyGrossMarginDto> dailyMargins = new ArrayList<>();
 
@@ -479,9 +609,9 @@ public class FoodCostService {
             BigDecimal totalSales = dzien.suma();
 
             // Oblicz koszty żywności (sprzedaż × food cost %)
-            BigDecimal kitchenCost = kitchenSales.multiply(kitchenFoodCostPercent)
+            BigDecimal kitchenCost = kitchenSales.multiply(inputs.kitchenFoodCostFraction())
                     .setScale(2, RoundingMode.HALF_UP);
-            BigDecimal buffetCost = buffetSales.multiply(buffetFoodCostPercent)
+            BigDecimal buffetCost = buffetSales.multiply(inputs.buffetFoodCostFraction())
                     .setScale(2, RoundingMode.HALF_UP);
             BigDecimal totalCost = kitchenCost.add(buffetCost);
 
@@ -516,66 +646,30 @@ public class FoodCostService {
         }
 
         // Podsumowanie - wyklucz dni z zerową sprzedażą
-        List<DailyGrossMarginDto> daysWithSales = dailyMargins.stream()
-                .filter(day -> day.totalSales().compareTo(BigDecimal.ZERO) > 0)
-                .collect(Collectors.toList());
-
-        long profitDays = daysWithSales.stream().filter(DailyGrossMarginDto::isProfit).count();
-        long lossDays = daysWithSales.size() - profitDays;
-
-        BigDecimal totalSales = daysWithSales.stream()
-                .map(DailyGrossMarginDto::totalSales)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCost = daysWithSales.stream()
-                .map(DailyGrossMarginDto::totalCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCosts = daysWithSales.stream()
-                .map(DailyGrossMarginDto::costs)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalGrossMargin = daysWithSales.stream()
-                .map(DailyGrossMarginDto::grossMargin)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalNetMargin = daysWithSales.stream()
-                .map(DailyGrossMarginDto::netMargin)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal averageDailyMargin = daysWithSales.isEmpty()
-                ? BigDecimal.ZERO
-                : totalNetMargin.divide(BigDecimal.valueOf(daysWithSales.size()), 2, RoundingMode.HALF_UP);
-
-        DailyGrossMarginDto bestDay = daysWithSales.stream()
-                .max(Comparator.comparing(DailyGrossMarginDto::netMargin))
-                .orElse(null);
-
-        DailyGrossMarginDto worstDay = daysWithSales.stream()
-                .min(Comparator.comparing(DailyGrossMarginDto::netMargin))
-                .orElse(null);
+        MarginTotals totals = MarginTotals.of(dailyMargins);
 
         log.debug("Marża brutto/netto dzienna {} {} | sprzedawcy {} | dni z zyskiem: {} | dni ze stratą: {} | marża brutto: {} | marża netto: {}",
-                pointOfSaleName, from, sellerIds, profitDays, lossDays, totalGrossMargin, totalNetMargin);
+                pointOfSaleName, inputs.from(), sellerIds, totals.profitDays(), totals.lossDays(),
+                totals.totalGrossMargin(), totals.totalNetMargin());
 
         return new DailyGrossMarginDto.MonthlySummary(
-                from,
-                to,
+                inputs.from(),
+                inputs.to(),
                 pointOfSaleName,
                 List.copyOf(sellerIds),
-                kitchenFoodCost.foodCostPercent(),
-                buffetFoodCost.foodCostPercent(),
+                inputs.kitchenFoodCost().foodCostPercent(),
+                inputs.buffetFoodCost().foodCostPercent(),
                 dailyMargins,
-                profitDays,
-                lossDays,
-                totalSales,
-                totalCost,
-                totalCosts,
-                totalGrossMargin,
-                totalNetMargin,
-                averageDailyMargin,
-                bestDay,
-                worstDay
+                totals.profitDays(),
+                totals.lossDays(),
+                totals.totalSales(),
+                totals.totalCost(),
+                totals.totalCosts(),
+                totals.totalGrossMargin(),
+                totals.totalNetMargin(),
+                totals.averageDailyMargin(),
+                totals.bestDay(),
+                totals.worstDay()
         );
     }
 
@@ -585,21 +679,22 @@ public class FoodCostService {
      * i dzieli przez liczbę dni ZE SPRZEDAŻĄ (nie wszystkie dni od początku roku).
      * Koszty są zawsze obliczane dla WSZYSTKICH sprzedawców (wspólny magazyn).
      */
-    private BigDecimal calculateAverageDailyCostsForYear(int year, Map<Integer, BigDecimal> yearlyAverageCostsCache) {
-        // Sprawdź cache
-        if (yearlyAverageCostsCache.containsKey(year)) {
-            return yearlyAverageCostsCache.get(year);
-        }
-        
+    private BigDecimal calculateAverageDailyCostsForYear(int year) {
+        // Wynik zależy od wszystkich sprzedawców i dokumentów całego roku - zapamiętujemy we współdzielonym cache
+        return foodCostCache.get("Koszty-srednia-dzienna", LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31),
+                configService.getAllSellers(), () -> computeAverageDailyCostsForYear(year));
+    }
+
+    private BigDecimal computeAverageDailyCostsForYear(int year) {
         // Zawsze używamy wszystkich sprzedawców (wspólny magazyn)
         Collection<Integer> allSellers = configService.getAllSellers();
         
         // Znajdź ostatni dzień ze sprzedażą w roku
-        java.sql.Date lastSalesDateSql = rachunekRepository.findLastSalesDateInYear(year);
+        java.sql.Date lastSalesDateSql = rachunekRepository.findLastSalesDateInDateRange(
+                LocalDate.of(year, 1, 1).atStartOfDay(), LocalDate.of(year + 1, 1, 1).atStartOfDay());
         
         if (lastSalesDateSql == null) {
             // Brak sprzedaży w roku - zwróć zero
-            yearlyAverageCostsCache.put(year, BigDecimal.ZERO);
             return BigDecimal.ZERO;
         }
         
@@ -618,9 +713,6 @@ public class FoodCostService {
                 ? BigDecimal.ZERO
                 : totalCosts.divide(BigDecimal.valueOf(totalCalendarDays), 2, RoundingMode.HALF_UP);
         
-        // Zapisz w cache
-        yearlyAverageCostsCache.put(year, averageDailyCosts);
-        
         log.debug("Średnia dzienna kosztów dla roku {}: ostatni dzień ze sprzedażą: {}, wszystkie dni kalendarzowe: {}, koszty: {}, średnia: {}",
                 year, lastSalesDate, totalCalendarDays, totalCosts, averageDailyCosts);
         
@@ -633,7 +725,8 @@ public class FoodCostService {
      */
     @Transactional(readOnly = true)
     public LocalDate getLastSalesDateInYear(int year) {
-        java.sql.Date lastSalesDateSql = rachunekRepository.findLastSalesDateInYear(year);
+        java.sql.Date lastSalesDateSql = rachunekRepository.findLastSalesDateInDateRange(
+                LocalDate.of(year, 1, 1).atStartOfDay(), LocalDate.of(year + 1, 1, 1).atStartOfDay());
         return lastSalesDateSql != null ? lastSalesDateSql.toLocalDate() : null;
     }
     
@@ -694,44 +787,7 @@ public class FoodCostService {
                 .collect(Collectors.toList());
         
         // Oblicz podsumowanie
-        List<DailyGrossMarginDto> daysWithSales = sortedDailyMargins.stream()
-                .filter(day -> day.totalSales().compareTo(BigDecimal.ZERO) > 0)
-                .collect(Collectors.toList());
-        
-        long profitDays = daysWithSales.stream().filter(DailyGrossMarginDto::isProfit).count();
-        long lossDays = daysWithSales.size() - profitDays;
-        
-        BigDecimal totalSales = daysWithSales.stream()
-                .map(DailyGrossMarginDto::totalSales)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalCost = daysWithSales.stream()
-                .map(DailyGrossMarginDto::totalCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalCosts = daysWithSales.stream()
-                .map(DailyGrossMarginDto::costs)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalGrossMargin = daysWithSales.stream()
-                .map(DailyGrossMarginDto::grossMargin)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalNetMargin = daysWithSales.stream()
-                .map(DailyGrossMarginDto::netMargin)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal averageDailyMargin = daysWithSales.isEmpty()
-                ? BigDecimal.ZERO
-                : totalNetMargin.divide(BigDecimal.valueOf(daysWithSales.size()), 2, RoundingMode.HALF_UP);
-        
-        DailyGrossMarginDto bestDay = daysWithSales.stream()
-                .max(Comparator.comparing(DailyGrossMarginDto::netMargin))
-                .orElse(null);
-        
-        DailyGrossMarginDto worstDay = daysWithSales.stream()
-                .min(Comparator.comparing(DailyGrossMarginDto::netMargin))
-                .orElse(null);
+        MarginTotals totals = MarginTotals.of(sortedDailyMargins);
         
         // Użyj food cost % z pierwszego raportu (powinny być takie same)
         return new DailyGrossMarginDto.MonthlySummary(
@@ -742,16 +798,16 @@ public class FoodCostService {
                 summary1.kitchenFoodCostPercent(),
                 summary1.buffetFoodCostPercent(),
                 sortedDailyMargins,
-                profitDays,
-                lossDays,
-                totalSales,
-                totalCost,
-                totalCosts,
-                totalGrossMargin,
-                totalNetMargin,
-                averageDailyMargin,
-                bestDay,
-                worstDay
+                totals.profitDays(),
+                totals.lossDays(),
+                totals.totalSales(),
+                totals.totalCost(),
+                totals.totalCosts(),
+                totals.totalGrossMargin(),
+                totals.totalNetMargin(),
+                totals.averageDailyMargin(),
+                totals.bestDay(),
+                totals.worstDay()
         );
     }
     
@@ -761,30 +817,14 @@ public class FoodCostService {
      * Jeśli całkowity obrót = 0, zwraca 0.
      * Ta proporcja jest używana do podziału kosztów między punktami sprzedaży.
      */
-    private BigDecimal calculateMonthlySalesShareForPointOfSale(LocalDate monthStart, LocalDate monthEnd,
-                                                                 Collection<Integer> pointOfSaleSellerIds) {
-        // Oblicz całkowity obrót miesiąca dla wszystkich sprzedawców
-        LocalDateTime monthStartDateTime = monthStart.atStartOfDay();
-        LocalDateTime monthEndDateTime = monthEnd.plusDays(1).atStartOfDay();
-        BigDecimal totalSalesAll = rachunekRepository.sumaRazemBySellers(monthStartDateTime, monthEndDateTime, 
-                configService.getAllSellers());
-        
-        // Oblicz obrót miesiąca dla tego punktu sprzedaży
-        BigDecimal pointOfSaleSales = rachunekRepository.sumaRazemBySellers(monthStartDateTime, monthEndDateTime, 
-                pointOfSaleSellerIds);
-        
+    private static BigDecimal calculateMonthlySalesShare(BigDecimal totalSalesAll, BigDecimal pointOfSaleSales) {
         // Jeśli brak obrotów lub obrót punktu = 0, zwróć 0
         if (totalSalesAll.signum() == 0 || pointOfSaleSales.signum() == 0) {
             return BigDecimal.ZERO;
         }
         
         // Udział = obrót punktu / całkowity obrót miesiąca
-        BigDecimal share = pointOfSaleSales.divide(totalSalesAll, 4, RoundingMode.HALF_UP);
-        
-        log.debug("Udział sprzedaży punktu {} w miesiącu {}: obrót punktu: {}, obrót całkowity: {}, udział: {}",
-                pointOfSaleSellerIds, monthStart, pointOfSaleSales, totalSalesAll, share);
-        
-        return share;
+        return pointOfSaleSales.divide(totalSalesAll, 4, RoundingMode.HALF_UP);
     }
 }
 
@@ -1,6 +1,7 @@
 package pl.kurs.sogaapplication.service.analysis;
 
 import org.springframework.stereotype.Component;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
 import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
 
@@ -17,12 +18,15 @@ import java.util.List;
 public class KitchenFoodCostCalculator extends AbstractWarehouseFoodCostCalculator {
     
     private final RachunekJpaRepository rachunekRepository;
+    private final SalesRollupService salesRollupService;
     
     public KitchenFoodCostCalculator(org.springframework.beans.factory.ObjectProvider<FoodCostService> foodCostServiceProvider,
                                     RestaurantConfigService configService,
-                                    RachunekJpaRepository rachunekRepository) {
+                                    RachunekJpaRepository rachunekRepository,
+                                    SalesRollupService salesRollupService) {
         super(foodCostServiceProvider, configService);
         this.rachunekRepository = rachunekRepository;
+        this.salesRollupService = salesRollupService;
     }
     
     @Override
@@ -42,15 +46,27 @@ public class KitchenFoodCostCalculator extends AbstractWarehouseFoodCostCalculat
             throw new IllegalStateException("Brak skonfigurowanych produktów kuchni (restaurant.kitchen.products)");
         }
         
-        LocalDateTime fromDateTime = from.atStartOfDay();
+        // Dni zamknięte z rollupu, reszta okresu z Firebirda
+        BigDecimal rollupSales = BigDecimal.ZERO;
+        LocalDate firebirdFrom = from;
+        LocalDate lastCovered = salesRollupService.lastCoveredDay(from, to);
+        if (lastCovered != null) {
+            rollupSales = salesRollupService.categorySums(from, lastCovered, sellerIds).kitchen();
+            if (!lastCovered.isBefore(to)) {
+                return rollupSales;
+            }
+            firebirdFrom = lastCovered.plusDays(1);
+        }
+        
+        LocalDateTime fromDateTime = firebirdFrom.atStartOfDay();
         LocalDateTime toDateTime = to.plusDays(1).atStartOfDay();
         
-        return rachunekRepository.sumaKuchniaBySellers(
+        return rollupSales.add(rachunekRepository.sumaKategoriiBySellers(
                 fromDateTime,
                 toDateTime,
-                kitchenProducts,
+                ProductCategory.KITCHEN.getCode(),
                 sellerIds
-        );
+        ));
     }
     
     @Override
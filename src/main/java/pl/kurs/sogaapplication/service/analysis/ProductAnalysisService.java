@@ -0,0 +1,285 @@
+package pl.kurs.sogaapplication.service.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.kurs.sogaapplication.dto.ProductSalesDto;
+import pl.kurs.sogaapplication.dto.TopProductsReport;
+import pl.kurs.sogaapplication.models.business.PointOfSale;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
+import pl.kurs.sogaapplication.service.config.PointOfSaleService;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Analiza najlepiej sprzedających się produktów (KIERUNEK_ROZWOJU.md, 1.1) - odpowiednik ręcznego
+ * zapytania "top produkty" z analiza_danych.sql, ale per punkt sprzedaży i kategoria.
+ *
+ * Dane czytane są jednym zapytaniem JDBC (SalesJdbcRepository.forEachProductSalePerBill - towar zsumowany
+ * per rachunek, wiersze trafiają wprost do tabel bez listy pośredniej),
+ * a agregacja odbywa się w jednym przebiegu:
+ * - każda para (punkt sprzedaży, kategoria) ma własną tabelę towarów z kluczem long (ID_TW)
+ *   i kolumnami prymitywnymi (grosze, tysięczne części ilości, liczba rachunków),
+ * - top N wybierany jest kopcem ograniczonym do N elementów.
+ * Pamięć zależy od liczby różnych towarów, nie od długości okresu.
+ */
+@Service
+public class ProductAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductAnalysisService.class);
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final int QUANTITY_SCALE = 3;
+    private static final long NO_TOWAR = Long.MIN_VALUE;
+
+    private final SalesJdbcRepository salesJdbcRepository;
+    private final RestaurantConfigService configService;
+    private final PointOfSaleService pointOfSaleService;
+
+    public ProductAnalysisService(SalesJdbcRepository salesJdbcRepository,
+                                  RestaurantConfigService configService,
+                                  PointOfSaleService pointOfSaleService) {
+        this.salesJdbcRepository = salesJdbcRepository;
+        this.configService = configService;
+        this.pointOfSaleService = pointOfSaleService;
+    }
+
+    /**
+     * Top N produktów po przychodzie netto, ilości i liczbie rachunków dla każdego punktu sprzedaży
+     * i kategorii w okresie [from, to] (włącznie). Sekcje bez sprzedaży są pomijane.
+     */
+    @Transactional(readOnly = true)
+    public TopProductsReport getTopProducts(LocalDate from, LocalDate to, int limit) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Data końcowa " + to + " jest przed początkową " + from);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Liczba produktów w rankingu musi być dodatnia: " + limit);
+        }
+
+        long start = System.nanoTime();
+        List<PointOfSale> points = new ArrayList<>(pointOfSaleService.getAllPointsOfSale());
+        points.sort(Comparator.comparing(PointOfSale::getId));
+
+        // Indeks punktu sprzedaży po ID sprzedawcy (ID_UZ to małe liczby)
+        Set<Integer> sellerIds = new LinkedHashSet<>();
+        int maxSellerId = -1;
+        for (PointOfSale point : points) {
+            for (Integer sellerId : point.getSellerIds()) {
+                sellerIds.add(sellerId);
+                maxSellerId = Math.max(maxSellerId, sellerId);
+            }
+        }
+        if (sellerIds.isEmpty()) {
+            return new TopProductsReport(from, to, limit, List.of());
+        }
+        int[] pointBySeller = new int[maxSellerId + 1];
+        Arrays.fill(pointBySeller, -1);
+        for (int p = 0; p < points.size(); p++) {
+            for (Integer sellerId : points.get(p).getSellerIds()) {
+                if (pointBySeller[sellerId] < 0) {
+                    pointBySeller[sellerId] = p;
+                }
+            }
+        }
+
+        ProductTable[][] tables = new ProductTable[points.size()][CATEGORIES.length];
+        var classifier = configService.getProductClassifier();
+
+        long rows = salesJdbcRepository.forEachProductSalePerBill(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), sellerIds,
+                (sellerId, towarId, towarNazwa, towarGrupa, ilosc, wartoscNetto) -> {
+                    int pointIndex = sellerId >= 0 && sellerId < pointBySeller.length ? pointBySeller[sellerId] : -1;
+                    if (pointIndex < 0) {
+                        return;
+                    }
+                    ProductCategory category = classifier.classify(towarId, towarGrupa);
+
+                    ProductTable table = tables[pointIndex][category.ordinal()];
+                    if (table == null) {
+                        table = new ProductTable();
+                        tables[pointIndex][category.ordinal()] = table;
+                    }
+                    table.add(towarId != null ? towarId : NO_TOWAR, towarNazwa, towarGrupa,
+                            toUnscaled(ilosc, QUANTITY_SCALE), toUnscaled(wartoscNetto, 2));
+                });
+
+        List<TopProductsReport.Section> sections = new ArrayList<>();
+        for (int p = 0; p < points.size(); p++) {
+            PointOfSale point = points.get(p);
+            for (ProductCategory category : CATEGORIES) {
+                ProductTable table = tables[p][category.ordinal()];
+                if (table == null) {
+                    continue;
+                }
+                sections.add(new TopProductsReport.Section(
+                        point.getId(),
+                        point.getNazwa(),
+                        category,
+                        table.size(),
+                        BigDecimal.valueOf(table.totalRevenueCents(), 2),
+                        table.top(limit, slot -> table.revenueCents[slot]),
+                        table.top(limit, slot -> table.quantities[slot]),
+                        table.top(limit, slot -> table.billCounts[slot])));
+            }
+        }
+
+        logger.info("Ranking produktów {} - {}: {} wierszy, {} sekcji, {} ms",
+                from, to, rows, sections.size(), (System.nanoTime() - start) / 1_000_000);
+        return new TopProductsReport(from, to, limit, sections);
+    }
+
+    private static long toUnscaled(BigDecimal amount, int scale) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Tabela towarów jednej sekcji: mapa z otwartym adresowaniem ID_TW -> slot oraz kolumny per slot.
+     * Wiersz zapytania to jeden towar na jednym rachunku, więc każde dodanie to +1 rachunek.
+     */
+    private static final class ProductTable {
+
+        private static final int EMPTY = -1;
+
+        private long[] keys = new long[64];
+        private int[] index = new int[64];
+        private int size;
+
+        private long[] towarIds = new long[32];
+        private String[] names = new String[32];
+        private Integer[] groups = new Integer[32];
+        private long[] revenueCents = new long[32];
+        private long[] quantities = new long[32];
+        private long[] billCounts = new long[32];
+
+        ProductTable() {
+            Arrays.fill(index, EMPTY);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(long towarId, String name, Integer group, long quantity, long cents) {
+            int slot = slotFor(towarId, name, group);
+            revenueCents[slot] = Math.addExact(revenueCents[slot], cents);
+            quantities[slot] = Math.addExact(quantities[slot], quantity);
+            billCounts[slot]++;
+        }
+
+        long totalRevenueCents() {
+            long total = 0;
+            for (int slot = 0; slot < size; slot++) {
+                total = Math.addExact(total, revenueCents[slot]);
+            }
+            return total;
+        }
+
+        /**
+         * Top N slotów według miary - kopiec minimalny ograniczony do N (przy remisie wygrywa niższe ID_TW).
+         */
+        List<ProductSalesDto> top(int limit, IntToLongFunction measure) {
+            Comparator<Integer> ascending = Comparator
+                    .<Integer>comparingLong(measure::applyAsLong)
+                    .thenComparing(Comparator.<Integer>comparingLong(slot -> towarIds[slot]).reversed());
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, size) + 1, ascending);
+            for (int slot = 0; slot < size; slot++) {
+                if (heap.size() < limit) {
+                    heap.add(slot);
+                } else if (ascending.compare(slot, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(slot);
+                }
+            }
+
+            ProductSalesDto[] result = new ProductSalesDto[heap.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = toDto(heap.poll());
+            }
+            return List.of(result);
+        }
+
+        private ProductSalesDto toDto(int slot) {
+            return new ProductSalesDto(
+                    towarIds[slot] == NO_TOWAR ? null : towarIds[slot],
+                    names[slot],
+                    groups[slot],
+                    billCounts[slot],
+                    BigDecimal.valueOf(quantities[slot], QUANTITY_SCALE),
+                    BigDecimal.valueOf(revenueCents[slot], 2));
+        }
+
+        private int slotFor(long towarId, String name, Integer group) {
+            int mask = keys.length - 1;
+            int pos = mix(towarId) & mask;
+            while (index[pos] != EMPTY) {
+                if (keys[pos] == towarId) {
+                    return index[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+
+            if (size == towarIds.length) {
+                growColumns();
+            }
+            int slot = size++;
+            keys[pos] = towarId;
+            index[pos] = slot;
+            towarIds[slot] = towarId;
+            names[slot] = name;
+            groups[slot] = group;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return slot;
+        }
+
+        private void growColumns() {
+            int capacity = towarIds.length * 2;
+            towarIds = Arrays.copyOf(towarIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            groups = Arrays.copyOf(groups, capacity);
+            revenueCents = Arrays.copyOf(revenueCents, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            billCounts = Arrays.copyOf(billCounts, capacity);
+        }
+
+        private void rehash() {
+            long[] newKeys = new long[keys.length * 2];
+            int[] newIndex = new int[keys.length * 2];
+            Arrays.fill(newIndex, EMPTY);
+            int mask = newKeys.length - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int pos = mix(towarIds[slot]) & mask;
+                while (newIndex[pos] != EMPTY) {
+                    pos = (pos + 1) & mask;
+                }
+                newKeys[pos] = towarIds[slot];
+                newIndex[pos] = slot;
+            }
+            keys = newKeys;
+            index = newIndex;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -8,7 +8,10 @@ import pl.kurs.sogaapplication.dto.RestaurantReportDto;
 import pl.kurs.sogaapplication.dto.SalesItemDetailDto;
 import pl.kurs.sogaapplication.models.DzienPodzial;
 import pl.kurs.sogaapplication.models.SprzedazKuchniaBufetOkres;
+import pl.kurs.sogaapplication.models.business.MoneyAccumulator;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
 import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
 import pl.kurs.sogaapplication.service.config.PointOfSaleService;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
 import pl.kurs.sogaapplication.service.validation.BillValidationService;
@@ -29,18 +32,24 @@ public class SalesAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(SalesAnalysisService.class);
     
     private final RachunekJpaRepository rachunekRepository;
+    private final SalesJdbcRepository salesJdbcRepository;
     private final RestaurantConfigService configService;
     private final PointOfSaleService pointOfSaleService;
     private final BillValidationService billValidationService;
+    private final SalesRollupService salesRollupService;
     
     public SalesAnalysisService(RachunekJpaRepository rachunekRepository, 
+                               SalesJdbcRepository salesJdbcRepository,
                                RestaurantConfigService configService,
                                PointOfSaleService pointOfSaleService,
-                               BillValidationService billValidationService) {
+                               BillValidationService billValidationService,
+                               SalesRollupService salesRollupService) {
         this.rachunekRepository = rachunekRepository;
+        this.salesJdbcRepository = salesJdbcRepository;
         this.configService = configService;
         this.pointOfSaleService = pointOfSaleService;
         this.billValidationService = billValidationService;
+        this.salesRollupService = salesRollupService;
     }
     
     /**
@@ -59,28 +68,28 @@ public class SalesAnalysisService {
         logger.info("Generowanie raportu sprzedaży od {} do {} dla sprzedawców: {}", 
                 from, to, sellerIds);
         
-        var kitchenProducts = configService.getKitchenProducts();
-        
-        // Analiza dzienna dla pełnego zakresu dat [from, to]
-        // Używamy tylko getDailySalesDetails, żeby zapewnić spójność
-        List<DzienPodzial> dailyResults = analyzeDailySalesForRange(from, to, sellerIds, kitchenProducts);
+        // Analiza dzienna dla pełnego zakresu dat [from, to] - dni z rollupu, pozostałe strumieniowo z Firebirda
+        // (SalesJdbcRepository), z tym samym klasyfikatorem kategorii co raport dzienny
+        List<DzienPodzial> dailyResults = analyzeDailySalesForRange(from, to, sellerIds);
         
         // Oblicz sumy całkowite z danych dziennych (używamy tej samej metody co raport dzienny)
-        java.math.BigDecimal totalKitchen = dailyResults.stream()
-                .map(DzienPodzial::kuchnia)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        java.math.BigDecimal totalBuffet = dailyResults.stream()
-                .map(DzienPodzial::bufet)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        java.math.BigDecimal totalPackaging = dailyResults.stream()
-                .map(DzienPodzial::opakowania)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        java.math.BigDecimal totalDelivery = dailyResults.stream()
-                .map(DzienPodzial::dowoz)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        java.math.BigDecimal totalSales = dailyResults.stream()
-                .map(DzienPodzial::suma)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+        var kitchenSum = new MoneyAccumulator();
+        var buffetSum = new MoneyAccumulator();
+        var packagingSum = new MoneyAccumulator();
+        var deliverySum = new MoneyAccumulator();
+        var salesSum = new MoneyAccumulator();
+        for (DzienPodzial day : dailyResults) {
+            kitchenSum.add(day.kuchnia());
+            buffetSum.add(day.bufet());
+            packagingSum.add(day.opakowania());
+            deliverySum.add(day.dowoz());
+            salesSum.add(day.suma());
+        }
+        java.math.BigDecimal totalKitchen = kitchenSum.toBigDecimal();
+        java.math.BigDecimal totalBuffet = buffetSum.toBigDecimal();
+        java.math.BigDecimal totalPackaging = packagingSum.toBigDecimal();
+        java.math.BigDecimal totalDelivery = deliverySum.toBigDecimal();
+        java.math.BigDecimal totalSales = salesSum.toBigDecimal();
         
         RestaurantReportDto.KitchenBuffetSales kitchenBuffetSales =
                 new RestaurantReportDto.KitchenBuffetSales(
@@ -117,25 +126,21 @@ public class SalesAnalysisService {
     /**
      * Analizuje sprzedaż kuchnia vs bufet dla danego okresu.
      * Bufet jest liczony explicite (produkty bufetowe + grupy bufetowe), reszta to kuchnia.
+     * Kategorie towarów pochodzą z bieżącej konfiguracji (tabela PRODUCT_CATEGORY).
      */
     @Transactional(readOnly = true)
-    public SprzedazKuchniaBufetOkres analyzeKitchenBuffetSales(LocalDateTime from, LocalDateTime to,
-                                                               Collection<Long> kitchenProductIds,
-                                                               Collection<Long> packagingProductIds,
-                                                               Collection<Long> deliveryProductIds) {
+    public SprzedazKuchniaBufetOkres analyzeKitchenBuffetSales(LocalDateTime from, LocalDateTime to) {
         logger.debug("Analiza sprzedaży kuchnia vs bufet od {} do {}", from, to);
         
         var totalSales = rachunekRepository.sumaRazem(from, to);
-        var packagingSales = sumByProducts(from, to, packagingProductIds);
-        var deliverySales = sumByProducts(from, to, deliveryProductIds);
+        var packagingSales = rachunekRepository.sumaKategorii(from, to, ProductCategory.PACKAGING.getCode());
+        var deliverySales = rachunekRepository.sumaKategorii(from, to, ProductCategory.DELIVERY.getCode());
         
         // Oblicz bufet explicite (produkty bufetowe + grupy bufetowe)
-        var buffetProducts = configService.getBuffetProducts();
         var buffetGroups = configService.getBuffetGroups();
         
-        java.math.BigDecimal buffetSalesByProducts = (buffetProducts == null || buffetProducts.isEmpty())
-                ? java.math.BigDecimal.ZERO
-                : sumByProducts(from, to, buffetProducts);
+        java.math.BigDecimal buffetSalesByProducts =
+                rachunekRepository.sumaKategorii(from, to, ProductCategory.BUFFET.getCode());
         
         java.math.BigDecimal buffetSalesByGroups = (buffetGroups == null || buffetGroups.isEmpty())
                 ? java.math.BigDecimal.ZERO
@@ -159,7 +164,7 @@ public class SalesAnalysisService {
      */
     @Transactional(readOnly = true)
     public List<DzienPodzial> analyzeDailySales(LocalDate firstDayOfMonth, Collection<Integer> sellerIds) {
-        return analyzeDailySalesForMonth(firstDayOfMonth, sellerIds, configService.getKitchenProducts());
+        return analyzeDailySalesForMonth(firstDayOfMonth, sellerIds);
     }
     
     /**
@@ -168,36 +173,71 @@ public class SalesAnalysisService {
      */
     @Transactional(readOnly = true)
     private List<DzienPodzial> analyzeDailySalesForMonth(LocalDate firstDayOfMonth,
-                                                        Collection<Integer> sellerIds,
-                                                        Collection<Long> kitchenProductIds) {
+                                                        Collection<Integer> sellerIds) {
         logger.debug("Analiza sprzedaży dziennej dla miesiąca {} dla sprzedawców: {}", 
                 firstDayOfMonth, sellerIds);
         
         var lastDay = firstDayOfMonth.with(java.time.temporal.TemporalAdjusters.lastDayOfMonth());
         var results = new java.util.ArrayList<DzienPodzial>();
-        
-        var packagingProducts = configService.getPackagingProducts();
-        var deliveryProducts = configService.getDeliveryProducts();
 
-        for (var date = firstDayOfMonth; !date.isAfter(lastDay); date = date.plusDays(1)) {
-            var from = date.atStartOfDay();
-            var to = date.plusDays(1).atStartOfDay();
-            
-            var totalSales = rachunekRepository.sumaRazemBySellers(from, to, sellerIds);
-            var kitchenSales = (kitchenProductIds == null || kitchenProductIds.isEmpty())
-                    ? java.math.BigDecimal.ZERO
-                    : rachunekRepository.sumaKuchniaBySellers(from, to, kitchenProductIds, sellerIds);
-            var packagingSales = (packagingProducts == null || packagingProducts.isEmpty())
-                    ? java.math.BigDecimal.ZERO
-                    : rachunekRepository.sumaKuchniaBySellers(from, to, packagingProducts, sellerIds);
-            var deliverySales = (deliveryProducts == null || deliveryProducts.isEmpty())
-                    ? java.math.BigDecimal.ZERO
-                    : rachunekRepository.sumaKuchniaBySellers(from, to, deliveryProducts, sellerIds);
+        // Dni zamknięte bierzemy z rollupu, pozostałe (np. bieżący dzień) z Firebirda
+        var lastCovered = salesRollupService.lastCoveredDay(firstDayOfMonth, lastDay);
+        var firebirdFrom = firstDayOfMonth;
+        if (lastCovered != null) {
+            var totals = salesRollupService.dailyBillTotals(firstDayOfMonth, lastCovered, sellerIds);
+            var categories = salesRollupService.dailyCategorySums(firstDayOfMonth, lastCovered, sellerIds);
+            for (var date = firstDayOfMonth; !date.isAfter(lastCovered); date = date.plusDays(1)) {
+                var totalSales = totals.getOrDefault(date, java.math.BigDecimal.ZERO);
+                var sums = categories.getOrDefault(date, SalesRollupService.DzienKategorie.EMPTY);
+                var buffetSales = totalSales
+                        .subtract(sums.kitchen())
+                        .subtract(sums.packaging())
+                        .subtract(sums.delivery());
+                results.add(new DzienPodzial(date, sums.kitchen(), buffetSales, sums.packaging(), sums.delivery(), totalSales));
+            }
+            firebirdFrom = lastCovered.plusDays(1);
+        }
+        if (firebirdFrom.isAfter(lastDay)) {
+            return results;
+        }
+
+        var from = firebirdFrom.atStartOfDay();
+        var to = lastDay.plusDays(1).atStartOfDay();
+
+        var totals = new java.util.HashMap<LocalDate, java.math.BigDecimal>();
+        for (Object[] row : rachunekRepository.sumaRazemByDayBySellers(from, to, sellerIds)) {
+            totals.put(toLocalDate(row[0]), (java.math.BigDecimal) row[1]);
+        }
+
+        // [kitchen, packaging, delivery] per dzień - jedno zapytanie GROUP BY dzień, kategoria
+        var categories = new java.util.HashMap<LocalDate, java.math.BigDecimal[]>();
+        var rows = rachunekRepository.sumaKategorieByDayBySellers(from, to, sellerIds);
+        for (Object[] row : rows) {
+            int idx = switch (((String) row[1]).trim()) {
+                case "kitchen" -> 0;
+                case "packaging" -> 1;
+                case "delivery" -> 2;
+                default -> -1;
+            };
+            if (idx < 0) {
+                continue;
+            }
+            categories.computeIfAbsent(toLocalDate(row[0]), d -> new java.math.BigDecimal[] {
+                    java.math.BigDecimal.ZERO, java.math.BigDecimal.ZERO, java.math.BigDecimal.ZERO
+            })[idx] = (java.math.BigDecimal) row[2];
+        }
+
+        for (var date = firebirdFrom; !date.isAfter(lastDay); date = date.plusDays(1)) {
+            var totalSales = totals.getOrDefault(date, java.math.BigDecimal.ZERO);
+            var sums = categories.get(date);
+            var kitchenSales = sums != null ? sums[0] : java.math.BigDecimal.ZERO;
+            var packagingSales = sums != null ? sums[1] : java.math.BigDecimal.ZERO;
+            var deliverySales = sums != null ? sums[2] : java.math.BigDecimal.ZERO;
             var buffetSales = totalSales
                     .subtract(kitchenSales)
                     .subtract(packagingSales)
                     .subtract(deliverySales);
-            
+
             results.add(new DzienPodzial(date, kitchenSales, buffetSales, packagingSales, deliverySales, totalSales));
         }
         
@@ -206,50 +246,82 @@ public class SalesAnalysisService {
 
     /**
      * Analiza dzienna dla dowolnego zakresu dat [from, to] włącznie.
-     * Używa tej samej logiki kategoryzacji co getDailySalesDetails, żeby zapewnić spójność.
+     * Dni obecne w rollupie (SalesRollupService) są czytane z niego, pozostałe z Firebirda.
      */
     @Transactional(readOnly = true)
     private List<DzienPodzial> analyzeDailySalesForRange(LocalDate fromDate,
                                                          LocalDate toDate,
-                                                         Collection<Integer> sellerIds,
-                                                         Collection<Long> kitchenProductIds) {
+                                                         Collection<Integer> sellerIds) {
+        var lastCovered = salesRollupService.lastCoveredDay(fromDate, toDate);
+        if (lastCovered == null) {
+            return analyzeDailySalesForRangeFromDatabase(fromDate, toDate, sellerIds);
+        }
+
+        var results = new java.util.ArrayList<DzienPodzial>();
+        var categories = salesRollupService.dailyCategorySums(fromDate, lastCovered, sellerIds);
+        for (var date = fromDate; !date.isAfter(lastCovered); date = date.plusDays(1)) {
+            var sums = categories.getOrDefault(date, SalesRollupService.DzienKategorie.EMPTY);
+            results.add(new DzienPodzial(date, sums.kitchen(), sums.buffet(), sums.packaging(), sums.delivery(), sums.total()));
+        }
+        if (lastCovered.isBefore(toDate)) {
+            results.addAll(analyzeDailySalesForRangeFromDatabase(lastCovered.plusDays(1), toDate, sellerIds));
+        }
+        return results;
+    }
+
+    /**
+     * Analiza dzienna zakresu [from, to] bezpośrednio z Firebirda.
+     * Pobiera pozycje z całego zakresu jednym strumieniowym zapytaniem i rozkłada je na dni i kategorie w pamięci.
+     * Używa tej samej logiki kategoryzacji co getDailySalesDetails, żeby zapewnić spójność.
+     */
+    private List<DzienPodzial> analyzeDailySalesForRangeFromDatabase(LocalDate fromDate,
+                                                                    LocalDate toDate,
+                                                                    Collection<Integer> sellerIds) {
         logger.debug("Analiza sprzedaży dziennej dla zakresu {} - {} dla sprzedawców: {}",
                 fromDate, toDate, sellerIds);
 
-        var results = new java.util.ArrayList<DzienPodzial>();
+        int days = (int) java.time.temporal.ChronoUnit.DAYS.between(fromDate, toDate) + 1;
+        if (days <= 0) {
+            return List.of();
+        }
 
-        for (var date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
-            // Użyj tej samej metody co szczegóły, żeby zapewnić spójność
-            var details = getDailySalesDetails(date, sellerIds, "");
-            
-            // Oblicz sumy z kategoryzowanych pozycji
-            java.math.BigDecimal kitchenSales = details.stream()
-                    .filter(item -> "kitchen".equals(item.category()))
-                    .map(SalesItemDetailDto::wartoscNetto)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            
-            java.math.BigDecimal buffetSales = details.stream()
-                    .filter(item -> "buffet".equals(item.category()))
-                    .map(SalesItemDetailDto::wartoscNetto)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            
-            java.math.BigDecimal packagingSales = details.stream()
-                    .filter(item -> "packaging".equals(item.category()))
-                    .map(SalesItemDetailDto::wartoscNetto)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            
-            java.math.BigDecimal deliverySales = details.stream()
-                    .filter(item -> "delivery".equals(item.category()))
-                    .map(SalesItemDetailDto::wartoscNetto)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            
-            java.math.BigDecimal totalSales = details.stream()
-                    .map(SalesItemDetailDto::wartoscNetto)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+        var classifier = configService.getProductClassifier();
 
-            results.add(new DzienPodzial(date, kitchenSales, buffetSales, packagingSales, deliverySales, totalSales));
+        // Sumy per dzień: [kuchnia, bufet, opakowania, dowóz, razem]
+        MoneyAccumulator[][] sums = new MoneyAccumulator[days][5];
+        for (MoneyAccumulator[] daySums : sums) {
+            java.util.Arrays.setAll(daySums, i -> new MoneyAccumulator());
         }
 
+        long rows = salesJdbcRepository.forEachDailyItemValue(
+                fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), sellerIds,
+                (day, towarId, towarGrupa, wartoscNetto) -> {
+                    if (wartoscNetto == null) {
+                        return;
+                    }
+                    MoneyAccumulator[] daySums = sums[(int) java.time.temporal.ChronoUnit.DAYS.between(fromDate, day)];
+                    int categoryIndex = switch (classifier.classify(towarId, towarGrupa)) {
+                        case KITCHEN -> 0;
+                        case BUFFET -> 1;
+                        case PACKAGING -> 2;
+                        case DELIVERY -> 3;
+                        case UNDEFINED -> -1; // wchodzi tylko do sumy
+                    };
+                    if (categoryIndex >= 0) {
+                        daySums[categoryIndex].add(wartoscNetto);
+                    }
+                    daySums[4].add(wartoscNetto);
+                });
+
+        var results = new java.util.ArrayList<DzienPodzial>(days);
+        for (int i = 0; i < days; i++) {
+            MoneyAccumulator[] daySums = sums[i];
+            results.add(new DzienPodzial(fromDate.plusDays(i),
+                    daySums[0].toBigDecimal(), daySums[1].toBigDecimal(), daySums[2].toBigDecimal(),
+                    daySums[3].toBigDecimal(), daySums[4].toBigDecimal()));
+        }
+
+        logger.debug("Przetworzono {} pozycji dla zakresu {} - {}", rows, fromDate, toDate);
         return results;
     }
     
@@ -262,53 +334,44 @@ public class SalesAnalysisService {
         // Użyj tej samej metody co szczegóły, żeby zapewnić spójność
         var details = getDailySalesDetails(date, sellerIds, "");
         
-        // Oblicz sumy z kategoryzowanych pozycji
-        java.math.BigDecimal kitchenSales = details.stream()
-                .filter(item -> "kitchen".equals(item.category()))
-                .map(SalesItemDetailDto::wartoscNetto)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        
-        java.math.BigDecimal buffetSales = details.stream()
-                .filter(item -> "buffet".equals(item.category()))
-                .map(SalesItemDetailDto::wartoscNetto)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        
-        java.math.BigDecimal packagingSales = details.stream()
-                .filter(item -> "packaging".equals(item.category()))
-                .map(SalesItemDetailDto::wartoscNetto)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        
-        java.math.BigDecimal deliverySales = details.stream()
-                .filter(item -> "delivery".equals(item.category()))
-                .map(SalesItemDetailDto::wartoscNetto)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        
-        java.math.BigDecimal totalSales = details.stream()
-                .map(SalesItemDetailDto::wartoscNetto)
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+        // Oblicz sumy z kategoryzowanych pozycji (jeden przebieg)
+        var kitchenSum = new MoneyAccumulator();
+        var buffetSum = new MoneyAccumulator();
+        var packagingSum = new MoneyAccumulator();
+        var deliverySum = new MoneyAccumulator();
+        var totalSum = new MoneyAccumulator();
+        for (SalesItemDetailDto item : details) {
+            java.math.BigDecimal value = item.wartoscNetto();
+            if ("kitchen".equals(item.category())) {
+                kitchenSum.add(value);
+            } else if ("buffet".equals(item.category())) {
+                buffetSum.add(value);
+            } else if ("packaging".equals(item.category())) {
+                packagingSum.add(value);
+            } else if ("delivery".equals(item.category())) {
+                deliverySum.add(value);
+            }
+            totalSum.add(value);
+        }
+        java.math.BigDecimal kitchenSales = kitchenSum.toBigDecimal();
+        java.math.BigDecimal buffetSales = buffetSum.toBigDecimal();
+        java.math.BigDecimal packagingSales = packagingSum.toBigDecimal();
+        java.math.BigDecimal deliverySales = deliverySum.toBigDecimal();
+        java.math.BigDecimal totalSales = totalSum.toBigDecimal();
         
         return new SprzedazKuchniaBufetOkres(kitchenSales, buffetSales, packagingSales, deliverySales, totalSales);
     }
 
-    private java.math.BigDecimal sumByProducts(LocalDateTime from, LocalDateTime to, Collection<Long> productIds) {
-        if (productIds == null || productIds.isEmpty()) {
-            return java.math.BigDecimal.ZERO;
-        }
-        return rachunekRepository.sumaKuchnia(from, to, productIds);
-    }
-
     /**
      * Sumuje sprzedaż bufetu po grupach bufetowych (ID_GR) bez filtrowania po sprzedawcach.
      * Używane w analyzeKitchenBuffetSales, która nie przyjmuje sellerIds.
-     * Wyklucza produkty już w buffetProducts, żeby uniknąć podwójnego liczenia.
+     * Pomija towary przypisane do kategorii listami produktów, żeby uniknąć podwójnego liczenia.
      */
     private java.math.BigDecimal sumBufetByGroups(LocalDateTime from, LocalDateTime to, Collection<Integer> groupIds) {
         if (groupIds == null || groupIds.isEmpty()) {
             return java.math.BigDecimal.ZERO;
         }
-        var buffetProducts = configService.getBuffetProducts();
-        var excludedProducts = (buffetProducts == null || buffetProducts.isEmpty()) ? java.util.Collections.<Long>emptyList() : buffetProducts;
-        return rachunekRepository.sumaBufetByGroups(from, to, groupIds, excludedProducts, excludedProducts.size());
+        return rachunekRepository.sumaBufetByGroups(from, to, groupIds);
     }
     
     /**
@@ -322,61 +385,36 @@ public class SalesAnalysisService {
         LocalDateTime from = date.atStartOfDay();
         LocalDateTime to = date.plusDays(1).atStartOfDay();
 
-        var kitchenProducts = configService.getKitchenProducts();
-        var buffetProducts = configService.getBuffetProducts();
-        var buffetGroups = configService.getBuffetGroups();
-        var packagingProducts = configService.getPackagingProducts();
-        var deliveryProducts = configService.getDeliveryProducts();
-
-        List<Object[]> rawItems = rachunekRepository.findSalesItemsByDateAndSellers(from, to, sellerIds);
+        var classifier = configService.getProductClassifier();
 
         List<SalesItemDetailDto> items = new java.util.ArrayList<>();
-
-        for (Object[] row : rawItems) {
-            Long rachunekId = ((Number) row[0]).longValue();
-            String sellerName = (String) row[1];
-            Integer sellerId = ((Number) row[2]).intValue();
-            Long towarId = row[3] != null ? ((Number) row[3]).longValue() : null;
-            String towarNazwa = row[4] != null ? (String) row[4] : "";
-            Integer towarGrupa = row[5] != null ? ((Number) row[5]).intValue() : null;
-            java.math.BigDecimal ilosc = (java.math.BigDecimal) row[6];
-            java.math.BigDecimal wartoscNetto = (java.math.BigDecimal) row[7];
-
-            // Określ kategorię na podstawie ID_TW i ID_GR - sztywny podział, bez domyślnych opcji
-            String category = "undefined"; // domyślnie niezdefiniowane
-            if (towarId != null) {
-                // Sprawdź explicite zdefiniowane kategorie (kolejność ma znaczenie)
-                if (packagingProducts.contains(towarId)) {
-                    category = "packaging";
-                } else if (deliveryProducts.contains(towarId)) {
-                    category = "delivery";
-                } else if (kitchenProducts.contains(towarId)) {
-                    category = "kitchen";
-                } else if (buffetProducts.contains(towarId)) {
-                    category = "buffet";
-                } else if (towarGrupa != null && buffetGroups.contains(towarGrupa)) {
-                    category = "buffet";
-                }
-                // Jeśli nie pasuje do żadnej kategorii, zostaje "undefined"
-            }
-
-            items.add(new SalesItemDetailDto(
-                    rachunekId,
-                    sellerName,
-                    sellerId,
-                    towarId,
-                    towarNazwa,
-                    towarGrupa,
-                    ilosc,
-                    wartoscNetto,
-                    category
-            ));
-        }
+        salesJdbcRepository.forEachSalesItem(from, to, sellerIds, item -> items.add(new SalesItemDetailDto(
+                item.rachunekId(),
+                item.sellerName(),
+                item.sellerId(),
+                item.towarId(),
+                item.towarNazwa() != null ? item.towarNazwa() : "",
+                item.towarGrupa(),
+                item.ilosc(),
+                item.wartoscNetto(),
+                classifier.classify(item.towarId(), item.towarGrupa()).getCode()
+        )));
 
         logger.debug("Znaleziono {} pozycji dla dnia {}", items.size(), date);
         return items;
     }
 
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        } else if (value instanceof LocalDate localDate) {
+            return localDate;
+        } else if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime.toLocalDate();
+        }
+        return ((java.sql.Timestamp) value).toLocalDateTime().toLocalDate();
+    }
+
     private void logSalesReportSummary(RestaurantReportDto report) {
         logger.info("=== PODSUMOWANIE RAPORTU SPRZEDAŻY ===");
         logger.info("Okres: {} - {}", report.from(), report.to());
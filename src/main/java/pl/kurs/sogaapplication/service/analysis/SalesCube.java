@@ -0,0 +1,360 @@
+package pl.kurs.sogaapplication.service.analysis;
+
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gęsta kostka sprzedaży: sprzedawca × dzień × godzina (× kategoria) dla jednego okresu.
+ * Kwoty trzymane są w dziesięciotysięcznych złotego (long, skala WART_NU), liczby rachunków w int - przekroje
+ * i agregacje (per punkt sprzedaży, dzień tygodnia, godzina, zakres dni) to pętle po tablicach, bez zapytań do bazy.
+ * Do groszy zaokrągla dopiero formatowanie raportu, więc sumy komórek zgadzają się z SUM(WART_NU).
+ *
+ * Komórka: ((sprzedawca * liczbaDni) + dzień) * 24 + godzina. Sprzedawcy to tylko ci, którzy mieli
+ * rachunki w okresie. Kostka jest niezmienna po zbudowaniu (SalesCube.Builder), więc może być
+ * współdzielona między wątkami.
+ *
+ * Dzień tygodnia numerowany jak Firebird WEEKDAY (0 = niedziela ... 6 = sobota), zgodnie z ObrotDzien.
+ */
+public final class SalesCube {
+
+    public static final int HOURS = 24;
+    public static final int WEEKDAYS = 7;
+    /** Skala kwot w komórkach (jak WART_NU w Firebirdzie) */
+    public static final int SCALE = 4;
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int days;
+    private final int[] sellerIds;
+    private final String[] sellerNames;
+    private final Map<Integer, Integer> sellerIndex;
+    private final int[] weekdayOfDay;
+
+    private final long[] salesNet;
+    private final int[] billCounts;
+    private final long[] categoryNet;
+
+    /**
+     * Miara odczytywana z komórek kostki.
+     */
+    public enum Measure {
+        /** Suma netto rachunków (RACHUNKI.WART_NU) */
+        NET_SALES(null),
+        /** Liczba rachunków */
+        BILL_COUNT(null),
+        KITCHEN(ProductCategory.KITCHEN),
+        BUFFET(ProductCategory.BUFFET),
+        PACKAGING(ProductCategory.PACKAGING),
+        DELIVERY(ProductCategory.DELIVERY),
+        UNDEFINED(ProductCategory.UNDEFINED);
+
+        private final ProductCategory category;
+
+        Measure(ProductCategory category) {
+            this.category = category;
+        }
+
+        public ProductCategory getCategory() {
+            return category;
+        }
+
+        /**
+         * Czy wartości miary to kwoty w skali SCALE (false dla liczby rachunków).
+         */
+        public boolean isMoney() {
+            return this != BILL_COUNT;
+        }
+    }
+
+    private SalesCube(LocalDate from, LocalDate to, int[] sellerIds, String[] sellerNames,
+                      long[] salesNet, int[] billCounts, long[] categoryNet) {
+        this.from = from;
+        this.to = to;
+        this.days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        this.sellerIds = sellerIds;
+        this.sellerNames = sellerNames;
+        this.salesNet = salesNet;
+        this.billCounts = billCounts;
+        this.categoryNet = categoryNet;
+
+        this.sellerIndex = new HashMap<>();
+        for (int s = 0; s < sellerIds.length; s++) {
+            sellerIndex.put(sellerIds[s], s);
+        }
+        this.weekdayOfDay = new int[days];
+        for (int d = 0; d < days; d++) {
+            weekdayOfDay[d] = from.plusDays(d).getDayOfWeek().getValue() % WEEKDAYS;
+        }
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Czy kostka obejmuje cały zakres [from, to].
+     */
+    public boolean covers(LocalDate rangeFrom, LocalDate rangeTo) {
+        return !rangeFrom.isBefore(from) && !rangeTo.isAfter(to);
+    }
+
+    /**
+     * ID sprzedawców obecnych w kostce (w kolejności indeksów).
+     */
+    public List<Integer> getSellerIds() {
+        return Arrays.stream(sellerIds).boxed().toList();
+    }
+
+    public String getSellerName(int sellerId) {
+        Integer s = sellerIndex.get(sellerId);
+        return s != null ? sellerNames[s] : null;
+    }
+
+    /**
+     * Przybliżony rozmiar tablic kostki w bajtach.
+     */
+    public long getSizeInBytes() {
+        return (long) salesNet.length * Long.BYTES
+                + (long) billCounts.length * Integer.BYTES
+                + (long) categoryNet.length * Long.BYTES;
+    }
+
+    /**
+     * Suma miary po godzinach (0..23) dla sprzedawców i zakresu dni (włącznie).
+     *
+     * @param sellerIds sprzedawcy (punkt sprzedaży); null = wszyscy
+     */
+    public long[] byHour(Measure measure, Collection<Integer> sellerIds, LocalDate rangeFrom, LocalDate rangeTo) {
+        long[] result = new long[HOURS];
+        int firstDay = dayIndex(rangeFrom);
+        int lastDay = dayIndex(rangeTo);
+        for (int s : selectSellers(sellerIds)) {
+            for (int d = firstDay; d <= lastDay; d++) {
+                int base = cell(s, d, 0);
+                for (int h = 0; h < HOURS; h++) {
+                    result[h] += value(measure, base + h);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suma miary w siatce dzień tygodnia × godzina ([0..6][0..23], 0 = niedziela) - dane mapy cieplnej.
+     *
+     * @param sellerIds sprzedawcy (punkt sprzedaży); null = wszyscy
+     */
+    public long[][] byWeekdayHour(Measure measure, Collection<Integer> sellerIds,
+                                  LocalDate rangeFrom, LocalDate rangeTo) {
+        long[][] result = new long[WEEKDAYS][HOURS];
+        int firstDay = dayIndex(rangeFrom);
+        int lastDay = dayIndex(rangeTo);
+        for (int s : selectSellers(sellerIds)) {
+            for (int d = firstDay; d <= lastDay; d++) {
+                long[] row = result[weekdayOfDay[d]];
+                int base = cell(s, d, 0);
+                for (int h = 0; h < HOURS; h++) {
+                    row[h] += value(measure, base + h);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suma miary po dniach tygodnia ([0..6], 0 = niedziela).
+     */
+    public long[] byWeekday(Measure measure, Collection<Integer> sellerIds, LocalDate rangeFrom, LocalDate rangeTo) {
+        long[][] grid = byWeekdayHour(measure, sellerIds, rangeFrom, rangeTo);
+        long[] result = new long[WEEKDAYS];
+        for (int w = 0; w < WEEKDAYS; w++) {
+            for (int h = 0; h < HOURS; h++) {
+                result[w] += grid[w][h];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suma miary per sprzedawca (klucz: ID sprzedawcy) - sprzedawcy bez wartości są pomijani.
+     */
+    public Map<Integer, Long> bySeller(Measure measure, Collection<Integer> sellerIds,
+                                       LocalDate rangeFrom, LocalDate rangeTo) {
+        int firstDay = dayIndex(rangeFrom);
+        int lastDay = dayIndex(rangeTo);
+        Map<Integer, Long> result = new java.util.LinkedHashMap<>();
+        for (int s : selectSellers(sellerIds)) {
+            long sum = 0;
+            int start = cell(s, firstDay, 0);
+            int end = cell(s, lastDay, 0) + HOURS;
+            for (int c = start; c < end; c++) {
+                sum += value(measure, c);
+            }
+            if (sum != 0) {
+                result.put(this.sellerIds[s], sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wartość miary w jednej komórce: sprzedawca, dzień, godzina.
+     */
+    public long get(Measure measure, int sellerId, LocalDate day, int hour) {
+        Integer s = sellerIndex.get(sellerId);
+        if (s == null) {
+            return 0;
+        }
+        return value(measure, cell(s, dayIndex(day), hour));
+    }
+
+    /**
+     * Suma miary dla sprzedawców i zakresu dni.
+     */
+    public long total(Measure measure, Collection<Integer> sellerIds, LocalDate rangeFrom, LocalDate rangeTo) {
+        return Arrays.stream(byHour(measure, sellerIds, rangeFrom, rangeTo)).sum();
+    }
+
+    /**
+     * Kwota z komórek (skala SCALE) bez zaokrąglania - do groszy zaokrągla dopiero formatowanie raportu.
+     */
+    public static BigDecimal toAmount(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    private long value(Measure measure, int cell) {
+        return switch (measure) {
+            case NET_SALES -> salesNet[cell];
+            case BILL_COUNT -> billCounts[cell];
+            default -> categoryNet[cell * CATEGORIES.length + measure.getCategory().ordinal()];
+        };
+    }
+
+    private int cell(int sellerIdx, int dayIdx, int hour) {
+        return (sellerIdx * days + dayIdx) * HOURS + hour;
+    }
+
+    private int dayIndex(LocalDate day) {
+        if (day.isBefore(from) || day.isAfter(to)) {
+            throw new IllegalArgumentException(
+                    "Dzień " + day + " poza zakresem kostki " + from + " - " + to);
+        }
+        return (int) ChronoUnit.DAYS.between(from, day);
+    }
+
+    private int[] selectSellers(Collection<Integer> ids) {
+        if (ids == null) {
+            int[] all = new int[sellerIds.length];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        return ids.stream()
+                .distinct()
+                .map(sellerIndex::get)
+                .filter(java.util.Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Buduje kostkę z wierszy zagregowanych w bazie. Sprzedawcy rejestrowani są przy pierwszym rachunku.
+     */
+    static final class Builder {
+
+        private final LocalDate from;
+        private final LocalDate to;
+        private final int days;
+        private final Map<Integer, Integer> sellerIndex = new HashMap<>();
+        private final List<String> sellerNames = new java.util.ArrayList<>();
+
+        private long[] salesNet;
+        private int[] billCounts;
+        private long[] categoryNet;
+
+        Builder(LocalDate from, LocalDate to) {
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("Koniec okresu " + to + " przed początkiem " + from);
+            }
+            this.from = from;
+            this.to = to;
+            this.days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        }
+
+        /**
+         * Rejestruje sprzedawcę - wszystkich trzeba dodać przed pierwszym addBills/addPosition.
+         */
+        Builder seller(int sellerId, String sellerName) {
+            if (salesNet != null) {
+                throw new IllegalStateException("Sprzedawców trzeba zarejestrować przed dodaniem danych");
+            }
+            if (!sellerIndex.containsKey(sellerId)) {
+                sellerIndex.put(sellerId, sellerNames.size());
+                sellerNames.add(sellerName);
+            }
+            return this;
+        }
+
+        Builder addBills(LocalDate day, int hour, int sellerId, int count, long net) {
+            allocate();
+            Integer cell = cell(day, hour, sellerId);
+            if (cell != null) {
+                billCounts[cell] += count;
+                salesNet[cell] += net;
+            }
+            return this;
+        }
+
+        Builder addPosition(LocalDate day, int hour, int sellerId, ProductCategory category, long net) {
+            allocate();
+            Integer cell = cell(day, hour, sellerId);
+            if (cell != null) {
+                categoryNet[cell * CATEGORIES.length + category.ordinal()] += net;
+            }
+            return this;
+        }
+
+        SalesCube build() {
+            allocate();
+            int[] ids = new int[sellerNames.size()];
+            sellerIndex.forEach((id, idx) -> ids[idx] = id);
+            return new SalesCube(from, to, ids, sellerNames.toArray(String[]::new),
+                    salesNet, billCounts, categoryNet);
+        }
+
+        private void allocate() {
+            if (salesNet == null) {
+                int cells = Math.multiplyExact(Math.multiplyExact(sellerNames.size(), days), HOURS);
+                salesNet = new long[cells];
+                billCounts = new int[cells];
+                categoryNet = new long[Math.multiplyExact(cells, CATEGORIES.length)];
+            }
+        }
+
+        // Pozycja sprzedawcy bez rachunków w okresie (nie powinno wystąpić) jest pomijana
+        private Integer cell(LocalDate day, int hour, int sellerId) {
+            Integer s = sellerIndex.get(sellerId);
+            if (s == null || hour < 0 || hour >= HOURS) {
+                return null;
+            }
+            int d = (int) ChronoUnit.DAYS.between(from, day);
+            if (d < 0 || d >= days) {
+                return null;
+            }
+            return (s * days + d) * HOURS + hour;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package pl.kurs.sogaapplication.service.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigChangedEvent;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ładuje kostki sprzedaży (SalesCube) i trzyma kilka ostatnich w pamięci.
+ * Kostka dla okresu budowana jest dwoma zapytaniami GROUP BY (rachunki i pozycje per dzień/godzina/sprzedawca),
+ * kolejne pytania o ten okres lub jego podzakres (inna godzina, punkt sprzedaży, kategoria) nie trafiają do bazy.
+ *
+ * Zasady ważności (jak w FoodCostCache):
+ * - okresy zamknięte (koniec przed dzisiejszym dniem) nie wygasają,
+ * - okresy otwarte wygasają po restaurant.cube.open-period-ttl-seconds,
+ * - zmiana sekcji kategorii konfiguracji unieważnia wszystkie kostki (kategorie są policzone w komórkach).
+ */
+@Service
+public class SalesCubeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesCubeService.class);
+
+    private final SalesJdbcRepository salesJdbcRepository;
+    private final RestaurantConfigService configService;
+
+    @Value("${restaurant.cube.max-cubes:4}")
+    private int maxCubes;
+
+    @Value("${restaurant.cube.open-period-ttl-seconds:60}")
+    private long openPeriodTtlSeconds;
+
+    // Najnowsze na końcu
+    private final List<CachedCube> cubes = new ArrayList<>();
+
+    public SalesCubeService(SalesJdbcRepository salesJdbcRepository, RestaurantConfigService configService) {
+        this.salesJdbcRepository = salesJdbcRepository;
+        this.configService = configService;
+    }
+
+    private record CachedCube(SalesCube cube, Instant expiresAt, long categoriesVersion) {
+
+        boolean isValid(Instant now, long currentCategoriesVersion) {
+            return (expiresAt == null || !now.isAfter(expiresAt)) && categoriesVersion == currentCategoriesVersion;
+        }
+    }
+
+    /**
+     * Zwraca kostkę obejmującą [from, to] (włącznie) - z pamięci, jeśli któraś załadowana kostka
+     * pokrywa ten zakres, w przeciwnym razie ładuje nową dokładnie dla tego okresu.
+     */
+    @Transactional(readOnly = true)
+    public SalesCube getCube(LocalDate from, LocalDate to) {
+        Instant now = Instant.now();
+        long categoriesVersion = configService.getVersion().categories();
+
+        synchronized (cubes) {
+            cubes.removeIf(cached -> !cached.isValid(now, categoriesVersion));
+            for (int i = cubes.size() - 1; i >= 0; i--) {
+                CachedCube cached = cubes.get(i);
+                if (cached.cube().covers(from, to)) {
+                    cubes.remove(i);
+                    cubes.add(cached);
+                    return cached.cube();
+                }
+            }
+        }
+
+        SalesCube cube = load(from, to);
+        Instant expiresAt = to.isBefore(LocalDate.now())
+                ? null
+                : now.plus(Duration.ofSeconds(openPeriodTtlSeconds));
+
+        synchronized (cubes) {
+            cubes.add(new CachedCube(cube, expiresAt, categoriesVersion));
+            while (cubes.size() > Math.max(1, maxCubes)) {
+                cubes.remove(0);
+            }
+        }
+        return cube;
+    }
+
+    /**
+     * Po zmianie kategorii w konfiguracji kostki są nieaktualne.
+     */
+    @EventListener
+    public void onConfigChanged(RestaurantConfigChangedEvent event) {
+        if (event.categoriesChanged()) {
+            clear();
+            logger.info("Kostki sprzedaży usunięte po zmianie kategorii (wersja {})", event.current().version());
+        }
+    }
+
+    public void clear() {
+        synchronized (cubes) {
+            cubes.clear();
+        }
+    }
+
+    private SalesCube load(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        var classifier = configService.getProductClassifier();
+        var fromDateTime = from.atStartOfDay();
+        var toDateTime = to.plusDays(1).atStartOfDay();
+
+        // Sprzedawców trzeba zarejestrować przed danymi, więc komórki rachunków (dzień x godzina x sprzedawca) są buforowane
+        var builder = new SalesCube.Builder(from, to);
+        List<BillCell> billCells = new ArrayList<>();
+        long billRows = salesJdbcRepository.forEachCubeBillCell(fromDateTime, toDateTime,
+                (day, hour, sellerId, sellerName, billCount, sumaNetto) -> {
+                    builder.seller(sellerId, sellerName);
+                    billCells.add(new BillCell(day, hour, sellerId, billCount, toUnits(sumaNetto)));
+                });
+        for (BillCell cell : billCells) {
+            builder.addBills(cell.day(), cell.hour(), cell.sellerId(), cell.billCount(), cell.net());
+        }
+        long positionRows = salesJdbcRepository.forEachCubePositionCell(fromDateTime, toDateTime,
+                (day, hour, sellerId, towarId, towarGrupa, wartoscNetto) -> builder.addPosition(
+                        day, hour, sellerId, classifier.classify(towarId, towarGrupa), toUnits(wartoscNetto)));
+
+        SalesCube cube = builder.build();
+        logger.info("Kostka sprzedaży {} - {}: {} sprzedawców, {} wierszy rachunków, {} wierszy pozycji, {} KB, {} ms",
+                from, to, cube.getSellerIds().size(), billRows, positionRows,
+                cube.getSizeInBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        return cube;
+    }
+
+    private record BillCell(LocalDate day, int hour, int sellerId, int billCount, long net) {
+    }
+
+    // Skala źródła (WART_NU) - zaokrąglenie dotyczy tylko iloczynów WART_JN * ILOSC z korekty zestawów
+    private static long toUnits(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SalesCube.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
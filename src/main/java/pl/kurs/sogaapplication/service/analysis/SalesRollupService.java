@@ -0,0 +1,567 @@
+package pl.kurs.sogaapplication.service.analysis;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.sogaapplication.repositories.DictionaryRepository;
+import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lokalny rollup sprzedaży dziennej trzymany w pliku H2 (osobna baza, nie jest beanem DataSource).
+ * Przechowuje sumy pozycji per dzień × sprzedawca × grupa towaru × kategoria (z korektą zestawów)
+ * oraz sumy rachunków per dzień × sprzedawca, żeby raporty nie musiały za każdym razem
+ * łączyć RACHUNKI/POZRACH w Firebirdzie.
+ *
+ * Rollup obejmuje wyłącznie zamknięte dni (do wczoraj włącznie) i jest odświeżany przyrostowo w tle
+ * (zaraz po starcie i co restaurant.rollup.refresh-interval-ms), nigdy w wątku raportu:
+ * - nowe dni są dociągane od znacznika coveredUntil,
+ * - dni, do których dopisano rachunki wstecz (ID_RACH większe niż zapamiętany znacznik), są przeliczane ponownie.
+ * Dopóki coveredUntil nie obejmie zakresu raportu (np. w trakcie pierwszego budowania), raport czyta z Firebirda.
+ * Zapytania do Firebirda wykonywane są poza monitorem serwisu - raport trzymający połączenie z puli
+ * czeka co najwyżej na zapis jednego fragmentu do H2, a nie na agregację w Firebirdzie.
+ * Zmiana konfiguracji kategorii (restaurant.kitchen/buffet/packaging/delivery) powoduje przebudowę od zera -
+ * także w trakcie działania, gdy RestaurantConfigService opublikuje nową wersję sekcji kategorii.
+ * Edycje istniejących rachunków nie są wykrywane - w razie potrzeby należy usunąć plik rollupu.
+ *
+ * Domyślnie wyłączony (restaurant.rollup.enabled=false) - wtedy wszystkie serwisy czytają z Firebirda.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final String META_COVERED_UNTIL = "covered_until";
+    private static final String META_LAST_BILL_ID = "last_bill_id";
+    private static final String META_CONFIG_HASH = "config_hash";
+
+    /** Brak grupy towaru (ID_GR = NULL) zapisujemy jako -1, bo kolumna jest częścią klucza. */
+    private static final int NO_GROUP = -1;
+
+    @Value("${restaurant.rollup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${restaurant.rollup.url:jdbc:h2:file:./rollup/soga-rollup}")
+    private String url;
+
+    private final RachunekJpaRepository rachunekRepository;
+    private final DictionaryRepository dictionaryRepository;
+    private final RestaurantConfigService configService;
+
+    /** Szereguje odświeżenia (harmonogram, wywołania ręczne) - trzymany także podczas zapytań do Firebirda. */
+    private final Object refreshLock = new Object();
+
+    private SingleConnectionDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+
+    /** Pierwszy dzień, którego rollup jeszcze NIE zawiera (wyłącznie); null = rollup pusty. */
+    private LocalDate coveredUntil;
+    private long lastBillId;
+    /** Wersja sekcji kategorii konfiguracji, dla której sprawdzono hash rollupu; -1 = jeszcze nie sprawdzono. */
+    private long categoriesVersion = -1;
+
+    public SalesRollupService(RachunekJpaRepository rachunekRepository,
+                              DictionaryRepository dictionaryRepository,
+                              RestaurantConfigService configService) {
+        this.rachunekRepository = rachunekRepository;
+        this.dictionaryRepository = dictionaryRepository;
+        this.configService = configService;
+    }
+
+    /**
+     * Sumy pozycji jednego dnia w podziale na kategorie.
+     */
+    public record DzienKategorie(BigDecimal kitchen,
+                                 BigDecimal buffet,
+                                 BigDecimal packaging,
+                                 BigDecimal delivery,
+                                 BigDecimal undefined) {
+
+        static final DzienKategorie EMPTY = new DzienKategorie(
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        public BigDecimal total() {
+            return kitchen.add(buffet).add(packaging).add(delivery).add(undefined);
+        }
+
+        DzienKategorie plus(DzienKategorie other) {
+            return new DzienKategorie(
+                    kitchen.add(other.kitchen),
+                    buffet.add(other.buffet),
+                    packaging.add(other.packaging),
+                    delivery.add(other.delivery),
+                    undefined.add(other.undefined));
+        }
+
+        DzienKategorie with(String category, BigDecimal value) {
+            return switch (category) {
+                case "kitchen" -> new DzienKategorie(value, buffet, packaging, delivery, undefined);
+                case "buffet" -> new DzienKategorie(kitchen, value, packaging, delivery, undefined);
+                case "packaging" -> new DzienKategorie(kitchen, buffet, value, delivery, undefined);
+                case "delivery" -> new DzienKategorie(kitchen, buffet, packaging, value, undefined);
+                default -> new DzienKategorie(kitchen, buffet, packaging, delivery, value);
+            };
+        }
+    }
+
+    /**
+     * Sumy rachunków dla okresu.
+     */
+    public record SumaRachunkow(long liczbaRachunkow, BigDecimal sumaNetto, BigDecimal sumaBrutto, long liczbaOsob) {
+
+        static final SumaRachunkow EMPTY = new SumaRachunkow(0, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+
+        SumaRachunkow plus(SumaRachunkow other) {
+            return new SumaRachunkow(
+                    liczbaRachunkow + other.liczbaRachunkow,
+                    sumaNetto.add(other.sumaNetto),
+                    sumaBrutto.add(other.sumaBrutto),
+                    liczbaOsob + other.liczbaOsob);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zwraca ostatni dzień z zakresu [from, to], dla którego dane są w rollupie, albo null,
+     * jeśli rollup jest wyłączony lub nie obejmuje początku zakresu.
+     * Niczego nie dociąga - dni spoza rollupu raport czyta z Firebirda, dopóki nie zagreguje ich odświeżanie w tle.
+     */
+    public synchronized LocalDate lastCoveredDay(LocalDate from, LocalDate to) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            ensureInitialized();
+        } catch (RuntimeException e) {
+            logger.warn("Nie udało się otworzyć rollupu sprzedaży, używam Firebirda: {}", e.getMessage());
+            return null;
+        }
+        if (coveredUntil == null || !from.isBefore(coveredUntil)) {
+            return null;
+        }
+        LocalDate lastCovered = coveredUntil.minusDays(1);
+        return to.isBefore(lastCovered) ? to : lastCovered;
+    }
+
+    /**
+     * Pierwsze odświeżenie (przy pustym rollupie - pełne budowanie) startuje od razu w wątku harmonogramu,
+     * kolejne dociągają dni zamknięte od poprzedniego przebiegu.
+     */
+    @Scheduled(fixedDelayString = "${restaurant.rollup.refresh-interval-ms:3600000}", initialDelay = 0)
+    public void refreshInBackground() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Nie udało się odświeżyć rollupu sprzedaży (raporty czytają z Firebirda dni spoza rollupu): {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Odświeża rollup przyrostowo: przelicza dni z rachunkami dopisanymi wstecz i dociąga nowe zamknięte dni.
+     * Każdy miesiąc jest zapisywany osobno, więc raporty korzystają z rollupu już w trakcie pierwszego budowania.
+     * Gdy w trakcie zmieni się konfiguracja kategorii, odświeżenie jest przerywane - kolejne buduje rollup od nowa.
+     */
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (refreshLock) {
+            long version;
+            LocalDate covered;
+            long knownBillId;
+            synchronized (this) {
+                ensureInitialized();
+                version = categoriesVersion;
+                covered = coveredUntil;
+                knownBillId = lastBillId;
+            }
+
+            LocalDate today = LocalDate.now();
+            // Znacznik ID czytamy przed agregacją - rachunki dopisane w trakcie zostaną sprawdzone przy kolejnym odświeżeniu
+            Long maxBillId = rachunekRepository.findMaxRachunekId();
+
+            if (covered == null) {
+                java.sql.Date firstSalesDate = rachunekRepository.findFirstSalesDate();
+                covered = firstSalesDate != null ? firstSalesDate.toLocalDate() : today;
+                logger.info("Budowanie rollupu sprzedaży od {}", covered);
+            } else if (maxBillId != null && maxBillId > knownBillId) {
+                var lateDays = rachunekRepository.findSalesDaysWithBillsAfterId(knownBillId, covered.atStartOfDay());
+                for (Object day : lateDays) {
+                    LocalDate date = toLocalDate(day);
+                    logger.info("Ponowne przeliczenie rollupu dla dnia {} (rachunki dopisane wstecz)", date);
+                    if (!store(version, date, date.plusDays(1), load(date, date.plusDays(1)), null)) {
+                        return;
+                    }
+                }
+            }
+
+            while (covered.isBefore(today)) {
+                LocalDate chunkEnd = covered.withDayOfMonth(1).plusMonths(1);
+                if (chunkEnd.isAfter(today)) {
+                    chunkEnd = today;
+                }
+                // Znacznik ID zapisywany razem z każdym miesiącem - po przerwanym pierwszym budowaniu kolejne
+                // odświeżenie nie traktuje zbudowanych już dni jako dni z rachunkami dopisanymi wstecz (lastBillId = 0)
+                if (!store(version, covered, chunkEnd, load(covered, chunkEnd), maxBillId)) {
+                    return;
+                }
+                covered = chunkEnd;
+            }
+
+            synchronized (this) {
+                if (maxBillId != null && categoriesVersion == version) {
+                    lastBillId = maxBillId;
+                    saveMeta(META_LAST_BILL_ID, String.valueOf(lastBillId));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sumy pozycji per dzień i kategoria dla dni [from, to] i sprzedawców.
+     * Dni bez sprzedaży nie występują w mapie.
+     */
+    public synchronized Map<LocalDate, DzienKategorie> dailyCategorySums(LocalDate from, LocalDate to,
+                                                                        Collection<Integer> sellerIds) {
+        ensureInitialized();
+        var params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("sellerIds", sellerIds);
+
+        Map<LocalDate, DzienKategorie> result = new HashMap<>();
+        jdbc.query("""
+                SELECT DZIEN, KATEGORIA, SUM(WARTOSC) AS SUMA
+                FROM SPRZEDAZ_DZIEN
+                WHERE DZIEN BETWEEN :from AND :to
+                  AND ID_UZ IN (:sellerIds)
+                GROUP BY DZIEN, KATEGORIA
+                """, params, rs -> {
+            LocalDate day = rs.getDate("DZIEN").toLocalDate();
+            result.put(day, result.getOrDefault(day, DzienKategorie.EMPTY)
+                    .with(rs.getString("KATEGORIA"), rs.getBigDecimal("SUMA")));
+        });
+        return result;
+    }
+
+    /**
+     * Sumy pozycji w podziale na kategorie dla całego okresu [from, to] i sprzedawców.
+     */
+    public synchronized DzienKategorie categorySums(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
+        return dailyCategorySums(from, to, sellerIds).values().stream()
+                .reduce(DzienKategorie.EMPTY, DzienKategorie::plus);
+    }
+
+    /**
+     * Sumy rachunków (WART_NU) per dzień dla dni [from, to] i sprzedawców.
+     * Dni bez sprzedaży nie występują w mapie.
+     */
+    public synchronized Map<LocalDate, BigDecimal> dailyBillTotals(LocalDate from, LocalDate to,
+                                                                  Collection<Integer> sellerIds) {
+        ensureInitialized();
+        var params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("sellerIds", sellerIds);
+
+        Map<LocalDate, BigDecimal> result = new HashMap<>();
+        jdbc.query("""
+                SELECT DZIEN, SUM(WART_NU) AS SUMA
+                FROM RACHUNKI_DZIEN
+                WHERE DZIEN BETWEEN :from AND :to
+                  AND ID_UZ IN (:sellerIds)
+                GROUP BY DZIEN
+                """, params, rs -> {
+            result.put(rs.getDate("DZIEN").toLocalDate(), rs.getBigDecimal("SUMA"));
+        });
+        return result;
+    }
+
+    /**
+     * Sumy rachunków per dzień dla dni [from, to]. Gdy sellerIds jest null - dla wszystkich sprzedawców.
+     * Dni bez sprzedaży nie występują w mapie.
+     */
+    public synchronized Map<LocalDate, SumaRachunkow> dailyBillSums(LocalDate from, LocalDate to,
+                                                                   Collection<Integer> sellerIds) {
+        ensureInitialized();
+        var params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("sellerIds", sellerIds);
+        String sellerFilter = sellerIds != null ? " AND ID_UZ IN (:sellerIds)" : "";
+
+        Map<LocalDate, SumaRachunkow> result = new HashMap<>();
+        jdbc.query("""
+                SELECT DZIEN,
+                       SUM(LICZBA) AS LICZBA,
+                       SUM(WART_NU) AS WART_NU,
+                       SUM(WART_BU) AS WART_BU,
+                       SUM(IL_OSOB) AS IL_OSOB
+                FROM RACHUNKI_DZIEN
+                WHERE DZIEN BETWEEN :from AND :to
+                """ + sellerFilter + " GROUP BY DZIEN", params, rs -> {
+            result.put(rs.getDate("DZIEN").toLocalDate(), new SumaRachunkow(
+                    rs.getLong("LICZBA"),
+                    rs.getBigDecimal("WART_NU"),
+                    rs.getBigDecimal("WART_BU"),
+                    rs.getLong("IL_OSOB")));
+        });
+        return result;
+    }
+
+    /**
+     * Sumy rachunków dla dni [from, to]. Gdy sellerIds jest null - dla wszystkich sprzedawców.
+     */
+    public synchronized SumaRachunkow billTotals(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
+        ensureInitialized();
+        var params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("sellerIds", sellerIds);
+        String sellerFilter = sellerIds != null ? " AND ID_UZ IN (:sellerIds)" : "";
+
+        return jdbc.queryForObject("""
+                SELECT COALESCE(SUM(LICZBA), 0) AS LICZBA,
+                       COALESCE(SUM(WART_NU), 0) AS WART_NU,
+                       COALESCE(SUM(WART_BU), 0) AS WART_BU,
+                       COALESCE(SUM(IL_OSOB), 0) AS IL_OSOB
+                FROM RACHUNKI_DZIEN
+                WHERE DZIEN BETWEEN :from AND :to
+                """ + sellerFilter, params, (rs, rowNum) -> new SumaRachunkow(
+                rs.getLong("LICZBA"),
+                rs.getBigDecimal("WART_NU"),
+                rs.getBigDecimal("WART_BU"),
+                rs.getLong("IL_OSOB")));
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (dataSource != null) {
+            dataSource.destroy();
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Otwiera bazę rollupu przy pierwszym użyciu, a po każdej zmianie wersji sekcji kategorii konfiguracji
+     * porównuje hash kategorii z zapisanym w ROLLUP_META (zmiana magazynów czy sprzedawców rollupu nie dotyczy).
+     */
+    private void ensureInitialized() {
+        if (jdbc == null) {
+            createSchema();
+        }
+        long version = configService.getVersion().categories();
+        if (version != categoriesVersion) {
+            loadMetaForCurrentConfig();
+            categoriesVersion = version;
+        }
+    }
+
+    private void createSchema() {
+        dataSource = new SingleConnectionDataSource(url, "sa", "", true);
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        var ddl = jdbc.getJdbcTemplate();
+        ddl.execute("""
+                CREATE TABLE IF NOT EXISTS ROLLUP_META (
+                    KLUCZ VARCHAR(50) PRIMARY KEY,
+                    WARTOSC VARCHAR(200)
+                )
+                """);
+        ddl.execute("""
+                CREATE TABLE IF NOT EXISTS SPRZEDAZ_DZIEN (
+                    DZIEN DATE NOT NULL,
+                    ID_UZ INT NOT NULL,
+                    ID_GR INT NOT NULL,
+                    KATEGORIA VARCHAR(12) NOT NULL,
+                    ILOSC DECIMAL(20, 3) NOT NULL,
+                    WARTOSC DECIMAL(20, 5) NOT NULL,
+                    PRIMARY KEY (DZIEN, ID_UZ, ID_GR, KATEGORIA)
+                )
+                """);
+        ddl.execute("""
+                CREATE TABLE IF NOT EXISTS RACHUNKI_DZIEN (
+                    DZIEN DATE NOT NULL,
+                    ID_UZ INT NOT NULL,
+                    LICZBA INT NOT NULL,
+                    WART_NU DECIMAL(18, 2) NOT NULL,
+                    WART_BU DECIMAL(18, 2) NOT NULL,
+                    IL_OSOB INT NOT NULL,
+                    PRIMARY KEY (DZIEN, ID_UZ)
+                )
+                """);
+    }
+
+    private void loadMetaForCurrentConfig() {
+        var ddl = jdbc.getJdbcTemplate();
+        Map<String, String> meta = new HashMap<>();
+        ddl.query("SELECT KLUCZ, WARTOSC FROM ROLLUP_META",
+                rs -> { meta.put(rs.getString("KLUCZ"), rs.getString("WARTOSC")); });
+
+        String configHash = categoryConfigHash();
+        if (!configHash.equals(meta.get(META_CONFIG_HASH))) {
+            if (!meta.isEmpty()) {
+                logger.info("Zmieniła się konfiguracja kategorii - rollup sprzedaży zostanie zbudowany od nowa");
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                ddl.update("DELETE FROM SPRZEDAZ_DZIEN");
+                ddl.update("DELETE FROM RACHUNKI_DZIEN");
+                ddl.update("DELETE FROM ROLLUP_META");
+            });
+            saveMeta(META_CONFIG_HASH, configHash);
+            coveredUntil = null;
+            lastBillId = 0L;
+        } else {
+            String covered = meta.get(META_COVERED_UNTIL);
+            String lastId = meta.get(META_LAST_BILL_ID);
+            coveredUntil = covered != null ? LocalDate.parse(covered) : null;
+            lastBillId = lastId != null ? Long.parseLong(lastId) : 0L;
+        }
+        logger.info("Rollup sprzedaży ({}) obejmuje dni przed: {}", url, coveredUntil);
+    }
+
+    /** Wiersze rollupu dla dni [from, to) przygotowane do zapisu w H2. */
+    private record Fragment(List<Object[]> facts, List<Object[]> bills) {
+    }
+
+    /**
+     * Agreguje dni [from, to) z Firebirda. Wywoływane poza monitorem serwisu.
+     */
+    private Fragment load(LocalDate from, LocalDate to) {
+        var classifier = configService.getProductClassifier();
+
+        var positionRows = rachunekRepository.sumyPozycjiDzienSprzedawcaTowar(from.atStartOfDay(), to.atStartOfDay());
+        var billRows = rachunekRepository.sumyRachunkowDzienSprzedawca(from.atStartOfDay(), to.atStartOfDay());
+        // Bez limitu odświeżania słownika - grupa null nowego towaru zostałaby zapisana w rollupie na stałe
+        dictionaryRepository.refresh();
+
+        // Klucz: dzień, sprzedawca, grupa, kategoria -> [ilość, wartość]
+        Map<List<Object>, BigDecimal[]> facts = new LinkedHashMap<>();
+        for (Object[] row : positionRows) {
+            LocalDate day = toLocalDate(row[0]);
+            int sellerId = ((Number) row[1]).intValue();
+            Long towarId = row[2] != null ? ((Number) row[2]).longValue() : null;
+            Integer towarGrupa = dictionaryRepository.productGroup(towarId);
+            BigDecimal ilosc = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
+            BigDecimal wartosc = row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO;
+
+            String category = classifier.classify(towarId, towarGrupa).getCode();
+            var key = List.<Object>of(day, sellerId, towarGrupa != null ? towarGrupa : NO_GROUP, category);
+            var sums = facts.computeIfAbsent(key, k -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+            sums[0] = sums[0].add(ilosc);
+            sums[1] = sums[1].add(wartosc);
+        }
+
+        List<Object[]> factArgs = new ArrayList<>(facts.size());
+        facts.forEach((key, sums) -> factArgs.add(new Object[] {
+                java.sql.Date.valueOf((LocalDate) key.get(0)), key.get(1), key.get(2), key.get(3), sums[0], sums[1]
+        }));
+
+        List<Object[]> billArgs = new ArrayList<>(billRows.size());
+        for (Object[] row : billRows) {
+            billArgs.add(new Object[] {
+                    java.sql.Date.valueOf(toLocalDate(row[0])),
+                    ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(),
+                    row[3],
+                    row[4],
+                    ((Number) row[5]).intValue()
+            });
+        }
+        return new Fragment(factArgs, billArgs);
+    }
+
+    /**
+     * Zapisuje dni [from, to) - usuwa stare wiersze i wstawia nowe sumy w jednej transakcji H2.
+     * Gdy coveredUntil ma być przesunięty na koniec fragmentu, nextBillId to znacznik ID zapisywany razem z nim
+     * (null przy ponownym przeliczeniu dni już objętych rollupem).
+     * Zwraca false, jeśli od rozpoczęcia odświeżenia zmieniła się konfiguracja kategorii - fragment jest wtedy pomijany.
+     */
+    private synchronized boolean store(long version, LocalDate from, LocalDate to, Fragment fragment, Long nextBillId) {
+        ensureInitialized();
+        if (categoriesVersion != version) {
+            logger.info("Konfiguracja kategorii zmieniła się w trakcie odświeżania rollupu - przerywam");
+            return false;
+        }
+        var factArgs = fragment.facts();
+        var billArgs = fragment.bills();
+        boolean extendsCoverage = coveredUntil == null || !to.isBefore(coveredUntil);
+
+        var template = jdbc.getJdbcTemplate();
+        transactionTemplate.executeWithoutResult(status -> {
+            template.update("DELETE FROM SPRZEDAZ_DZIEN WHERE DZIEN >= ? AND DZIEN < ?",
+                    java.sql.Date.valueOf(from), java.sql.Date.valueOf(to));
+            template.update("DELETE FROM RACHUNKI_DZIEN WHERE DZIEN >= ? AND DZIEN < ?",
+                    java.sql.Date.valueOf(from), java.sql.Date.valueOf(to));
+            template.batchUpdate(
+                    "INSERT INTO SPRZEDAZ_DZIEN (DZIEN, ID_UZ, ID_GR, KATEGORIA, ILOSC, WARTOSC) VALUES (?, ?, ?, ?, ?, ?)",
+                    factArgs);
+            template.batchUpdate(
+                    "INSERT INTO RACHUNKI_DZIEN (DZIEN, ID_UZ, LICZBA, WART_NU, WART_BU, IL_OSOB) VALUES (?, ?, ?, ?, ?, ?)",
+                    billArgs);
+        });
+
+        logger.debug("Rollup {} - {}: {} wierszy sprzedaży, {} wierszy rachunków", from, to, factArgs.size(), billArgs.size());
+
+        if (extendsCoverage) {
+            if (nextBillId != null) {
+                lastBillId = nextBillId;
+                saveMeta(META_LAST_BILL_ID, String.valueOf(lastBillId));
+            }
+            coveredUntil = to;
+            saveMeta(META_COVERED_UNTIL, coveredUntil.toString());
+        }
+        return true;
+    }
+
+    private void saveMeta(String key, String value) {
+        jdbc.getJdbcTemplate().update("MERGE INTO ROLLUP_META (KLUCZ, WARTOSC) KEY (KLUCZ) VALUES (?, ?)", key, value);
+    }
+
+    private String categoryConfigHash() {
+        return Integer.toHexString(Objects.hash(
+                configService.getKitchenProducts(),
+                configService.getBuffetProducts(),
+                configService.getBuffetGroups(),
+                configService.getPackagingProducts(),
+                configService.getDeliveryProducts()));
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        } else if (value instanceof LocalDate localDate) {
+            return localDate;
+        } else if (value instanceof java.time.LocalDateTime localDateTime) {
+            return localDateTime.toLocalDate();
+        }
+        return ((java.sql.Timestamp) value).toLocalDateTime().toLocalDate();
+    }
+}
@@ -8,16 +8,19 @@ import pl.kurs.sogaapplication.dto.PodsumowanieTygodnia;
 import pl.kurs.sogaapplication.models.ObrotDzien;
 import pl.kurs.sogaapplication.models.ObrotDzienGodzinaView;
 import pl.kurs.sogaapplication.models.ObrotSprzedawcyGodzina;
+import pl.kurs.sogaapplication.models.business.WeekNumbering;
 import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -30,31 +33,39 @@ public class TimeAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(TimeAnalysisService.class);
     
     private final RachunekJpaRepository rachunekRepository;
+    private final SalesRollupService salesRollupService;
+    private final SalesCubeService salesCubeService;
     
-    public TimeAnalysisService(RachunekJpaRepository rachunekRepository) {
+    public TimeAnalysisService(RachunekJpaRepository rachunekRepository,
+                               SalesRollupService salesRollupService,
+                               SalesCubeService salesCubeService) {
         this.rachunekRepository = rachunekRepository;
+        this.salesRollupService = salesRollupService;
+        this.salesCubeService = salesCubeService;
     }
     
     /**
-     * Analizuje sprzedaż po godzinach dla konkretnego dnia
+     * Analizuje sprzedaż po godzinach dla konkretnego dnia (z kostki sprzedaży)
      */
     @Transactional(readOnly = true)
     public List<ObrotSprzedawcyGodzina> analyzeHourlySales(LocalDate date) {
         logger.info("Analiza sprzedaży po godzinach dla dnia: {}", date);
         
-        var hourlySales = rachunekRepository.sumyGodzinowe(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
-        
-        return hourlySales.stream()
-                .map(r -> new ObrotSprzedawcyGodzina(
-                        r.sellerId(),
-                        r.sellerName(),
-                        r.godzina(),
-                        r.suma()))
-                .toList();
+        SalesCube cube = salesCubeService.getCube(date, date);
+        var result = new ArrayList<ObrotSprzedawcyGodzina>();
+        for (Integer sellerId : sortedByName(cube, cube.getSellerIds())) {
+            for (int h = 0; h < SalesCube.HOURS; h++) {
+                if (cube.get(SalesCube.Measure.BILL_COUNT, sellerId, date, h) > 0) {
+                    result.add(new ObrotSprzedawcyGodzina(sellerId, cube.getSellerName(sellerId), (short) h,
+                            SalesCube.toAmount(cube.get(SalesCube.Measure.NET_SALES, sellerId, date, h))));
+                }
+            }
+        }
+        return result;
     }
     
     /**
-     * Analizuje sprzedaż po godzinach dla zakresu dni i sprzedawców
+     * Analizuje sprzedaż po godzinach dla zakresu dni i sprzedawców (z kostki sprzedaży)
      */
     @Transactional(readOnly = true)
     public List<ObrotDzienGodzinaView> analyzeHourlySalesByDayAndSeller(LocalDate from, LocalDate to, 
@@ -62,34 +73,106 @@ public class TimeAnalysisService {
         logger.info("Analiza sprzedaży po godzinach od {} do {} dla sprzedawców: {}", 
                 from, to, sellerIds);
         
-        LocalDateTime fromDateTime = from.atStartOfDay();
-        LocalDateTime toDateTime = to.plusDays(1).atStartOfDay();
-        
-        return rachunekRepository.sumyDzienGodzina(fromDateTime, toDateTime, sellerIds);
+        return List.copyOf(weekdayHourRows(from, to, sellerIds));
     }
     
     /**
-     * Analizuje sprzedaż dzienną dla zakresu dni
+     * Analizuje sprzedaż dzienną dla zakresu dni (z kostki sprzedaży)
      */
     @Transactional(readOnly = true)
     public List<ObrotDzien> analyzeDailySales(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
         logger.info("Analiza sprzedaży dziennej od {} do {} dla sprzedawców: {}", 
                 from, to, sellerIds);
         
-        LocalDateTime fromDateTime = from.atStartOfDay();
-        LocalDateTime toDateTime = to.plusDays(1).atStartOfDay();
+        return List.copyOf(weekdayHourRows(from, to, sellerIds));
+    }
+    
+    /**
+     * Siatka dzień tygodnia × godzina dla punktu sprzedaży (mapa cieplna) - z kostki, bez zapytań
+     * przy powtórnych pytaniach o ten sam okres.
+     *
+     * @param sellerIds sprzedawcy punktu sprzedaży; null = wszyscy
+     */
+    public long[][] salesHeatmap(LocalDate from, LocalDate to, Collection<Integer> sellerIds,
+                                 SalesCube.Measure measure) {
+        return salesCubeService.getCube(from, to).byWeekdayHour(measure, sellerIds, from, to);
+    }
+    
+    /**
+     * Wiersz sprzedawca / dzień tygodnia / godzina odczytany z kostki
+     */
+    private record WeekdayHourRow(Integer sellerId, String sellerName, Integer dzien, Integer godzina,
+                                  BigDecimal suma) implements ObrotDzien, ObrotDzienGodzinaView {
+        @Override
+        public Integer getSellerId() {
+            return sellerId;
+        }
+        
+        @Override
+        public String getSellerName() {
+            return sellerName;
+        }
+        
+        @Override
+        public Integer getDzien() {
+            return dzien;
+        }
+        
+        @Override
+        public Integer getGodzina() {
+            return godzina;
+        }
         
-        return rachunekRepository.sumyDzien(fromDateTime, toDateTime, sellerIds);
+        @Override
+        public BigDecimal getSuma() {
+            return suma;
+        }
+    }
+    
+    // Kolejność jak w dawnym ORDER BY: nazwa sprzedawcy, dzień tygodnia, godzina; tylko godziny z rachunkami
+    private List<WeekdayHourRow> weekdayHourRows(LocalDate from, LocalDate to, Collection<Integer> sellerIds) {
+        SalesCube cube = salesCubeService.getCube(from, to);
+        var result = new ArrayList<WeekdayHourRow>();
+        for (Integer sellerId : sortedByName(cube, sellerIds)) {
+            var single = List.of(sellerId);
+            long[][] sales = cube.byWeekdayHour(SalesCube.Measure.NET_SALES, single, from, to);
+            long[][] bills = cube.byWeekdayHour(SalesCube.Measure.BILL_COUNT, single, from, to);
+            for (int d = 0; d < SalesCube.WEEKDAYS; d++) {
+                for (int h = 0; h < SalesCube.HOURS; h++) {
+                    if (bills[d][h] > 0) {
+                        result.add(new WeekdayHourRow(sellerId, cube.getSellerName(sellerId), d, h,
+                                SalesCube.toAmount(sales[d][h])));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static List<Integer> sortedByName(SalesCube cube, Collection<Integer> sellerIds) {
+        return sellerIds.stream()
+                .distinct()
+                .filter(id -> cube.getSellerName(id) != null)
+                .sorted(Comparator.comparing(cube::getSellerName))
+                .toList();
     }
     
     /**
-     * Generuje podsumowanie roczne
+     * Generuje podsumowanie roczne (tygodnie jako 7-dniowe bloki od 1 stycznia)
      */
     @Transactional(readOnly = true)
     public List<PodsumowanieTygodnia> generateYearlySummary(int year) {
-        logger.info("Generowanie podsumowania rocznego dla roku: {}", year);
+        return generateYearlySummary(year, WeekNumbering.BLOCKS_FROM_JAN_1);
+    }
+    
+    /**
+     * Generuje podsumowanie roczne dla wybranego sposobu numerowania tygodni
+     */
+    @Transactional(readOnly = true)
+    public List<PodsumowanieTygodnia> generateYearlySummary(int year, WeekNumbering numbering) {
+        logger.info("Generowanie podsumowania rocznego dla roku: {} ({})", year, numbering);
         
-        var yearlyReport = generateYearlyReport(year);
+        var yearlyReport = generateYearlyReport(year, numbering);
         yearlyReport.forEach(report -> logger.info("Tydzień {}: {} rachunków, {} osób, sprzedaż: {}", 
                 report.getNumerTygodnia(), report.getLiczbaRachunkow(), 
                 report.getLacznaIloscOsob(), report.getSumaNetto()));
@@ -98,54 +181,89 @@ public class TimeAnalysisService {
     }
     
     /**
-     * Generuje podsumowanie roczne (prywatna metoda z logiką)
+     * Generuje podsumowanie roczne (prywatna metoda z logiką).
+     * Tygodnie w całości pokryte rollupem czytane są jednym zapytaniem o sumy dzienne z rollupu (dni sumowane
+     * w tygodnie w Javie), pozostałe jednym zapytaniem GROUP BY po numerze tygodnia - bez ładowania encji
+     * Rachunek. Tygodnie bez sprzedaży mają zerowe sumy.
      */
-    private List<PodsumowanieTygodnia> generateYearlyReport(int year) {
-        var podsumowania = new java.util.ArrayList<PodsumowanieTygodnia>();
+    private List<PodsumowanieTygodnia> generateYearlyReport(int year, WeekNumbering numbering) {
+        int weekCount = numbering.weekCount(year);
+        var podsumowania = new java.util.ArrayList<PodsumowanieTygodnia>(weekCount);
         
-        LocalDate start = LocalDate.of(year, 1, 1);
-        int numerTygodnia = 1;
+        // Tygodnie w całości zamknięte - sumy z rollupu
+        LocalDate lastCovered = salesRollupService.lastCoveredDay(numbering.firstDay(year), numbering.lastDay(year));
+        int firstWeekFromDatabase = 1;
+        while (firstWeekFromDatabase <= weekCount && lastCovered != null
+                && !numbering.weekEnd(year, firstWeekFromDatabase).isAfter(lastCovered)) {
+            firstWeekFromDatabase++;
+        }
         
-        while (start.getYear() == year) {
-            LocalDate endDate = start.plusDays(6); // 7 dniowy zakres
-            if (endDate.getYear() > year) {
-                endDate = LocalDate.of(year, 12, 31); // ostatni dzień roku
+        if (firstWeekFromDatabase > 1) {
+            var dailySums = salesRollupService.dailyBillSums(numbering.firstDay(year),
+                    numbering.weekEnd(year, firstWeekFromDatabase - 1), null);
+            for (int week = 1; week < firstWeekFromDatabase; week++) {
+                var sumy = SalesRollupService.SumaRachunkow.EMPTY;
+                LocalDate end = numbering.weekEnd(year, week);
+                for (LocalDate day = numbering.weekStart(year, week); !day.isAfter(end); day = day.plusDays(1)) {
+                    sumy = sumy.plus(dailySums.getOrDefault(day, SalesRollupService.SumaRachunkow.EMPTY));
+                }
+                podsumowania.add(new PodsumowanieTygodnia(
+                        year,
+                        week,
+                        sumy.sumaNetto(),
+                        sumy.sumaBrutto(),
+                        (int) sumy.liczbaRachunkow(),
+                        (int) sumy.liczbaOsob()
+                ));
+            }
+        }
+        
+        if (firstWeekFromDatabase > weekCount) {
+            return podsumowania;
+        }
+        
+        // Pozostałe tygodnie - jedno zapytanie (granica górna półotwarta, więc bez gubienia końcówki dnia)
+        LocalDateTime from = numbering.weekStart(year, firstWeekFromDatabase).atStartOfDay();
+        LocalDateTime to = numbering.lastDay(year).plusDays(1).atStartOfDay();
+        List<Object[]> rows = numbering == WeekNumbering.ISO
+                ? rachunekRepository.sumyRachunkowTydzienIso(from, to)
+                : rachunekRepository.sumyRachunkowTydzienBlokiRoku(from, to);
+        
+        Map<Integer, Object[]> byWeek = new java.util.HashMap<>();
+        for (Object[] row : rows) {
+            byWeek.put(((Number) row[0]).intValue(), row);
+        }
+        
+        for (int week = firstWeekFromDatabase; week <= weekCount; week++) {
+            Object[] row = byWeek.get(week);
+            if (row == null) {
+                podsumowania.add(new PodsumowanieTygodnia(
+                        year, week, java.math.BigDecimal.ZERO, java.math.BigDecimal.ZERO, 0, 0));
+                continue;
             }
-            
-            LocalDateTime startDateTime = start.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            
-            var rachunki = rachunekRepository.findByDataRozpoczeciaBetween(startDateTime, endDateTime);
-            
-            var sumaNetto = rachunki.stream()
-                    .map(pl.kurs.sogaapplication.models.Rachunek::getWartNu)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            
-            var sumaBrutto = rachunki.stream()
-                    .map(pl.kurs.sogaapplication.models.Rachunek::getWartBu)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            
-            int liczbaOsob = rachunki.stream()
-                    .mapToInt(pl.kurs.sogaapplication.models.Rachunek::getIloscOsob)
-                    .sum();
-            
             podsumowania.add(new PodsumowanieTygodnia(
                     year,
-                    numerTygodnia,
-                    sumaNetto,
-                    sumaBrutto,
-                    rachunki.size(),
-                    liczbaOsob
+                    week,
+                    toBigDecimal(row[2]),
+                    toBigDecimal(row[3]),
+                    ((Number) row[1]).intValue(),
+                    ((Number) row[4]).intValue()
             ));
-            
-            // przejście do kolejnego tygodnia
-            start = start.plusDays(7);
-            numerTygodnia++;
         }
         
         return podsumowania;
     }
     
+    private static java.math.BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return java.math.BigDecimal.ZERO;
+        }
+        if (value instanceof java.math.BigDecimal bd) {
+            return bd;
+        }
+        return new java.math.BigDecimal(value.toString());
+    }
+    
     /**
      * Wyświetla analizę godzinową w czytelnym formacie
      */
@@ -184,34 +302,42 @@ public class TimeAnalysisService {
         var kwota = java.text.NumberFormat.getNumberInstance(new Locale("pl", "PL"));
         kwota.setMinimumFractionDigits(2);
         kwota.setMaximumFractionDigits(2);
+        kwota.setRoundingMode(java.math.RoundingMode.HALF_UP);
         
-        // grupowanie: dzień -> godzina -> suma
-        Map<Integer, Map<Integer, java.math.BigDecimal>> sumaPerDzienGodzina = results.stream()
-                .collect(Collectors.groupingBy(
-                        ObrotDzien::getDzien, TreeMap::new,
-                        Collectors.groupingBy(
-                                ObrotDzien::getGodzina, TreeMap::new,
-                                Collectors.reducing(java.math.BigDecimal.ZERO, ObrotDzien::getSuma, java.math.BigDecimal::add)
-                        )
-                ));
+        // siatka dzień tygodnia × godzina w skali SalesCube.SCALE - do groszy zaokrągla dopiero format;
+        // null = brak rachunków w tej godzinie
+        Long[][] kwotyPerDzienGodzina = new Long[SalesCube.WEEKDAYS][SalesCube.HOURS];
+        for (ObrotDzien r : results) {
+            long kwotaGodziny = r.getSuma().setScale(SalesCube.SCALE, java.math.RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            Long current = kwotyPerDzienGodzina[r.getDzien()][r.getGodzina()];
+            kwotyPerDzienGodzina[r.getDzien()][r.getGodzina()] = current == null ? kwotaGodziny : current + kwotaGodziny;
+        }
         
         // drukowanie
-        sumaPerDzienGodzina.forEach((dzien, mapaGodzin) -> {
+        long kwotaRazem = 0;
+        for (int dzien = 0; dzien < SalesCube.WEEKDAYS; dzien++) {
+            Long[] godziny = kwotyPerDzienGodzina[dzien];
+            if (Arrays.stream(godziny).allMatch(java.util.Objects::isNull)) {
+                continue;
+            }
             logger.info("{}:", dni[dzien]);
             
-            mapaGodzin.forEach((godzina, suma) ->
-                    logger.info("  {}:00 — {}", String.format("%02d", godzina), kwota.format(suma)));
+            long kwotaDnia = 0;
+            for (int godzina = 0; godzina < SalesCube.HOURS; godzina++) {
+                if (godziny[godzina] != null) {
+                    logger.info("  {}:00 — {}", String.format("%02d", godzina),
+                            kwota.format(SalesCube.toAmount(godziny[godzina])));
+                    kwotaDnia += godziny[godzina];
+                }
+            }
             
             // suma dnia
-            java.math.BigDecimal sumaDnia = mapaGodzin.values().stream()
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            logger.info("  Razem: {}", kwota.format(sumaDnia));
-        });
+            logger.info("  Razem: {}", kwota.format(SalesCube.toAmount(kwotaDnia)));
+            kwotaRazem += kwotaDnia;
+        }
         
         // suma całkowita
-        java.math.BigDecimal sumaRazem = sumaPerDzienGodzina.values().stream()
-                .flatMap(m -> m.values().stream())
-                .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+        java.math.BigDecimal sumaRazem = SalesCube.toAmount(kwotaRazem);
         logger.info("Razem wszystkie dni: {}", kwota.format(sumaRazem));
     }
 }
@@ -1,18 +1,28 @@
 package pl.kurs.sogaapplication.service.cli;
 
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import pl.kurs.sogaapplication.dto.DailyGrossMarginDto;
 import pl.kurs.sogaapplication.dto.FoodCostSummary;
 import pl.kurs.sogaapplication.dto.RestaurantReportDto;
+import pl.kurs.sogaapplication.dto.TopProductsReport;
 import pl.kurs.sogaapplication.models.ObrotSprzedawcyGodzina;
 import pl.kurs.sogaapplication.models.business.PointOfSale;
+import pl.kurs.sogaapplication.models.business.WeekNumbering;
+import pl.kurs.sogaapplication.service.admin.IndexAdvisorService;
 import pl.kurs.sogaapplication.service.analysis.FoodCostService;
+import pl.kurs.sogaapplication.service.analysis.ProductAnalysisService;
 import pl.kurs.sogaapplication.service.analysis.SalesAnalysisService;
+import pl.kurs.sogaapplication.service.analysis.SalesCube;
 import pl.kurs.sogaapplication.service.analysis.TimeAnalysisService;
 import pl.kurs.sogaapplication.service.config.PointOfSaleService;
+import pl.kurs.sogaapplication.service.config.ProductCategoryTableService;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
 import pl.kurs.sogaapplication.service.display.ReportFormatter;
+import pl.kurs.sogaapplication.service.export.ExportFormat;
 import pl.kurs.sogaapplication.service.export.ReportExportService;
+import pl.kurs.sogaapplication.service.export.SalesItemsExportService;
+import pl.kurs.sogaapplication.service.metrics.RepositoryMetrics;
 import pl.kurs.sogaapplication.service.validation.BillValidationService;
 
 import java.time.LocalDate;
@@ -30,30 +40,51 @@ public class CommandLineInterface {
     private final SalesAnalysisService salesAnalysisService;
     private final TimeAnalysisService timeAnalysisService;
     private final ReportExportService reportExportService;
+    private final SalesItemsExportService salesItemsExportService;
     private final RestaurantConfigService configService;
     private final PointOfSaleService pointOfSaleService;
     private final ReportFormatter formatter;
     private final BillValidationService billValidationService;
     private final FoodCostService foodCostService;
+    private final ProductAnalysisService productAnalysisService;
+    private final RepositoryMetrics repositoryMetrics;
+    private final IndexAdvisorService indexAdvisorService;
+    private final ProductCategoryTableService productCategoryTable;
     
     private final Scanner scanner = new Scanner(System.in);
     
+    /**
+     * Zależności wstrzykiwane leniwie (@Lazy) - przy spring.main.lazy-initialization=true (profil fast-start)
+     * serwis, a z nim Hibernate i połączenie z Firebirdem, tworzony jest dopiero przy pierwszej akcji menu,
+     * która go używa.
+     */
+    @Lazy
     public CommandLineInterface(SalesAnalysisService salesAnalysisService,
                               TimeAnalysisService timeAnalysisService,
                               ReportExportService reportExportService,
+                              SalesItemsExportService salesItemsExportService,
                               RestaurantConfigService configService,
                               PointOfSaleService pointOfSaleService,
                               ReportFormatter formatter,
                               BillValidationService billValidationService,
-                              FoodCostService foodCostService) {
+                              FoodCostService foodCostService,
+                              ProductAnalysisService productAnalysisService,
+                              RepositoryMetrics repositoryMetrics,
+                              IndexAdvisorService indexAdvisorService,
+                              ProductCategoryTableService productCategoryTable) {
         this.salesAnalysisService = salesAnalysisService;
         this.timeAnalysisService = timeAnalysisService;
         this.reportExportService = reportExportService;
+        this.salesItemsExportService = salesItemsExportService;
         this.configService = configService;
         this.pointOfSaleService = pointOfSaleService;
         this.formatter = formatter;
         this.billValidationService = billValidationService;
         this.foodCostService = foodCostService;
+        this.productAnalysisService = productAnalysisService;
+        this.repositoryMetrics = repositoryMetrics;
+        this.indexAdvisorService = indexAdvisorService;
+        this.productCategoryTable = productCategoryTable;
     }
     
     /**
@@ -65,22 +96,24 @@ public class CommandLineInterface {
         
         while (true) {
             showMainMenu();
-            int choice = getIntInput("Wybierz opcję (1-13): ");
+            int choice = getIntInput("Wybierz opcję (1-15): ");
             
             switch (choice) {
-                case 1 -> generateSalesReport();
-                case 2 -> analyzeHourlySales();
-                case 3 -> generateYearlySummary();
-                case 4 -> exportReports();
-                case 5 -> validateSuspiciousBills();
+                case 1 -> categoryReport("Raport sprzedaży", this::generateSalesReport);
+                case 2 -> measured("Analiza godzinowa", this::analyzeHourlySales);
+                case 3 -> measured("Podsumowanie roczne", this::generateYearlySummary);
+                case 4 -> categoryReport("Eksport raportów", this::exportReports);
+                case 5 -> measured("Walidacja rachunków", this::validateSuspiciousBills);
                 case 6 -> showConfiguration();
                 case 7 -> showPointsOfSale();
-                case 8 -> compareSalesReports();
-                case 9 -> calculateKitchenPurchases();
-                case 10 -> calculateFoodCost();
-                case 11 -> calculateDailyGrossMargin();
-                case 12 -> showDailySalesDetails();
-                case 13 -> {
+                case 8 -> categoryReport("Porównanie okresów", this::compareSalesReports);
+                case 9 -> measured("Zakupy", this::calculateKitchenPurchases);
+                case 10 -> categoryReport("Food cost", this::calculateFoodCost);
+                case 11 -> categoryReport("Marża brutto dzienna", this::calculateDailyGrossMargin);
+                case 12 -> measured("Szczegóły sprzedaży dziennej", this::showDailySalesDetails);
+                case 13 -> measured("Ranking produktów", this::showTopProducts);
+                case 14 -> adviseIndexes();
+                case 15 -> {
                     System.out.println("👋 Dziękujemy za korzystanie z systemu!");
                     return;
                 }
@@ -93,6 +126,34 @@ public class CommandLineInterface {
         }
     }
     
+    /**
+     * Wykonuje akcję menu w zakresie metryk repozytoriów (podsumowanie zapytań po zakończeniu,
+     * gdy restaurant.metrics.enabled=true)
+     */
+    private void measured(String operationName, Runnable action) {
+        RepositoryMetrics.OperationScope scope = repositoryMetrics.startOperation(operationName);
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+    
+    /**
+     * Akcja menu, której zapytania łączą się z tabelą PRODUCT_CATEGORY - najpierw (poza transakcją raportu)
+     * czeka na zsynchronizowanie tabeli z bieżącą konfiguracją kategorii, żeby nie czytać nieaktualnych kategorii
+     */
+    private void categoryReport(String operationName, Runnable action) {
+        try {
+            productCategoryTable.ensureSynced();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Tabela kategorii " + ProductCategoryTableService.TABLE
+                    + " nie jest zgodna z konfiguracją: " + e.getMessage());
+            return;
+        }
+        measured(operationName, action);
+    }
+    
     private void showMainMenu() {
         System.out.println("\n📋 GŁÓWNE MENU:");
         System.out.println("1. 📊 Generuj raport sprzedaży");
@@ -107,7 +168,9 @@ public class CommandLineInterface {
         System.out.println("10. 💰 Food Cost (zakupy vs sprzedaż)");
         System.out.println("11. 📈 Marża brutto dzienna");
         System.out.println("12. 🔍 Szczegóły sprzedaży dziennej");
-        System.out.println("13. 🚪 Wyjście");
+        System.out.println("13. 🏆 Najlepiej sprzedające się produkty");
+        System.out.println("14. 🛠️  Indeksy bazy (doradca)");
+        System.out.println("15. 🚪 Wyjście");
     }
     
     private void generateSalesReport() {
@@ -177,8 +240,17 @@ public class CommandLineInterface {
         System.out.println("\n⏰ ANALIZA SPRZEDAŻY GODZINOWEJ");
         System.out.println("-".repeat(40));
         
+        System.out.println("1. Jeden dzień (per sprzedawca)");
+        System.out.println("2. Mapa cieplna dzień tygodnia × godzina (okres)");
+        int type = getIntInput("Wybierz opcję (1-2): ");
+
+        if (type == 2) {
+            showSalesHeatmap();
+            return;
+        }
+
         LocalDate date = getDateInput("Data do analizy (YYYY-MM-DD): ");
-        
+
         try {
             List<ObrotSprzedawcyGodzina> hourlyData = timeAnalysisService.analyzeHourlySales(date);
             System.out.println(formatter.formatHourlyAnalysis(hourlyData));
@@ -186,6 +258,52 @@ public class CommandLineInterface {
             System.err.println("❌ Błąd podczas analizy godzinowej: " + e.getMessage());
         }
     }
+
+    /**
+     * Mapa cieplna z kostki sprzedaży - okres ładowany raz, kolejne przekroje (punkt sprzedaży, miara)
+     * liczone są w pamięci.
+     */
+    private void showSalesHeatmap() {
+        LocalDate from = getDateInput("Data początkowa (YYYY-MM-DD): ");
+        LocalDate to = getDateInput("Data końcowa (YYYY-MM-DD): ");
+        if (to.isBefore(from)) {
+            System.out.println("❌ Data końcowa jest przed początkową.");
+            return;
+        }
+
+        while (true) {
+            List<Integer> sellerIds = chooseSellerIds();
+            SalesCube.Measure measure = chooseCubeMeasure();
+
+            try {
+                long[][] grid = timeAnalysisService.salesHeatmap(from, to, sellerIds, measure);
+                String title = String.format("%s - %s, %s, sprzedawcy: %s", from, to, measure, sellerIds);
+                System.out.println(formatter.formatSalesHeatmap(title, grid, measure));
+            } catch (Exception e) {
+                System.err.println("❌ Błąd podczas budowania mapy cieplnej: " + e.getMessage());
+                return;
+            }
+
+            System.out.print("Kolejny przekrój dla tego okresu? (t/n): ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("t")) {
+                return;
+            }
+        }
+    }
+
+    private SalesCube.Measure chooseCubeMeasure() {
+        SalesCube.Measure[] measures = SalesCube.Measure.values();
+        System.out.println("\nWybierz miarę:");
+        for (int i = 0; i < measures.length; i++) {
+            System.out.println((i + 1) + ". " + measures[i]);
+        }
+        int choice = getIntInput("Wybierz opcję (1-" + measures.length + "): ");
+        if (choice < 1 || choice > measures.length) {
+            System.out.println("❌ Nieprawidłowy wybór. Używam sprzedaży netto.");
+            return SalesCube.Measure.NET_SALES;
+        }
+        return measures[choice - 1];
+    }
     
     private void generateYearlySummary() {
         System.out.println("\n📅 PODSUMOWANIE ROCZNE");
@@ -193,8 +311,15 @@ public class CommandLineInterface {
         
         int year = getIntInput("Podaj rok (np. 2024): ");
         
+        System.out.println("\nNumeracja tygodni:");
+        System.out.println("1. 7-dniowe bloki od 1 stycznia");
+        System.out.println("2. Tygodnie ISO (poniedziałek-niedziela)");
+        WeekNumbering numbering = getIntInput("Wybierz opcję (1-2): ") == 2
+                ? WeekNumbering.ISO
+                : WeekNumbering.BLOCKS_FROM_JAN_1;
+        
         try {
-            var yearlyData = timeAnalysisService.generateYearlySummary(year);
+            var yearlyData = timeAnalysisService.generateYearlySummary(year, numbering);
             System.out.println(formatter.formatYearlySummary(yearlyData));
         } catch (Exception e) {
             System.err.println("❌ Błąd podczas generowania podsumowania rocznego: " + e.getMessage());
@@ -205,6 +330,12 @@ public class CommandLineInterface {
         System.out.println("\n📤 EKSPORT RAPORTÓW");
         System.out.println("-".repeat(40));
         
+        System.out.print("Wczytać wcześniejszy eksport kolumnowy zamiast eksportować? (t/n): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("t")) {
+            loadColumnarSalesItems();
+            return;
+        }
+        
         LocalDate from = getDateInput("Data początkowa (YYYY-MM-DD): ");
         LocalDate to = getDateInput("Data końcowa (YYYY-MM-DD): ");
         List<Integer> sellerIds = configService.getDefaultSellers();
@@ -213,8 +344,14 @@ public class CommandLineInterface {
         System.out.println("1. XML");
         System.out.println("2. CSV");
         System.out.println("3. Oba");
+        System.out.println("4. Pozycje sprzedaży (każda pozycja rachunku, strumieniowo)");
+        
+        int formatChoice = getIntInput("Wybierz opcję (1-4): ");
         
-        int formatChoice = getIntInput("Wybierz opcję (1-3): ");
+        if (formatChoice == 4) {
+            exportSalesItems(from, to, sellerIds);
+            return;
+        }
         
         try {
             RestaurantReportDto report = salesAnalysisService.generateSalesReport(from, to, sellerIds);
@@ -240,6 +377,50 @@ public class CommandLineInterface {
         }
     }
     
+    private void exportSalesItems(LocalDate from, LocalDate to, List<Integer> sellerIds) {
+        System.out.println("\nFormat pliku pozycji:");
+        System.out.println("1. CSV");
+        System.out.println("2. XML");
+        System.out.println("3. Kolumnowy binarny (.sogacol - do ponownego wczytania)");
+        ExportFormat format = switch (getIntInput("Wybierz opcję (1-3): ")) {
+            case 2 -> ExportFormat.XML;
+            case 3 -> ExportFormat.COLUMNAR;
+            default -> ExportFormat.CSV;
+        };
+        
+        boolean gzip = false;
+        if (format != ExportFormat.COLUMNAR) {
+            System.out.print("Kompresować gzip? (t/n): ");
+            gzip = scanner.nextLine().trim().equalsIgnoreCase("t");
+        }
+        
+        try {
+            var result = salesItemsExportService.exportSalesItems(from, to, sellerIds, format, gzip);
+            System.out.println(String.format("✅ Zapisano %d pozycji do %s (%d KB)",
+                    result.rows(), result.file().toAbsolutePath(), result.bytes() / 1024));
+        } catch (Exception e) {
+            System.err.println("❌ Błąd podczas eksportu pozycji: " + e.getMessage());
+        }
+    }
+    
+    private void loadColumnarSalesItems() {
+        System.out.print("Ścieżka pliku .sogacol: ");
+        String file = scanner.nextLine().trim();
+        
+        try {
+            long start = System.nanoTime();
+            var facts = salesItemsExportService.readColumnar(java.nio.file.Path.of(file));
+            long loadMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(String.format("✅ Wczytano %d pozycji (%s - %s) w %d ms",
+                    facts.size(), facts.getFrom(), facts.getTo(), loadMs));
+            facts.netValueByCategory(facts.getFrom(), facts.getTo(), null)
+                    .forEach((category, value) -> System.out.println(String.format("  %-10s %15s",
+                            category.getCode(), value.setScale(2, java.math.RoundingMode.HALF_UP).toPlainString())));
+        } catch (Exception e) {
+            System.err.println("❌ Błąd podczas wczytywania pliku kolumnowego: " + e.getMessage());
+        }
+    }
+    
     private void showConfiguration() {
         System.out.println("\n⚙️  KONFIGURACJA RESTAURACJI");
         System.out.println("-".repeat(40));
@@ -512,25 +693,21 @@ public class CommandLineInterface {
         try {
             DailyGrossMarginDto.MonthlySummary summary;
             
-            // Jeśli wybrano "Wszyscy", sumuj dane z KD i Ratuszowej
+            // Jeśli wybrano "Wszyscy", policz wszystkie punkty sprzedaży jednym wywołaniem i zsumuj
             if (pointOfSaleChoice == 3) {
-                var kd = pointOfSaleService.getPointOfSale("KD");
-                var ratuszowa = pointOfSaleService.getPointOfSale("RATUSZOWA");
-                
-                List<Integer> kdSellers = kd.map(PointOfSale::getSellerIds).orElse(configService.getDefaultSellers());
-                List<Integer> ratuszowaSellers = ratuszowa.map(PointOfSale::getSellerIds).orElse(configService.getAllSellers());
-                
-                // Oblicz osobno dla KD i Ratuszowej
-                var kdSummary = foodCostService.calculateDailyGrossMargin(year, month, kdSellers, foodCostSellerIds, "Kuchnia Domowa");
-                var ratuszowaSummary = foodCostService.calculateDailyGrossMargin(year, month, ratuszowaSellers, foodCostSellerIds, "Ratuszowa");
-                
-                // Sumuj dane z obu punktów
-                summary = foodCostService.combineDailyGrossMarginSummaries(kdSummary, ratuszowaSummary, pointOfSaleName);
+                var summaries = foodCostService.calculateDailyGrossMarginForAllPointsOfSale(year, month, foodCostSellerIds);
+                summary = summaries.values().stream()
+                        .reduce((s1, s2) -> foodCostService.combineDailyGrossMarginSummaries(s1, s2, pointOfSaleName))
+                        .orElseThrow(() -> new IllegalStateException("Brak zdefiniowanych punktów sprzedaży"));
             } else {
                 summary = foodCostService.calculateDailyGrossMargin(year, month, selectedSellers, foodCostSellerIds, pointOfSaleName);
             }
             
             System.out.println(formatter.formatDailyGrossMargin(summary));
+
+            var cacheStats = foodCostService.getFoodCostCacheStats();
+            System.out.println("ℹ️  Cache food cost: trafienia " + cacheStats.hits()
+                    + ", chybienia " + cacheStats.misses() + ", wpisów " + cacheStats.size());
         } catch (Exception e) {
             System.err.println("❌ Błąd podczas obliczania marży brutto dziennej: " + e.getMessage());
             e.printStackTrace();
@@ -663,5 +840,70 @@ public class CommandLineInterface {
             e.printStackTrace();
         }
     }
-}
 
+    private void showTopProducts() {
+        System.out.println("\n🏆 NAJLEPIEJ SPRZEDAJĄCE SIĘ PRODUKTY");
+        System.out.println("-".repeat(40));
+
+        LocalDate from = getDateInput("Data początkowa (YYYY-MM-DD): ");
+        LocalDate to = getDateInput("Data końcowa (YYYY-MM-DD): ");
+        int limit = getIntInput("Ile produktów w rankingu (np. 20): ");
+
+        System.out.println("\nRanking według:");
+        System.out.println("1. Przychodu netto");
+        System.out.println("2. Ilości");
+        System.out.println("3. Liczby rachunków");
+        TopProductsReport.Ranking ranking = switch (getIntInput("Wybierz opcję (1-3): ")) {
+            case 2 -> TopProductsReport.Ranking.QUANTITY;
+            case 3 -> TopProductsReport.Ranking.BILL_COUNT;
+            default -> TopProductsReport.Ranking.REVENUE;
+        };
+
+        try {
+            TopProductsReport report = productAnalysisService.getTopProducts(from, to, limit);
+            System.out.println(formatter.formatTopProducts(report, ranking));
+        } catch (Exception e) {
+            System.err.println("❌ Błąd podczas analizy produktów: " + e.getMessage());
+        }
+    }
+
+    private void adviseIndexes() {
+        System.out.println("\n🛠️  DORADCA INDEKSÓW (baza produkcyjna)");
+        System.out.println("-".repeat(40));
+
+        try {
+            var indexes = indexAdvisorService.inspectIndexes();
+            for (var status : indexes) {
+                var candidate = status.candidate();
+                System.out.println(String.format("%s %-8s (%s) - %s: %s",
+                        status.missing() ? "❌" : "✅",
+                        candidate.table(),
+                        String.join(", ", candidate.columns()),
+                        candidate.reason(),
+                        status.missing() ? "brak indeksu" : status.coveredBy()));
+            }
+
+            boolean create = false;
+            if (indexes.stream().anyMatch(IndexAdvisorService.IndexStatus::missing)) {
+                System.out.print("Założyć brakujące indeksy i porównać czasy? (t/n): ");
+                create = scanner.nextLine().trim().equalsIgnoreCase("t");
+            }
+
+            var report = create ? indexAdvisorService.createMissingIndexes() : indexAdvisorService.analyze();
+            if (!report.created().isEmpty()) {
+                System.out.println("\nZałożono: " + String.join(", ", report.created()));
+            }
+            for (int i = 0; i < report.before().size(); i++) {
+                var before = report.before().get(i);
+                System.out.println("\n" + before.name());
+                System.out.println(String.format("   przed: %6d ms  %s", before.millis(), before.plan()));
+                if (i < report.after().size()) {
+                    var after = report.after().get(i);
+                    System.out.println(String.format("   po:    %6d ms  %s", after.millis(), after.plan()));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Błąd doradcy indeksów: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package pl.kurs.sogaapplication.service.config;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import pl.kurs.sogaapplication.models.business.PointOfSale;
 import pl.kurs.sogaapplication.models.business.SalesCategory;
@@ -17,12 +18,25 @@ import java.util.stream.Collectors;
 @Service
 public class PointOfSaleService {
     
-    private final Map<String, PointOfSale> pointsOfSale;
+    private final RestaurantConfigService configService;
+    
+    private volatile Map<String, PointOfSale> pointsOfSale;
     
     public PointOfSaleService(RestaurantConfigService configService) {
+        this.configService = configService;
         this.pointsOfSale = initializePointsOfSale(configService);
     }
     
+    /**
+     * Po zmianie listy sprzedawców w konfiguracji przebudowuje punkty sprzedaży (Ratuszowa = wszyscy poza KD)
+     */
+    @EventListener
+    public void onConfigChanged(RestaurantConfigChangedEvent event) {
+        if (event.sellersChanged()) {
+            this.pointsOfSale = initializePointsOfSale(configService);
+        }
+    }
+    
     /**
      * Inicjalizuje punkty sprzedaży z konfiguracją
      */
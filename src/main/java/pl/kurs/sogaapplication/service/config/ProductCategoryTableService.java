@@ -0,0 +1,209 @@
+package pl.kurs.sogaapplication.service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+import pl.kurs.sogaapplication.service.snapshot.SnapshotMirrorService;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabela pomocnicza PRODUCT_CATEGORY (ID_TW, KATEGORIA) w bazie Firebirda - kategorie towarów z list
+ * restaurant.*.products wyznaczone przez ProductClassifier (przy towarze na kilku listach wygrywa
+ * reguła klasyfikatora: opakowania, dowóz, kuchnia, bufet).
+ *
+ * Zapytania kategorii w RachunekJpaRepository łączą się z tą tabelą zamiast wiązać listy ID jako IN (:productIds) -
+ * tekst zapytania jest stały (Firebird nie przygotowuje go od nowa dla każdej długości listy)
+ * i nie obowiązuje limit 1500 elementów IN.
+ *
+ * Tabela zakładana jest przy starcie, jeśli jej brakuje, i synchronizowana po każdej zmianie sekcji kategorii
+ * konfiguracji (RestaurantConfigChangedEvent). Zapis odbywa się tylko, gdy zawartość się różni.
+ * Przy spring.main.lazy-initialization=true (profil fast-start) synchronizacja startowa odbywa się w tle
+ * (wątek harmonogramu), żeby menu CLI nie czekało na JPA, pulę połączeń i bibliotekę Firebirda.
+ * Nieudana synchronizacja (także po zmianie konfiguracji) zostawia tabelę oznaczoną jako nieaktualną -
+ * ensureSynced() ponawia ją przed raportami kategorii w CLI, przed kopią analityczną i cyklicznie w tle
+ * (restaurant.category-table.retry-interval-ms).
+ * Przy włączonej kopii analitycznej tabela kopiowana jest do kopii jak słowniki (SnapshotMirrorService).
+ */
+@Service
+public class ProductCategoryTableService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCategoryTableService.class);
+
+    public static final String TABLE = "PRODUCT_CATEGORY";
+
+    private final JdbcTemplate jdbc;
+    // Menedżer transakcji (EntityManagerFactory) pobierany dopiero przy zapisie
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final RestaurantConfigService configService;
+    private final ObjectProvider<SnapshotMirrorService> snapshotMirrorService;
+
+    @Value("${spring.main.lazy-initialization:false}")
+    private boolean lazyInitialization;
+
+    private volatile boolean synced;
+
+    public ProductCategoryTableService(DataSource dataSource,
+                                       ObjectProvider<PlatformTransactionManager> transactionManager,
+                                       RestaurantConfigService configService,
+                                       ObjectProvider<SnapshotMirrorService> snapshotMirrorService) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.transactionManager = transactionManager;
+        this.configService = configService;
+        this.snapshotMirrorService = snapshotMirrorService;
+    }
+
+    /**
+     * Synchronizacja przy starcie bez leniwej inicjalizacji - przed menu CLI. Bez tabeli raporty kategorii
+     * byłyby zerowe, dlatego błąd zatrzymuje start.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void syncOnStartup() {
+        if (lazyInitialization) {
+            return;
+        }
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Nie można przygotować tabeli " + TABLE + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Synchronizacja w tle: zaraz po starcie kontekstu (przy leniwej inicjalizacji to pierwsza synchronizacja),
+     * potem ponawianie, dopóki tabela nie jest zgodna z bieżącą konfiguracją. Gdy jest - nie odpytuje bazy.
+     */
+    @Scheduled(fixedDelayString = "${restaurant.category-table.retry-interval-ms:60000}", initialDelay = 0)
+    public void syncInBackground() {
+        try {
+            ensureSynced();
+        } catch (RuntimeException e) {
+            logger.warn("Nie udało się zsynchronizować tabeli {} (ponowienie w tle): {}", TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Zakłada i synchronizuje tabelę, jeśli w tym uruchomieniu nie została jeszcze zsynchronizowana
+     * z bieżącą konfiguracją (albo ostatnia synchronizacja się nie udała). Czeka na synchronizację
+     * trwającą w innym wątku. Wywoływać poza transakcją - zapis potrzebuje połączenia produkcyjnego.
+     */
+    public void ensureSynced() {
+        if (!synced) {
+            synchronized (this) {
+                if (!synced) {
+                    sync();
+                }
+            }
+        }
+    }
+
+    /**
+     * Po zmianie sekcji kategorii zapisuje nowe przypisania i odświeża kopię analityczną (jeśli włączona).
+     */
+    @EventListener
+    public void onConfigChanged(RestaurantConfigChangedEvent event) {
+        if (!event.categoriesChanged()) {
+            return;
+        }
+        // Do udanej synchronizacji tabela jest nieaktualna - ensureSynced() ją ponowi
+        synced = false;
+        try {
+            if (sync()) {
+                SnapshotMirrorService mirror = snapshotMirrorService.getIfAvailable();
+                if (mirror != null) {
+                    mirror.refresh();
+                }
+            }
+        } catch (RuntimeException | SQLException e) {
+            logger.warn("Nie udało się zsynchronizować tabeli {} z konfiguracją w wersji {}: {}",
+                    TABLE, event.current().version(), e.getMessage());
+        }
+    }
+
+    /**
+     * Zapisuje przypisania kategorii bieżącej konfiguracji.
+     *
+     * @return true, jeśli zawartość tabeli została zmieniona
+     */
+    public synchronized boolean sync() {
+        try {
+            return syncTable();
+        } catch (RuntimeException e) {
+            synced = false;
+            throw e;
+        }
+    }
+
+    private boolean syncTable() {
+        long categoriesVersion = configService.getVersion().categories();
+        ensureTable();
+
+        Map<Long, String> expected = expectedCategories();
+        Map<Long, String> current = new HashMap<>();
+        jdbc.query("SELECT ID_TW, KATEGORIA FROM " + TABLE, rs -> {
+            current.put(rs.getLong(1), rs.getString(2).trim());
+        });
+        if (current.equals(expected)) {
+            synced = true;
+            return false;
+        }
+
+        List<Object[]> rows = new ArrayList<>(expected.size());
+        expected.forEach((towarId, category) -> rows.add(new Object[] {towarId, category}));
+        new TransactionTemplate(transactionManager.getObject()).executeWithoutResult(status -> {
+            jdbc.update("DELETE FROM " + TABLE);
+            jdbc.batchUpdate("INSERT INTO " + TABLE + " (ID_TW, KATEGORIA) VALUES (?, ?)", rows);
+        });
+        logger.info("Tabela {} zsynchronizowana z konfiguracją (kategorie w wersji {}): {} towarów",
+                TABLE, categoriesVersion, rows.size());
+        synced = true;
+        return true;
+    }
+
+    /**
+     * Kategoria każdego towaru z list konfiguracji według klasyfikatora (reguły grup nie są zapisywane -
+     * zapytania po grupach bufetu filtrują ID_GR i pomijają towary obecne w tabeli).
+     */
+    private Map<Long, String> expectedCategories() {
+        ProductClassifier classifier = configService.getProductClassifier();
+        Map<Long, String> categories = new HashMap<>();
+        List<List<Long>> lists = List.of(
+                configService.getPackagingProducts(),
+                configService.getDeliveryProducts(),
+                configService.getKitchenProducts(),
+                configService.getBuffetProducts());
+        for (List<Long> products : lists) {
+            for (Long towarId : products) {
+                ProductCategory category = classifier.classify(towarId, null);
+                if (category != ProductCategory.UNDEFINED) {
+                    categories.put(towarId, category.getCode());
+                }
+            }
+        }
+        return categories;
+    }
+
+    private void ensureTable() {
+        Integer exists = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM RDB$RELATIONS WHERE RDB$RELATION_NAME = ?", Integer.class, TABLE);
+        if (exists != null && exists > 0) {
+            return;
+        }
+        jdbc.execute("CREATE TABLE " + TABLE + " (ID_TW BIGINT NOT NULL PRIMARY KEY, KATEGORIA VARCHAR(16) NOT NULL)");
+        logger.info("Założono tabelę {}", TABLE);
+    }
+}
@@ -0,0 +1,133 @@
+package pl.kurs.sogaapplication.service.config;
+
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Niezmienny, prekompilowany klasyfikator kategorii towarów (ID_TW / ID_GR).
+ * Budowany raz z konfiguracji (RestaurantConfigService) i współdzielony przez wszystkie analizy -
+ * sprawdzenie przynależności to odczyt bitu zamiast List.contains po ~140 elementach.
+ *
+ * Kolejność reguł (pierwsza pasująca wygrywa):
+ * opakowania (produkty), dowóz (produkty), kuchnia (produkty), bufet (produkty), bufet (grupy).
+ * Towar bez ID_TW lub niepasujący do żadnej reguły to UNDEFINED.
+ */
+public final class ProductClassifier {
+
+    private final IdSet kitchenProducts;
+    private final IdSet buffetProducts;
+    private final IdSet packagingProducts;
+    private final IdSet deliveryProducts;
+    private final IdSet kitchenGroups;
+    private final IdSet buffetGroups;
+
+    private final List<Rule> rules;
+
+    /**
+     * Jedna reguła klasyfikacji - produkty albo grupy przypisane do kategorii.
+     */
+    private record Rule(ProductCategory category, IdSet ids, boolean byGroup) {
+
+        boolean matches(long towarId, Integer towarGrupa) {
+            if (byGroup) {
+                return towarGrupa != null && ids.contains(towarGrupa);
+            }
+            return ids.contains(towarId);
+        }
+    }
+
+    public ProductClassifier(Collection<Long> kitchenProducts,
+                             Collection<Long> buffetProducts,
+                             Collection<Integer> buffetGroups,
+                             Collection<Long> packagingProducts,
+                             Collection<Long> deliveryProducts,
+                             Collection<Integer> kitchenGroups) {
+        this.kitchenProducts = IdSet.of(kitchenProducts);
+        this.buffetProducts = IdSet.of(buffetProducts);
+        this.packagingProducts = IdSet.of(packagingProducts);
+        this.deliveryProducts = IdSet.of(deliveryProducts);
+        this.kitchenGroups = IdSet.of(kitchenGroups);
+        this.buffetGroups = IdSet.of(buffetGroups);
+
+        this.rules = List.of(
+                new Rule(ProductCategory.PACKAGING, this.packagingProducts, false),
+                new Rule(ProductCategory.DELIVERY, this.deliveryProducts, false),
+                new Rule(ProductCategory.KITCHEN, this.kitchenProducts, false),
+                new Rule(ProductCategory.BUFFET, this.buffetProducts, false),
+                new Rule(ProductCategory.BUFFET, this.buffetGroups, true)
+        );
+    }
+
+    /**
+     * Określa kategorię pozycji na podstawie ID_TW i ID_GR.
+     */
+    public ProductCategory classify(Long towarId, Integer towarGrupa) {
+        if (towarId == null) {
+            return ProductCategory.UNDEFINED;
+        }
+        long id = towarId;
+        for (Rule rule : rules) {
+            if (rule.matches(id, towarGrupa)) {
+                return rule.category();
+            }
+        }
+        return ProductCategory.UNDEFINED;
+    }
+
+    public boolean isKitchenProduct(Long productId) {
+        return productId != null && kitchenProducts.contains(productId);
+    }
+
+    public boolean isKitchenGroup(Integer groupId) {
+        return groupId != null && kitchenGroups.contains(groupId);
+    }
+
+    public boolean isBuffetGroup(Integer groupId) {
+        return groupId != null && buffetGroups.contains(groupId);
+    }
+
+    /**
+     * Zbiór identyfikatorów: BitSet dla typowych ID (0..MAX_BITSET_ID), posortowana tablica dla pozostałych.
+     */
+    private static final class IdSet {
+
+        // ID_TW/ID_GR w bazie to kilka tysięcy - bitset do 1M zajmuje najwyżej 128 KB
+        private static final long MAX_BITSET_ID = 1 << 20;
+
+        private final BitSet bits;
+        private final long[] others;
+
+        private IdSet(BitSet bits, long[] others) {
+            this.bits = bits;
+            this.others = others;
+        }
+
+        static IdSet of(Collection<? extends Number> ids) {
+            var bits = new BitSet();
+            long[] others = ids.stream()
+                    .mapToLong(Number::longValue)
+                    .filter(id -> id < 0 || id > MAX_BITSET_ID)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            for (Number id : ids) {
+                long value = id.longValue();
+                if (value >= 0 && value <= MAX_BITSET_ID) {
+                    bits.set((int) value);
+                }
+            }
+            return new IdSet(bits, others);
+        }
+
+        boolean contains(long id) {
+            if (id >= 0 && id <= MAX_BITSET_ID) {
+                return bits.get((int) id);
+            }
+            return others.length > 0 && Arrays.binarySearch(others, id) >= 0;
+        }
+    }
+}
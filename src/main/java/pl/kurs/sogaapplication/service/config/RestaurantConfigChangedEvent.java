@@ -0,0 +1,21 @@
+package pl.kurs.sogaapplication.service.config;
+
+/**
+ * Zdarzenie publikowane po wczytaniu nowej wersji konfiguracji restauracji.
+ * Odbiorcy sprawdzają, które sekcje się zmieniły, i unieważniają tylko zależne od nich dane.
+ */
+public record RestaurantConfigChangedEvent(RestaurantConfigService.ConfigVersion previous,
+                                           RestaurantConfigService.ConfigVersion current) {
+
+    public boolean categoriesChanged() {
+        return previous.categories() != current.categories();
+    }
+
+    public boolean warehousesChanged() {
+        return previous.warehouses() != current.warehouses();
+    }
+
+    public boolean sellersChanged() {
+        return previous.sellers() != current.sellers();
+    }
+}
@@ -1,20 +1,34 @@
 package pl.kurs.sogaapplication.service.config;
 
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Properties;
+import java.util.function.Function;
 
 /**
  * Serwis konfiguracyjny dla restauracji
  * Zarządza konfiguracją grup towarów, sprzedawców itp.
+ * Wartości z application.properties mogą być nadpisane plikiem restaurant.config.file - po jego zmianie
+ * konfiguracja jest walidowana i publikowana jako nowa wersja (RestaurantConfigChangedEvent).
  */
 @Service
 public class RestaurantConfigService {
     
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantConfigService.class);
+    
     @Value("${restaurant.kitchen.groups}")
     private String kitchenGroupsConfig;
 
@@ -57,11 +71,212 @@ public class RestaurantConfigService {
     @Value("${restaurant.sellers.all}")
     private String allSellersConfig;
     
+    /**
+     * Opcjonalny plik z nadpisaniami kluczy restaurant.* (format .properties).
+     * Obserwowany przez RestaurantConfigWatcher - zmiany wchodzą bez restartu aplikacji.
+     */
+    @Value("${restaurant.config.file:}")
+    private String overrideFile;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RestaurantConfigService(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Wersja konfiguracji: numer globalny i numery sekcji. Numer sekcji rośnie tylko wtedy,
+     * gdy zmieniły się jej wartości - cache zależne od kategorii nie są unieważniane np. przez zmianę sprzedawców.
+     */
+    public record ConfigVersion(long version, long categories, long warehouses, long sellers) {
+    }
+
+    /**
+     * Konfiguracja sparsowana raz (niezmienne listy + klasyfikator) - podmieniana atomowo w całości.
+     */
+    private record Settings(List<Integer> kitchenGroups,
+                            List<Long> kitchenProducts,
+                            List<Long> buffetProducts,
+                            List<Integer> buffetGroups,
+                            List<Long> packagingProducts,
+                            List<Long> deliveryProducts,
+                            List<Integer> kitchenWarehouses,
+                            List<Integer> buffetWarehouses,
+                            List<Integer> costWarehouses,
+                            List<Integer> defaultSellers,
+                            List<Integer> allSellers,
+                            ProductClassifier productClassifier,
+                            ConfigVersion version) {
+
+        boolean sameCategories(Settings other) {
+            return kitchenGroups.equals(other.kitchenGroups)
+                    && kitchenProducts.equals(other.kitchenProducts)
+                    && buffetProducts.equals(other.buffetProducts)
+                    && buffetGroups.equals(other.buffetGroups)
+                    && packagingProducts.equals(other.packagingProducts)
+                    && deliveryProducts.equals(other.deliveryProducts);
+        }
+
+        boolean sameWarehouses(Settings other) {
+            return kitchenWarehouses.equals(other.kitchenWarehouses)
+                    && buffetWarehouses.equals(other.buffetWarehouses)
+                    && costWarehouses.equals(other.costWarehouses);
+        }
+
+        boolean sameSellers(Settings other) {
+            return defaultSellers.equals(other.defaultSellers)
+                    && allSellers.equals(other.allSellers);
+        }
+    }
+
+    private volatile Settings settings;
+
+    /**
+     * Buduje konfigurację przy starcie. Błędna konfiguracja (także w pliku nadpisań) zatrzymuje start aplikacji.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        try {
+            settings = load(null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Nie można odczytać pliku konfiguracji " + overrideFile, e);
+        }
+        logger.info("Konfiguracja restauracji załadowana (wersja {})", settings.version().version());
+    }
+
+    /**
+     * Ponownie wczytuje konfigurację (application.properties + plik nadpisań), waliduje ją i publikuje
+     * jako nową niezmienną wersję wraz z RestaurantConfigChangedEvent.
+     * Przy błędzie walidacji zostaje poprzednia wersja.
+     *
+     * @return true, jeśli opublikowano nową wersję
+     */
+    public synchronized boolean reload() {
+        Settings previous = settings;
+        Settings loaded;
+        try {
+            loaded = load(previous);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Odrzucono zmianę konfiguracji restauracji, zostaje wersja {}: {}",
+                    previous.version().version(), e.getMessage());
+            return false;
+        }
+        if (loaded.version().equals(previous.version())) {
+            return false;
+        }
+        settings = loaded;
+        logger.info("Opublikowano konfigurację restauracji w wersji {} (kategorie: {}, magazyny: {}, sprzedawcy: {})",
+                loaded.version().version(), loaded.version().categories(),
+                loaded.version().warehouses(), loaded.version().sellers());
+        eventPublisher.publishEvent(new RestaurantConfigChangedEvent(previous.version(), loaded.version()));
+        return true;
+    }
+
+    /**
+     * Zwraca bieżącą wersję konfiguracji
+     */
+    public ConfigVersion getVersion() {
+        return settings.version();
+    }
+
+    public String getOverrideFile() {
+        return overrideFile;
+    }
+
+    private Settings load(Settings previous) throws IOException {
+        Properties overrides = readOverrides();
+
+        var kitchenGroups = parseIntIds("restaurant.kitchen.groups", overrides, kitchenGroupsConfig);
+        var kitchenProducts = parseLongIds("restaurant.kitchen.products", overrides, kitchenProductsConfig);
+        var buffetProducts = parseLongIds("restaurant.buffet.products", overrides, buffetProductsConfig);
+        var buffetGroups = parseIntIds("restaurant.buffet.groups", overrides, buffetGroupsConfig);
+        var packagingProducts = parseLongIds("restaurant.packaging.products", overrides, packagingProductsConfig);
+        var deliveryProducts = parseLongIds("restaurant.delivery.products", overrides, deliveryProductsConfig);
+        var defaultSellers = parseIntIds("restaurant.sellers.default", overrides, defaultSellersConfig);
+        var allSellers = parseIntIds("restaurant.sellers.all", overrides, allSellersConfig);
+
+        if (allSellers.isEmpty()) {
+            throw new IllegalArgumentException("restaurant.sellers.all nie może być puste");
+        }
+        if (!allSellers.containsAll(defaultSellers)) {
+            throw new IllegalArgumentException("restaurant.sellers.default zawiera sprzedawców spoza restaurant.sellers.all");
+        }
+
+        var candidate = new Settings(
+                kitchenGroups,
+                kitchenProducts,
+                buffetProducts,
+                buffetGroups,
+                packagingProducts,
+                deliveryProducts,
+                parseIntIds("restaurant.warehouses.kitchen", overrides, kitchenWarehousesConfig),
+                parseIntIds("restaurant.warehouses.buffet", overrides, buffetWarehousesConfig),
+                parseIntIds("restaurant.warehouses.costs", overrides, costsWarehousesConfig),
+                defaultSellers,
+                allSellers,
+                new ProductClassifier(kitchenProducts, buffetProducts, buffetGroups,
+                        packagingProducts, deliveryProducts, kitchenGroups),
+                new ConfigVersion(1, 1, 1, 1));
+        if (previous == null) {
+            return candidate;
+        }
+
+        // Numery sekcji rosną tylko przy faktycznej zmianie wartości
+        ConfigVersion prev = previous.version();
+        long categories = candidate.sameCategories(previous) ? prev.categories() : prev.categories() + 1;
+        long warehouses = candidate.sameWarehouses(previous) ? prev.warehouses() : prev.warehouses() + 1;
+        long sellers = candidate.sameSellers(previous) ? prev.sellers() : prev.sellers() + 1;
+        boolean changed = categories != prev.categories() || warehouses != prev.warehouses() || sellers != prev.sellers();
+        if (!changed) {
+            return previous;
+        }
+
+        // Klasyfikator budujemy od nowa tylko przy zmianie kategorii
+        ProductClassifier classifier = categories != prev.categories()
+                ? candidate.productClassifier()
+                : previous.productClassifier();
+        return new Settings(
+                candidate.kitchenGroups(),
+                candidate.kitchenProducts(),
+                candidate.buffetProducts(),
+                candidate.buffetGroups(),
+                candidate.packagingProducts(),
+                candidate.deliveryProducts(),
+                candidate.kitchenWarehouses(),
+                candidate.buffetWarehouses(),
+                candidate.costWarehouses(),
+                candidate.defaultSellers(),
+                candidate.allSellers(),
+                classifier,
+                new ConfigVersion(prev.version() + 1, categories, warehouses, sellers));
+    }
+
+    private Properties readOverrides() throws IOException {
+        var overrides = new Properties();
+        if (overrideFile == null || overrideFile.isBlank()) {
+            return overrides;
+        }
+        Path path = Path.of(overrideFile);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                overrides.load(reader);
+            }
+        }
+        return overrides;
+    }
+
+    /**
+     * Zwraca współdzielony klasyfikator kategorii towarów dla bieżącej konfiguracji
+     */
+    public ProductClassifier getProductClassifier() {
+        return settings.productClassifier();
+    }
+
     /**
      * Zwraca listę ID grup towarów kuchennych
      */
     public List<Integer> getKitchenGroups() {
-        return parseIntIds(kitchenGroupsConfig);
+        return settings.kitchenGroups();
     }
 
     /**
@@ -69,73 +284,73 @@ public class RestaurantConfigService {
      * Jeśli konfiguracja jest pusta, zwraca pustą listę.
      */
     public List<Long> getKitchenProducts() {
-        return parseLongIds(kitchenProductsConfig);
+        return settings.kitchenProducts();
     }
 
     public List<Long> getBuffetProducts() {
-        return parseLongIds(buffetProductsConfig);
+        return settings.buffetProducts();
     }
 
     /**
      * Zwraca listę grup bufetowych (ID_GR), jeśli są skonfigurowane.
      */
     public List<Integer> getBuffetGroups() {
-        return parseIntIds(buffetGroupsConfig);
+        return settings.buffetGroups();
     }
 
     public List<Long> getPackagingProducts() {
-        return parseLongIds(packagingProductsConfig);
+        return settings.packagingProducts();
     }
 
     public List<Long> getDeliveryProducts() {
-        return parseLongIds(deliveryProductsConfig);
+        return settings.deliveryProducts();
     }
 
     public List<Integer> getKitchenWarehouses() {
-        return parseIntIds(kitchenWarehousesConfig);
+        return settings.kitchenWarehouses();
     }
 
     public List<Integer> getBuffetWarehouses() {
-        return parseIntIds(buffetWarehousesConfig);
+        return settings.buffetWarehouses();
     }
 
     public List<Integer> getCostWarehouses() {
-        return parseIntIds(costsWarehousesConfig);
+        return settings.costWarehouses();
     }
     
     /**
      * Zwraca listę ID domyślnych sprzedawców
      */
     public List<Integer> getDefaultSellers() {
-        return parseIntIds(defaultSellersConfig);
+        return settings.defaultSellers();
     }
     
     /**
      * Zwraca listę ID wszystkich sprzedawców
      */
     public List<Integer> getAllSellers() {
-        return parseIntIds(allSellersConfig);
+        return settings.allSellers();
     }
     
     /**
      * Sprawdza czy dana grupa towaru należy do kuchni
      */
     public boolean isKitchenGroup(Integer groupId) {
-        return getKitchenGroups().contains(groupId);
+        return getProductClassifier().isKitchenGroup(groupId);
     }
 
     /**
      * Sprawdza czy dana grupa towaru należy do bufetu.
      */
     public boolean isBuffetGroup(Integer groupId) {
-        return getBuffetGroups().contains(groupId);
+        return getProductClassifier().isBuffetGroup(groupId);
     }
 
     /**
      * Sprawdza czy dany towar (ID_TW) należy do kuchni.
      */
     public boolean isKitchenProduct(Long productId) {
-        return getKitchenProducts().contains(productId);
+        return getProductClassifier().isKitchenProduct(productId);
     }
     
     /**
@@ -145,31 +360,26 @@ public class RestaurantConfigService {
         return getDefaultSellers().contains(sellerId);
     }
 
-    private List<Integer> parseIntIds(String config) {
-        if (config == null || config.isBlank()) {
-            return Collections.emptyList();
-        }
-        return Arrays.stream(config.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(Integer::parseInt)
-                .collect(Collectors.toList());
+    private List<Integer> parseIntIds(String key, Properties overrides, String defaultValue) {
+        return parseIds(key, overrides.getProperty(key, defaultValue), Integer::parseInt);
     }
 
-    private List<Long> parseLongIds(String config) {
+    private List<Long> parseLongIds(String key, Properties overrides, String defaultValue) {
+        return parseIds(key, overrides.getProperty(key, defaultValue), Long::parseLong);
+    }
+
+    private static <T> List<T> parseIds(String key, String config, Function<String, T> parser) {
         if (config == null || config.isBlank()) {
             return Collections.emptyList();
         }
-        return Arrays.stream(config.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(Long::parseLong)
-                .collect(Collectors.toList());
+        try {
+            return Arrays.stream(config.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .map(parser)
+                    .toList();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nieprawidłowa lista ID w " + key + ": " + e.getMessage(), e);
+        }
     }
 }
-
-
-
-
-
- 
\ No newline at end of file
@@ -0,0 +1,73 @@
+package pl.kurs.sogaapplication.service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * Obserwuje plik restaurant.config.file (czas modyfikacji i rozmiar) i po zmianie wywołuje
+ * RestaurantConfigService.reload(). Nowy towar w menu nie wymaga już restartu JVM.
+ *
+ * Włączany przez restaurant.config.watch.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "restaurant.config.watch.enabled", havingValue = "true")
+public class RestaurantConfigWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantConfigWatcher.class);
+
+    private final RestaurantConfigService configService;
+
+    private FileTime lastModified;
+    private long lastSize = -1;
+
+    public RestaurantConfigWatcher(RestaurantConfigService configService) {
+        this.configService = configService;
+        remember(currentState());
+    }
+
+    private record FileState(FileTime modified, long size) {
+    }
+
+    @Scheduled(fixedDelayString = "${restaurant.config.watch.interval-ms:2000}",
+            initialDelayString = "${restaurant.config.watch.interval-ms:2000}")
+    public void checkForChanges() {
+        FileState state = currentState();
+        if (Objects.equals(state.modified(), lastModified) && state.size() == lastSize) {
+            return;
+        }
+        remember(state);
+        logger.info("Zmiana pliku konfiguracji {} - wczytuję ponownie", configService.getOverrideFile());
+        configService.reload();
+    }
+
+    private void remember(FileState state) {
+        lastModified = state.modified();
+        lastSize = state.size();
+    }
+
+    private FileState currentState() {
+        String file = configService.getOverrideFile();
+        if (file == null || file.isBlank()) {
+            return new FileState(null, -1);
+        }
+        Path path = Path.of(file);
+        try {
+            if (!Files.exists(path)) {
+                return new FileState(null, -1);
+            }
+            return new FileState(Files.getLastModifiedTime(path), Files.size(path));
+        } catch (IOException e) {
+            logger.warn("Nie można odczytać atrybutów pliku konfiguracji {}: {}", file, e.getMessage());
+            return new FileState(lastModified, lastSize);
+        }
+    }
+}
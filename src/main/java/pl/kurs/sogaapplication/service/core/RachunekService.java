@@ -2,15 +2,18 @@ package pl.kurs.sogaapplication.service.core;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.kurs.sogaapplication.models.BillView;
 import pl.kurs.sogaapplication.models.Rachunek;
 import pl.kurs.sogaapplication.models.SellerKey;
 import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Podstawowy serwis do operacji na rachunkach (CRUD)
@@ -20,9 +23,11 @@ import java.util.stream.Collectors;
 public class RachunekService {
 
     private final RachunekJpaRepository repo;
+    private final SalesJdbcRepository salesJdbcRepository;
 
-    public RachunekService(RachunekJpaRepository repo) {
+    public RachunekService(RachunekJpaRepository repo, SalesJdbcRepository salesJdbcRepository) {
         this.repo = repo;
+        this.salesJdbcRepository = salesJdbcRepository;
     }
 
     @Transactional(readOnly = true)
@@ -75,19 +80,17 @@ public class RachunekService {
         return repo.liczbaRachunkowBySellers(from, to, sellerIds);
     }
 
+    /**
+     * Rachunki z okresu [from, to] pogrupowane po sprzedawcy - jako BillView, bez ładowania encji
+     * (nazwa sprzedawcy pochodzi z zapytania, nie z proxy użytkownika).
+     */
     @Transactional(readOnly = true)
-    public Map<SellerKey, List<Rachunek>> groupBySeller(LocalDate from, LocalDate to) {
-        List<Rachunek> rachunki = findByDateRange(from, to);
-        return rachunki.stream()
-                .collect(Collectors.groupingBy(rachunek -> {
-                    var uzytkownik = rachunek.getUzytkownik();
-                    Integer id = (uzytkownik instanceof org.hibernate.proxy.HibernateProxy proxy)
-                            ? (Integer) proxy.getHibernateLazyInitializer().getIdentifier()
-                            : uzytkownik.getId();
-                    String nazwa = org.hibernate.Hibernate.isInitialized(uzytkownik) 
-                            ? uzytkownik.getNazwaUzytkownika() : null;
-                    return new SellerKey(id, nazwa);
-                }));
+    public Map<SellerKey, List<BillView>> groupBySeller(LocalDate from, LocalDate to) {
+        Map<SellerKey, List<BillView>> bySeller = new LinkedHashMap<>();
+        salesJdbcRepository.forEachBill(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), bill -> bySeller
+                .computeIfAbsent(new SellerKey(bill.sellerId(), bill.sellerName()), key -> new ArrayList<>())
+                .add(bill));
+        return bySeller;
     }
 
     @Transactional
@@ -5,11 +5,14 @@ import pl.kurs.sogaapplication.dto.DailyGrossMarginDto;
 import pl.kurs.sogaapplication.dto.DokumentZakupuDto;
 import pl.kurs.sogaapplication.dto.FoodCostSummary;
 import pl.kurs.sogaapplication.dto.KitchenPurchasesSummary;
+import pl.kurs.sogaapplication.dto.ProductSalesDto;
 import pl.kurs.sogaapplication.dto.RestaurantReportDto;
 import pl.kurs.sogaapplication.dto.SalesItemDetailDto;
+import pl.kurs.sogaapplication.dto.TopProductsReport;
 import pl.kurs.sogaapplication.models.ObrotSprzedawcyGodzina;
 import pl.kurs.sogaapplication.models.Pozycja;
 import pl.kurs.sogaapplication.models.Rachunek;
+import pl.kurs.sogaapplication.service.analysis.SalesCube;
 import pl.kurs.sogaapplication.service.core.RachunekService;
 
 import java.math.BigDecimal;
@@ -512,6 +515,139 @@ public class ReportFormatter {
         return sb.toString();
     }
     
+    /**
+     * Formatuje mapę cieplną dzień tygodnia × godzina z kostki sprzedaży.
+     * Wiersze od poniedziałku, kolumny tylko godziny z jakąkolwiek wartością; odcień komórki względem maksimum.
+     *
+     * @param grid siatka [0..6][0..23] (0 = niedziela), kwoty w skali SalesCube.SCALE albo liczby rachunków
+     */
+    public String formatSalesHeatmap(String title, long[][] grid, SalesCube.Measure measure) {
+        StringBuilder sb = new StringBuilder();
+        String[] dni = {"Nd", "Pn", "Wt", "Śr", "Cz", "Pt", "Sb"};
+        int[] kolejnosc = {1, 2, 3, 4, 5, 6, 0};
+        char[] odcienie = {'·', '░', '▒', '▓', '█'};
+
+        sb.append("🔥 MAPA CIEPLNA: ").append(title).append("\n");
+        sb.append("=".repeat(80)).append("\n");
+
+        long max = 0;
+        boolean[] activeHours = new boolean[SalesCube.HOURS];
+        for (long[] row : grid) {
+            for (int h = 0; h < SalesCube.HOURS; h++) {
+                if (row[h] != 0) {
+                    activeHours[h] = true;
+                    max = Math.max(max, row[h]);
+                }
+            }
+        }
+        if (max == 0) {
+            sb.append("Brak sprzedaży w wybranym przekroju\n");
+            return sb.toString();
+        }
+
+        sb.append("    ");
+        for (int h = 0; h < SalesCube.HOURS; h++) {
+            if (activeHours[h]) {
+                sb.append(String.format("%3d", h));
+            }
+        }
+        sb.append(String.format("  %14s\n", "Razem"));
+
+        long[] hourTotals = new long[SalesCube.HOURS];
+        long total = 0;
+        for (int dzien : kolejnosc) {
+            sb.append(String.format("%-4s", dni[dzien]));
+            long dayTotal = 0;
+            for (int h = 0; h < SalesCube.HOURS; h++) {
+                if (!activeHours[h]) {
+                    continue;
+                }
+                long value = grid[dzien][h];
+                int shade = value <= 0 ? 0 : (int) Math.min(odcienie.length - 1, 1 + (value * 4 - 1) / max);
+                sb.append("  ").append(odcienie[shade]);
+                dayTotal += value;
+                hourTotals[h] += value;
+            }
+            sb.append(String.format("  %14s\n", formatMeasure(dayTotal, measure)));
+            total += dayTotal;
+        }
+
+        sb.append("-".repeat(80)).append("\n");
+        int peakHour = 0;
+        for (int h = 1; h < SalesCube.HOURS; h++) {
+            if (hourTotals[h] > hourTotals[peakHour]) {
+                peakHour = h;
+            }
+        }
+        sb.append(String.format("Razem: %s, szczyt: %02d:00 (%s), max komórka: %s\n",
+                formatMeasure(total, measure), peakHour, formatMeasure(hourTotals[peakHour], measure),
+                formatMeasure(max, measure)));
+        sb.append("Legenda: · brak, ░ do 25%, ▒ do 50%, ▓ do 75%, █ powyżej 75% maksimum\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Formatuje ranking produktów - tabela top N dla każdego punktu sprzedaży i kategorii.
+     */
+    public String formatTopProducts(TopProductsReport report, TopProductsReport.Ranking ranking) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("🏆 NAJLEPIEJ SPRZEDAJĄCE SIĘ PRODUKTY (top %d, %s)\n", report.limit(), ranking.getLabel()));
+        sb.append("=".repeat(100)).append("\n");
+        sb.append(String.format("📅 Okres: %s - %s\n",
+                report.from().format(DATE_FORMAT),
+                report.to().format(DATE_FORMAT)));
+
+        if (report.sections().isEmpty()) {
+            sb.append("\nBrak sprzedaży w wybranym okresie\n");
+            return sb.toString();
+        }
+
+        String currentPoint = null;
+        for (TopProductsReport.Section section : report.sections()) {
+            if (!section.pointOfSaleId().equals(currentPoint)) {
+                currentPoint = section.pointOfSaleId();
+                sb.append("\n🏪 ").append(section.pointOfSaleName().toUpperCase()).append("\n");
+                sb.append("=".repeat(100)).append("\n");
+            }
+            sb.append(String.format("\n📦 %s - %d towarów, przychód netto %s\n",
+                    section.category().getCode(), section.productCount(),
+                    CURRENCY_FORMAT.format(section.totalRevenue())));
+            sb.append(String.format("%-4s %-8s %-40s %10s %12s %16s %8s\n",
+                    "Lp.", "ID_TW", "Nazwa", "Rachunki", "Ilość", "Przychód netto", "Udział"));
+            sb.append("-".repeat(100)).append("\n");
+
+            int lp = 1;
+            for (ProductSalesDto product : section.ranking(ranking)) {
+                String udzial = section.totalRevenue().signum() == 0
+                        ? "-"
+                        : NUMBER_FORMAT.format(product.przychodNetto()
+                                .multiply(BigDecimal.valueOf(100))
+                                .divide(section.totalRevenue(), 2, RoundingMode.HALF_UP)) + "%";
+                String nazwa = product.towarNazwa() != null ? product.towarNazwa() : "(brak towaru)";
+                if (nazwa.length() > 40) {
+                    nazwa = nazwa.substring(0, 37) + "...";
+                }
+                sb.append(String.format("%-4d %-8s %-40s %10d %12s %16s %8s\n",
+                        lp++,
+                        product.towarId() != null ? product.towarId() : "-",
+                        nazwa,
+                        product.liczbaRachunkow(),
+                        NUMBER_FORMAT.format(product.ilosc()),
+                        CURRENCY_FORMAT.format(product.przychodNetto()),
+                        udzial));
+            }
+        }
+        sb.append("=".repeat(100)).append("\n");
+
+        return sb.toString();
+    }
+
+    private static String formatMeasure(long value, SalesCube.Measure measure) {
+        return measure.isMoney() ? CURRENCY_FORMAT.format(SalesCube.toAmount(value)) : String.valueOf(value);
+    }
+
     /**
      * Formatuje podsumowanie roczne
      */
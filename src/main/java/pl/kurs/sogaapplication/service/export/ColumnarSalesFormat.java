@@ -0,0 +1,127 @@
+package pl.kurs.sogaapplication.service.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Wspólne elementy binarnego formatu kolumnowego pozycji sprzedaży (.sogacol).
+ *
+ * Układ pliku:
+ * <pre>
+ * "SOGACOL1" | int wersja | long od (epoch day) | long do (epoch day)
+ * porcja*: int liczbaWierszy | kolumna* (int długośćSkompresowana | int długośćSurowa | bajty Deflate)
+ * int 0 (koniec)
+ * </pre>
+ * Kolumny porcji w kolejności COLUMN_*: ID rachunku i czas (delta + zigzag varint), sprzedawca, towar i grupa
+ * (słownik porcji + kody varint, kod 0 = brak wartości), ilość i wartość netto (skala porcji + zigzag varint),
+ * kategoria (1 bajt - ordinal ProductCategory).
+ */
+final class ColumnarSalesFormat {
+
+    static final byte[] MAGIC = "SOGACOL1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int CHUNK_ROWS = 65_536;
+    /** Największa skala kolumn ilości i wartości (wartości nieskalowane mieszczą się w long). */
+    static final int MAX_SCALE = 18;
+    /** Najdłuższy varint long w bajtach. */
+    static final int MAX_VARINT_BYTES = 10;
+
+    private ColumnarSalesFormat() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeSignedVarLong(ByteArrayOutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static byte[] compress(byte[] raw) {
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] decompress(byte[] compressed, int rawLength) throws IOException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != rawLength) {
+                throw new IOException("Uszkodzona kolumna: oczekiwano " + rawLength + " bajtów, odczytano " + offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Uszkodzona kolumna (Deflate)", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Sekwencyjny odczyt varintów z tablicy bajtów kolumny.
+     */
+    static final class ByteReader {
+
+        private final byte[] data;
+        private int position;
+
+        ByteReader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("Nieoczekiwany koniec kolumny");
+            }
+            return data[position++];
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            int shift = 0;
+            while (shift < 64) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+            throw new IOException("Nieprawidłowy varint");
+        }
+
+        long readSignedVarLong() throws IOException {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package pl.kurs.sogaapplication.service.export;
+
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Odczyt pliku kolumnowego (.sogacol) zapisanego przez ColumnarSalesWriter do SalesFacts.
+ * Historia sprzedaży z pliku ładuje się bez zapytań do Firebirda.
+ */
+public final class ColumnarSalesReader {
+
+    private ColumnarSalesReader() {
+    }
+
+    /**
+     * Wczytuje cały plik. Kolumny ilości i wartości są sprowadzane do największej skali spośród porcji.
+     *
+     * @throws IOException przy błędzie odczytu albo nieprawidłowym/uszkodzonym pliku
+     */
+    public static SalesFacts read(Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            byte[] magic = new byte[ColumnarSalesFormat.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, ColumnarSalesFormat.MAGIC)) {
+                throw new IOException("Plik " + file + " nie jest eksportem kolumnowym");
+            }
+            int version = in.readInt();
+            if (version != ColumnarSalesFormat.VERSION) {
+                throw new IOException("Nieobsługiwana wersja formatu kolumnowego: " + version);
+            }
+            LocalDate from = LocalDate.ofEpochDay(in.readLong());
+            LocalDate to = LocalDate.ofEpochDay(in.readLong());
+
+            List<Chunk> chunks = new ArrayList<>();
+            int total = 0;
+            while (true) {
+                int rows;
+                try {
+                    rows = in.readInt();
+                } catch (EOFException e) {
+                    throw new IOException("Niekompletny plik " + file + " (brak znacznika końca)", e);
+                }
+                if (rows == 0) {
+                    break;
+                }
+                if (rows < 0 || rows > ColumnarSalesFormat.CHUNK_ROWS) {
+                    throw new IOException("Nieprawidłowa liczba wierszy porcji: " + rows);
+                }
+                Chunk chunk = readChunk(in, rows);
+                chunks.add(chunk);
+                total = Math.addExact(total, rows);
+            }
+            return merge(from, to, chunks, total);
+        }
+    }
+
+    private record Chunk(int rows, long[] billIds, long[] timestamps, long[] sellerIds, long[] towarIds,
+                         long[] groupIds, long[] quantities, int quantityScale,
+                         long[] netValues, int netValueScale, byte[] categories) {
+    }
+
+    private static Chunk readChunk(DataInputStream in, int rows) throws IOException {
+        // Największe długości kolumn wynikają z liczby wierszy porcji (varint ma najwyżej MAX_VARINT_BYTES bajtów)
+        long varints = (long) rows * ColumnarSalesFormat.MAX_VARINT_BYTES;
+        long[] billIds = readDeltas(readColumn(in, varints), rows);
+        long[] timestamps = readDeltas(readColumn(in, varints), rows);
+        long[] sellerIds = readDictionary(readColumn(in, 2 * varints + ColumnarSalesFormat.MAX_VARINT_BYTES), rows);
+        long[] towarIds = readDictionary(readColumn(in, 2 * varints + ColumnarSalesFormat.MAX_VARINT_BYTES), rows);
+        long[] groupIds = readDictionary(readColumn(in, 2 * varints + ColumnarSalesFormat.MAX_VARINT_BYTES), rows);
+
+        var quantityReader = new ColumnarSalesFormat.ByteReader(readColumn(in, varints + 1));
+        int quantityScale = readScale(quantityReader);
+        long[] quantities = readSigned(quantityReader, rows);
+
+        var valueReader = new ColumnarSalesFormat.ByteReader(readColumn(in, varints + 1));
+        int netValueScale = readScale(valueReader);
+        long[] netValues = readSigned(valueReader, rows);
+
+        byte[] categories = readColumn(in, rows);
+        if (categories.length != rows) {
+            throw new IOException("Nieprawidłowa długość kolumny kategorii");
+        }
+        int categoryCount = ProductCategory.values().length;
+        for (byte category : categories) {
+            if (category < 0 || category >= categoryCount) {
+                throw new IOException("Nieprawidłowa kategoria: " + category);
+            }
+        }
+        return new Chunk(rows, billIds, timestamps, sellerIds, towarIds, groupIds,
+                quantities, quantityScale, netValues, netValueScale, categories);
+    }
+
+    /**
+     * Długości z nagłówka sprawdzane są przed alokacją - uszkodzony plik kończy się IOException,
+     * a nie próbą zaalokowania ogromnej tablicy.
+     */
+    private static byte[] readColumn(DataInputStream in, long maxRawLength) throws IOException {
+        int compressedLength = in.readInt();
+        int rawLength = in.readInt();
+        // Deflate może wydłużyć nieściśliwe dane tylko o kilka bajtów na blok
+        long maxCompressedLength = rawLength + (rawLength >> 8) + 64L;
+        if (rawLength < 0 || rawLength > maxRawLength || compressedLength < 0 || compressedLength > maxCompressedLength) {
+            throw new IOException("Nieprawidłowy nagłówek kolumny (długość " + compressedLength + "/" + rawLength + ")");
+        }
+        byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+        return ColumnarSalesFormat.decompress(compressed, rawLength);
+    }
+
+    private static int readScale(ColumnarSalesFormat.ByteReader reader) throws IOException {
+        int scale = reader.readByte();
+        if (scale < 0 || scale > ColumnarSalesFormat.MAX_SCALE) {
+            throw new IOException("Nieprawidłowa skala kolumny: " + scale);
+        }
+        return scale;
+    }
+
+    private static long[] readDeltas(byte[] column, int rows) throws IOException {
+        var reader = new ColumnarSalesFormat.ByteReader(column);
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += reader.readSignedVarLong();
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static long[] readDictionary(byte[] column, int rows) throws IOException {
+        var reader = new ColumnarSalesFormat.ByteReader(column);
+        long dictSize = reader.readVarLong();
+        if (dictSize < 0 || dictSize > rows) {
+            throw new IOException("Nieprawidłowy rozmiar słownika: " + dictSize);
+        }
+        long[] dict = new long[(int) dictSize + 1];
+        dict[0] = SalesFacts.NO_ID;
+        for (int i = 1; i <= dictSize; i++) {
+            dict[i] = reader.readSignedVarLong();
+        }
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            long code = reader.readVarLong();
+            if (code < 0 || code > dictSize) {
+                throw new IOException("Kod słownika poza zakresem: " + code);
+            }
+            values[i] = dict[(int) code];
+        }
+        return values;
+    }
+
+    private static long[] readSigned(ColumnarSalesFormat.ByteReader reader, int rows) throws IOException {
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = reader.readSignedVarLong();
+        }
+        return values;
+    }
+
+    private static SalesFacts merge(LocalDate from, LocalDate to, List<Chunk> chunks, int total) {
+        int quantityScale = chunks.stream().mapToInt(Chunk::quantityScale).max().orElse(0);
+        int netValueScale = chunks.stream().mapToInt(Chunk::netValueScale).max().orElse(0);
+
+        long[] billIds = new long[total];
+        long[] timestamps = new long[total];
+        int[] sellerIds = new int[total];
+        long[] towarIds = new long[total];
+        long[] groupIds = new long[total];
+        long[] quantities = new long[total];
+        long[] netValues = new long[total];
+        byte[] categories = new byte[total];
+
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            int rows = chunk.rows();
+            System.arraycopy(chunk.billIds(), 0, billIds, offset, rows);
+            System.arraycopy(chunk.timestamps(), 0, timestamps, offset, rows);
+            System.arraycopy(chunk.towarIds(), 0, towarIds, offset, rows);
+            System.arraycopy(chunk.groupIds(), 0, groupIds, offset, rows);
+            System.arraycopy(chunk.categories(), 0, categories, offset, rows);
+            long quantityFactor = pow10(quantityScale - chunk.quantityScale());
+            long netValueFactor = pow10(netValueScale - chunk.netValueScale());
+            for (int i = 0; i < rows; i++) {
+                sellerIds[offset + i] = (int) chunk.sellerIds()[i];
+                quantities[offset + i] = Math.multiplyExact(chunk.quantities()[i], quantityFactor);
+                netValues[offset + i] = Math.multiplyExact(chunk.netValues()[i], netValueFactor);
+            }
+            offset += rows;
+        }
+        return new SalesFacts(from, to, total, billIds, timestamps, sellerIds, towarIds, groupIds,
+                quantities, quantityScale, netValues, netValueScale, categories);
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = Math.multiplyExact(result, 10L);
+        }
+        return result;
+    }
+}
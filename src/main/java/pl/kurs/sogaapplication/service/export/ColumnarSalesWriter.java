@@ -0,0 +1,171 @@
+package pl.kurs.sogaapplication.service.export;
+
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static pl.kurs.sogaapplication.service.export.ColumnarSalesFormat.CHUNK_ROWS;
+import static pl.kurs.sogaapplication.service.export.ColumnarSalesFormat.writeSignedVarLong;
+import static pl.kurs.sogaapplication.service.export.ColumnarSalesFormat.writeVarLong;
+
+/**
+ * Zapis pozycji sprzedaży w formacie kolumnowym (.sogacol) - opis formatu w ColumnarSalesFormat.
+ * Wiersze buforowane są w porcji CHUNK_ROWS (tablice prymitywne), po zapełnieniu porcja jest kodowana,
+ * kompresowana i zapisywana - pamięć nie zależy od liczby wierszy w pliku.
+ */
+public final class ColumnarSalesWriter implements AutoCloseable {
+
+    private final DataOutputStream out;
+
+    private final long[] billIds = new long[CHUNK_ROWS];
+    private final long[] timestamps = new long[CHUNK_ROWS];
+    private final long[] sellerIds = new long[CHUNK_ROWS];
+    private final long[] towarIds = new long[CHUNK_ROWS];
+    private final long[] groupIds = new long[CHUNK_ROWS];
+    private final BigDecimal[] quantities = new BigDecimal[CHUNK_ROWS];
+    private final BigDecimal[] netValues = new BigDecimal[CHUNK_ROWS];
+    private final byte[] categories = new byte[CHUNK_ROWS];
+    private int rows;
+    private long totalRows;
+    private boolean closed;
+
+    public ColumnarSalesWriter(Path target, LocalDate from, LocalDate to) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024));
+        out.write(ColumnarSalesFormat.MAGIC);
+        out.writeInt(ColumnarSalesFormat.VERSION);
+        out.writeLong(from.toEpochDay());
+        out.writeLong(to.toEpochDay());
+    }
+
+    /**
+     * Dodaje jedną pozycję. towarId/groupId mogą być null (pozycja bez towaru w TOWARY).
+     */
+    public void append(long billId, LocalDateTime time, int sellerId, Long towarId, Integer groupId,
+                       BigDecimal quantity, BigDecimal netValue, ProductCategory category) throws IOException {
+        billIds[rows] = billId;
+        timestamps[rows] = time.toEpochSecond(ZoneOffset.UTC);
+        sellerIds[rows] = sellerId;
+        towarIds[rows] = towarId != null ? towarId : SalesFacts.NO_ID;
+        groupIds[rows] = groupId != null ? groupId : SalesFacts.NO_ID;
+        quantities[rows] = quantity != null ? quantity : BigDecimal.ZERO;
+        netValues[rows] = netValue != null ? netValue : BigDecimal.ZERO;
+        categories[rows] = (byte) category.ordinal();
+        rows++;
+        if (rows == CHUNK_ROWS) {
+            flushChunk();
+        }
+    }
+
+    public long getRowCount() {
+        return totalRows + rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushChunk();
+            out.writeInt(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushChunk() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.writeInt(rows);
+        writeColumn(deltas(billIds));
+        writeColumn(deltas(timestamps));
+        writeColumn(dictionary(sellerIds));
+        writeColumn(dictionary(towarIds));
+        writeColumn(dictionary(groupIds));
+        writeColumn(decimals(quantities));
+        writeColumn(decimals(netValues));
+        writeColumn(java.util.Arrays.copyOf(categories, rows));
+
+        totalRows += rows;
+        java.util.Arrays.fill(quantities, 0, rows, null);
+        java.util.Arrays.fill(netValues, 0, rows, null);
+        rows = 0;
+    }
+
+    private void writeColumn(byte[] raw) throws IOException {
+        byte[] compressed = ColumnarSalesFormat.compress(raw);
+        out.writeInt(compressed.length);
+        out.writeInt(raw.length);
+        out.write(compressed);
+    }
+
+    private byte[] deltas(long[] values) {
+        var buffer = new ByteArrayOutputStream(rows * 2);
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            writeSignedVarLong(buffer, values[i] - previous);
+            previous = values[i];
+        }
+        return buffer.toByteArray();
+    }
+
+    // Słownik porcji: liczba wpisów, wartości (zigzag), potem kod na wiersz; kod 0 = NO_ID
+    private byte[] dictionary(long[] values) {
+        Map<Long, Integer> codes = new HashMap<>();
+        var dict = new ByteArrayOutputStream();
+        var codeBytes = new ByteArrayOutputStream(rows);
+        for (int i = 0; i < rows; i++) {
+            long value = values[i];
+            if (value == SalesFacts.NO_ID) {
+                writeVarLong(codeBytes, 0);
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size() + 1;
+                codes.put(value, code);
+                writeSignedVarLong(dict, value);
+            }
+            writeVarLong(codeBytes, code);
+        }
+        var buffer = new ByteArrayOutputStream(dict.size() + codeBytes.size() + 5);
+        writeVarLong(buffer, codes.size());
+        buffer.writeBytes(dict.toByteArray());
+        buffer.writeBytes(codeBytes.toByteArray());
+        return buffer.toByteArray();
+    }
+
+    // Skala porcji = największa skala wartości; wartości zapisywane jako nieskalowane longi w tej skali
+    private byte[] decimals(BigDecimal[] values) {
+        int scale = 0;
+        for (int i = 0; i < rows; i++) {
+            scale = Math.max(scale, values[i].scale());
+        }
+        var buffer = new ByteArrayOutputStream(rows * 3 + 1);
+        buffer.write(scale);
+        for (int i = 0; i < rows; i++) {
+            try {
+                writeSignedVarLong(buffer, values[i].setScale(scale).unscaledValue().longValueExact());
+            } catch (ArithmeticException e) {
+                throw new IllegalStateException("Wartość " + values[i] + " poza zakresem formatu kolumnowego", e);
+            }
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,23 @@
+package pl.kurs.sogaapplication.service.export;
+
+/**
+ * Format pliku eksportu pozycji sprzedaży
+ */
+public enum ExportFormat {
+    CSV("csv"),
+    XML("xml"),
+    /**
+     * Binarny format kolumnowy (ColumnarSalesWriter) - porcje już skompresowane, gzip nie jest stosowany
+     */
+    COLUMNAR("sogacol");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,143 @@
+package pl.kurs.sogaapplication.service.export;
+
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Pozycje sprzedaży wczytane z pliku kolumnowego (ColumnarSalesReader) - kolumny jako tablice prymitywne.
+ * Ilość i wartość netto trzymane są jako nieskalowane longi we wspólnej skali kolumny.
+ * Obiekt jest niezmienny.
+ */
+public final class SalesFacts {
+
+    /**
+     * Brak ID towaru / grupy (pozycja bez wpisu w TOWARY)
+     */
+    public static final long NO_ID = Long.MIN_VALUE;
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int size;
+    private final long[] billIds;
+    private final long[] timestamps;
+    private final int[] sellerIds;
+    private final long[] towarIds;
+    private final long[] groupIds;
+    private final long[] quantities;
+    private final int quantityScale;
+    private final long[] netValues;
+    private final int netValueScale;
+    private final byte[] categories;
+
+    SalesFacts(LocalDate from, LocalDate to, int size, long[] billIds, long[] timestamps, int[] sellerIds,
+               long[] towarIds, long[] groupIds, long[] quantities, int quantityScale,
+               long[] netValues, int netValueScale, byte[] categories) {
+        this.from = from;
+        this.to = to;
+        this.size = size;
+        this.billIds = billIds;
+        this.timestamps = timestamps;
+        this.sellerIds = sellerIds;
+        this.towarIds = towarIds;
+        this.groupIds = groupIds;
+        this.quantities = quantities;
+        this.quantityScale = quantityScale;
+        this.netValues = netValues;
+        this.netValueScale = netValueScale;
+        this.categories = categories;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long billId(int row) {
+        return billIds[row];
+    }
+
+    public LocalDateTime timestamp(int row) {
+        return LocalDateTime.ofEpochSecond(timestamps[row], 0, ZoneOffset.UTC);
+    }
+
+    public LocalDate day(int row) {
+        return LocalDate.ofEpochDay(Math.floorDiv(timestamps[row], 86_400L));
+    }
+
+    public int sellerId(int row) {
+        return sellerIds[row];
+    }
+
+    public Long towarId(int row) {
+        return towarIds[row] == NO_ID ? null : towarIds[row];
+    }
+
+    public Integer groupId(int row) {
+        return groupIds[row] == NO_ID ? null : (int) groupIds[row];
+    }
+
+    public BigDecimal quantity(int row) {
+        return BigDecimal.valueOf(quantities[row], quantityScale);
+    }
+
+    public BigDecimal netValue(int row) {
+        return BigDecimal.valueOf(netValues[row], netValueScale);
+    }
+
+    public ProductCategory category(int row) {
+        return CATEGORIES[categories[row]];
+    }
+
+    /**
+     * Sprzedaż netto per kategoria w zakresie dni [dayFrom, dayTo] dla sprzedawców (null = wszyscy) -
+     * jeden przebieg po kolumnach, bez tworzenia obiektów per wiersz.
+     */
+    public Map<ProductCategory, BigDecimal> netValueByCategory(LocalDate dayFrom, LocalDate dayTo,
+                                                               Collection<Integer> sellers) {
+        long fromSecond = dayFrom.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        long toSecond = dayTo.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        java.util.BitSet sellerMask = null;
+        if (sellers != null) {
+            sellerMask = new java.util.BitSet();
+            for (Integer seller : sellers) {
+                if (seller != null && seller >= 0) {
+                    sellerMask.set(seller);
+                }
+            }
+        }
+
+        long[] sums = new long[CATEGORIES.length];
+        for (int i = 0; i < size; i++) {
+            long ts = timestamps[i];
+            if (ts < fromSecond || ts >= toSecond) {
+                continue;
+            }
+            if (sellerMask != null && (sellerIds[i] < 0 || !sellerMask.get(sellerIds[i]))) {
+                continue;
+            }
+            sums[categories[i]] = Math.addExact(sums[categories[i]], netValues[i]);
+        }
+
+        Map<ProductCategory, BigDecimal> result = new EnumMap<>(ProductCategory.class);
+        for (ProductCategory category : CATEGORIES) {
+            result.put(category, BigDecimal.valueOf(sums[category.ordinal()], netValueScale));
+        }
+        return result;
+    }
+}
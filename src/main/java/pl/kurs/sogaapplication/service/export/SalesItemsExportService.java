@@ -0,0 +1,364 @@
+package pl.kurs.sogaapplication.service.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
+import pl.kurs.sogaapplication.service.config.ProductClassifier;
+import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Eksport pozycji sprzedaży (każdy wiersz POZRACH z korektą zestawów) do CSV lub XML, opcjonalnie gzip.
+ *
+ * W odróżnieniu od ReportExportService dokument nie jest budowany w pamięci: wiersze czytane są
+ * zapytaniem JDBC (SalesJdbcRepository.forEachSalesItem) i każdy od razu zapisywany przez bufor do kanału pliku,
+ * więc zużycie sterty nie zależy od rozmiaru eksportu (np. cały rok).
+ * Format COLUMNAR (ColumnarSalesWriter) służy do ponownego wczytania historii przez readColumnar.
+ */
+@Service
+public class SalesItemsExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesItemsExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_EVERY_ROWS = 100_000;
+
+    private final SalesJdbcRepository salesJdbcRepository;
+    private final RestaurantConfigService configService;
+
+    public SalesItemsExportService(SalesJdbcRepository salesJdbcRepository, RestaurantConfigService configService) {
+        this.salesJdbcRepository = salesJdbcRepository;
+        this.configService = configService;
+    }
+
+    /**
+     * Wynik eksportu
+     */
+    public record ExportResult(Path file, long rows, long bytes) {
+    }
+
+    /**
+     * Jedna pozycja sprzedaży z kategorią wyznaczoną przez ProductClassifier
+     */
+    private record SalesItemRow(Long rachunekId, LocalDateTime data, Integer sellerId, String sellerName,
+                                Long towarId, String towarNazwa, Integer towarGrupa,
+                                BigDecimal ilosc, BigDecimal wartoscNetto, ProductCategory category) {
+    }
+
+    /**
+     * Zapis wierszy w konkretnym formacie. close() kończy dokument i zamyka plik.
+     */
+    private interface SalesItemWriter extends AutoCloseable {
+
+        void write(SalesItemRow row) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Eksportuje pozycje sprzedaży z zakresu [from, to] do pliku o domyślnej nazwie w bieżącym katalogu.
+     */
+    @Transactional(readOnly = true)
+    public ExportResult exportSalesItems(LocalDate from, LocalDate to, Collection<Integer> sellerIds,
+                                         ExportFormat format, boolean gzip) {
+        return exportSalesItems(from, to, sellerIds, format, gzip,
+                Path.of(generateFileName(from, to, sellerIds, format, gzip)));
+    }
+
+    /**
+     * Eksportuje pozycje sprzedaży z zakresu [from, to] (włącznie) do wskazanego pliku.
+     */
+    @Transactional(readOnly = true)
+    public ExportResult exportSalesItems(LocalDate from, LocalDate to, Collection<Integer> sellerIds,
+                                         ExportFormat format, boolean gzip, Path target) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Data końcowa " + to + " jest przed początkową " + from);
+        }
+        logger.info("Eksport pozycji sprzedaży {} - {} dla sprzedawców {} do {} ({}{})",
+                from, to, sellerIds, target, format, gzip ? ", gzip" : "");
+
+        ProductClassifier classifier = configService.getProductClassifier();
+        long start = System.nanoTime();
+        long[] written = {0};
+
+        try (SalesItemWriter writer = openWriter(format, target, gzip, from, to, sellerIds)) {
+            salesJdbcRepository.forEachSalesItem(
+                    from.atStartOfDay(), to.plusDays(1).atStartOfDay(), sellerIds, item -> {
+                        try {
+                            writer.write(toRow(item, classifier));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        if (++written[0] % PROGRESS_EVERY_ROWS == 0) {
+                            logger.info("Eksport pozycji: zapisano {} wierszy", written[0]);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            logger.error("Błąd podczas eksportu pozycji sprzedaży: {}", e.getCause().getMessage(), e);
+            throw new UncheckedIOException("Nie udało się zapisać eksportu pozycji sprzedaży", e.getCause());
+        } catch (IOException e) {
+            logger.error("Błąd podczas eksportu pozycji sprzedaży: {}", e.getMessage(), e);
+            throw new UncheckedIOException("Nie udało się zapisać eksportu pozycji sprzedaży", e);
+        }
+
+        long rows = written[0];
+        long bytes = fileSize(target);
+        logger.info("Eksport pozycji sprzedaży zapisany: {} ({} wierszy, {} KB, {} ms)",
+                target.toAbsolutePath(), rows, bytes / 1024, (System.nanoTime() - start) / 1_000_000);
+        return new ExportResult(target, rows, bytes);
+    }
+
+    private SalesItemRow toRow(SalesJdbcRepository.SalesItem item, ProductClassifier classifier) {
+        return new SalesItemRow(
+                item.rachunekId(),
+                item.dataRozpoczecia(),
+                item.sellerId(),
+                item.sellerName(),
+                item.towarId(),
+                item.towarNazwa(),
+                item.towarGrupa(),
+                item.ilosc() != null ? item.ilosc() : BigDecimal.ZERO,
+                item.wartoscNetto() != null ? item.wartoscNetto() : BigDecimal.ZERO,
+                classifier.classify(item.towarId(), item.towarGrupa()));
+    }
+
+    private SalesItemWriter openWriter(ExportFormat format, Path target, boolean gzip,
+                                       LocalDate from, LocalDate to, Collection<Integer> sellerIds) throws IOException {
+        if (format == ExportFormat.COLUMNAR) {
+            return new ColumnarWriter(new ColumnarSalesWriter(target, from, to));
+        }
+        Writer writer = openBufferedWriter(target, gzip);
+        try {
+            return switch (format) {
+                case CSV -> new CsvWriter(writer);
+                case XML -> new XmlWriter(writer, from, to, sellerIds);
+                case COLUMNAR -> throw new IllegalStateException("Format kolumnowy nie używa Writer");
+            };
+        } catch (IOException | RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Kanał pliku -> (gzip) -> bufor 64 KB -> UTF-8.
+     */
+    private static Writer openBufferedWriter(Path target, boolean gzip) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream out = Channels.newOutputStream(channel);
+        if (gzip) {
+            try {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * CSV z nagłówkiem, separator przecinek; pola tekstowe w cudzysłowie, gdy zawierają separator lub cudzysłów.
+     */
+    private static final class CsvWriter implements SalesItemWriter {
+
+        private final Writer out;
+
+        CsvWriter(Writer out) throws IOException {
+            this.out = out;
+            out.write("IdRachunku,Data,IdSprzedawcy,Sprzedawca,IdTowaru,Towar,IdGrupy,Ilosc,WartoscNetto,Kategoria\n");
+        }
+
+        @Override
+        public void write(SalesItemRow row) throws IOException {
+            out.write(String.valueOf(row.rachunekId()));
+            out.write(',');
+            out.write(row.data() != null ? row.data().toString() : "");
+            out.write(',');
+            out.write(String.valueOf(row.sellerId()));
+            out.write(',');
+            out.write(csv(row.sellerName()));
+            out.write(',');
+            out.write(row.towarId() != null ? row.towarId().toString() : "");
+            out.write(',');
+            out.write(csv(row.towarNazwa()));
+            out.write(',');
+            out.write(row.towarGrupa() != null ? row.towarGrupa().toString() : "");
+            out.write(',');
+            out.write(row.ilosc().toPlainString());
+            out.write(',');
+            out.write(row.wartoscNetto().toPlainString());
+            out.write(',');
+            out.write(row.category().getCode());
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            String trimmed = value.trim();
+            if (trimmed.indexOf(',') < 0 && trimmed.indexOf('"') < 0
+                    && trimmed.indexOf('\n') < 0 && trimmed.indexOf('\r') < 0) {
+                return trimmed;
+            }
+            return '"' + trimmed.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    /**
+     * XML zapisywany przez StAX - jeden element pozycja (atrybuty) na wiersz.
+     */
+    private static final class XmlWriter implements SalesItemWriter {
+
+        private final Writer out;
+        private final XMLStreamWriter xml;
+
+        XmlWriter(Writer out, LocalDate from, LocalDate to, Collection<Integer> sellerIds) throws IOException {
+            this.out = out;
+            try {
+                this.xml = XMLOutputFactory.newFactory().createXMLStreamWriter(out);
+                xml.writeStartDocument("UTF-8", "1.0");
+                xml.writeCharacters("\n");
+                xml.writeStartElement("pozycjeSprzedazy");
+                xml.writeAttribute("from", from.toString());
+                xml.writeAttribute("to", to.toString());
+                xml.writeAttribute("sellerIds", sellerIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            } catch (XMLStreamException e) {
+                throw new IOException("Nie udało się rozpocząć dokumentu XML", e);
+            }
+        }
+
+        @Override
+        public void write(SalesItemRow row) throws IOException {
+            try {
+                xml.writeCharacters("\n  ");
+                xml.writeEmptyElement("pozycja");
+                xml.writeAttribute("idRach", String.valueOf(row.rachunekId()));
+                if (row.data() != null) {
+                    xml.writeAttribute("data", row.data().toString());
+                }
+                xml.writeAttribute("idUz", String.valueOf(row.sellerId()));
+                xml.writeAttribute("sprzedawca", nullToEmpty(row.sellerName()));
+                if (row.towarId() != null) {
+                    xml.writeAttribute("idTw", row.towarId().toString());
+                }
+                xml.writeAttribute("towar", nullToEmpty(row.towarNazwa()));
+                if (row.towarGrupa() != null) {
+                    xml.writeAttribute("idGr", row.towarGrupa().toString());
+                }
+                xml.writeAttribute("ilosc", row.ilosc().toPlainString());
+                xml.writeAttribute("wartoscNetto", row.wartoscNetto().toPlainString());
+                xml.writeAttribute("kategoria", row.category().getCode());
+            } catch (XMLStreamException e) {
+                throw new IOException("Błąd zapisu pozycji XML", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                xml.writeCharacters("\n");
+                xml.writeEndElement();
+                xml.writeCharacters("\n");
+                xml.writeEndDocument();
+                xml.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Nie udało się zakończyć dokumentu XML", e);
+            } finally {
+                out.close();
+            }
+        }
+
+        private static String nullToEmpty(String value) {
+            return value != null ? value.trim() : "";
+        }
+    }
+
+    /**
+     * Pozycje w formacie kolumnowym - nazwy towarów i sprzedawców nie są zapisywane (tylko ID).
+     */
+    private static final class ColumnarWriter implements SalesItemWriter {
+
+        private final ColumnarSalesWriter out;
+
+        ColumnarWriter(ColumnarSalesWriter out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(SalesItemRow row) throws IOException {
+            out.append(row.rachunekId(), row.data(), row.sellerId(), row.towarId(), row.towarGrupa(),
+                    row.ilosc(), row.wartoscNetto(), row.category());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Wczytuje historię pozycji z pliku kolumnowego (bez zapytań do bazy).
+     */
+    public SalesFacts readColumnar(Path file) {
+        long start = System.nanoTime();
+        try {
+            SalesFacts facts = ColumnarSalesReader.read(file);
+            logger.info("Wczytano {} pozycji ({} - {}) z {} w {} ms", facts.size(), facts.getFrom(), facts.getTo(),
+                    file, (System.nanoTime() - start) / 1_000_000);
+            return facts;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie udało się wczytać pliku kolumnowego " + file, e);
+        }
+    }
+
+    private static String generateFileName(LocalDate from, LocalDate to, Collection<Integer> sellerIds,
+                                           ExportFormat format, boolean gzip) {
+        String ids = sellerIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        boolean gzipSuffix = gzip && format != ExportFormat.COLUMNAR;
+        return String.format("pozycje-%s-to-%s-%s.%s%s", from, to, ids, format.getExtension(), gzipSuffix ? ".gz" : "");
+    }
+
+    private static long fileSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
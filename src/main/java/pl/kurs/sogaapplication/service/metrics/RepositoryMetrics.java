@@ -0,0 +1,261 @@
+package pl.kurs.sogaapplication.service.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metryki wywołań repozytoriów (RachunekJpaRepository, DokumentJpaRepository):
+ * liczba wywołań, liczba zwróconych wierszy i rozkład czasów (p50/p95/p99) per metoda.
+ *
+ * Pomiary zbiera RepositoryMetricsPostProcessor. Operacje najwyższego poziomu (raport, food cost, eksport)
+ * otwierają zakres przez startOperation - po jego zamknięciu drukowane jest podsumowanie, a przy ustawionym
+ * restaurant.metrics.json-file dopisywana jest linia JSON.
+ *
+ * Włączane przez restaurant.metrics.enabled=true.
+ */
+@Component
+public class RepositoryMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryMetrics.class);
+
+    // Liczba próbek czasu trzymanych na metodę (najnowsze), wystarcza do percentyli jednej sesji CLI
+    private static final int MAX_SAMPLES = 4096;
+
+    // Od tylu wywołań jednej metody w operacji podejrzewamy pętlę N+1
+    private static final int N_PLUS_ONE_THRESHOLD = 20;
+
+    @Value("${restaurant.metrics.enabled:false}")
+    private boolean enabled;
+
+    @Value("${restaurant.metrics.json-file:}")
+    private String jsonFile;
+
+    private final Map<String, MethodStats> totals = new ConcurrentHashMap<>();
+    private final ThreadLocal<Operation> currentOperation = new ThreadLocal<>();
+
+    /**
+     * Podsumowanie jednej metody repozytorium.
+     */
+    public record MethodSnapshot(String method, long calls, long rows,
+                                 double totalMs, double p50Ms, double p95Ms, double p99Ms) {
+
+        boolean isPossibleNPlusOne() {
+            return calls >= N_PLUS_ONE_THRESHOLD;
+        }
+    }
+
+    /**
+     * Zakres operacji najwyższego poziomu - zamknięcie drukuje podsumowanie zapytań tej operacji.
+     */
+    public final class OperationScope implements AutoCloseable {
+
+        private final Operation operation;
+        private final Operation previous;
+
+        private OperationScope(Operation operation, Operation previous) {
+            this.operation = operation;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (operation == null) {
+                return;
+            }
+            currentOperation.set(previous);
+            if (previous == null) {
+                currentOperation.remove();
+            }
+            report(operation);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Otwiera zakres operacji (np. "Raport sprzedaży"). Przy wyłączonych metrykach zakres nic nie robi.
+     */
+    public OperationScope startOperation(String name) {
+        if (!enabled) {
+            return new OperationScope(null, null);
+        }
+        Operation previous = currentOperation.get();
+        Operation operation = new Operation(name);
+        currentOperation.set(operation);
+        return new OperationScope(operation, previous);
+    }
+
+    /**
+     * Rejestruje jedno wywołanie metody repozytorium (w sumach globalnych i w bieżącej operacji).
+     */
+    void record(String method, long nanos, long rows) {
+        totals.computeIfAbsent(method, m -> new MethodStats()).record(nanos, rows);
+        Operation operation = currentOperation.get();
+        if (operation != null) {
+            operation.stats.computeIfAbsent(method, m -> new MethodStats()).record(nanos, rows);
+        }
+    }
+
+    /**
+     * Dolicza wiersze odczytane później (np. z wyniku typu Stream) - bez zmiany liczby wywołań.
+     */
+    void addRows(String method, long rows) {
+        totals.computeIfAbsent(method, m -> new MethodStats()).addRows(rows);
+        Operation operation = currentOperation.get();
+        if (operation != null) {
+            operation.stats.computeIfAbsent(method, m -> new MethodStats()).addRows(rows);
+        }
+    }
+
+    /**
+     * Sumy od startu aplikacji, posortowane malejąco po łącznym czasie.
+     */
+    public List<MethodSnapshot> getTotals() {
+        return snapshot(totals);
+    }
+
+    public void reset() {
+        totals.clear();
+    }
+
+    private void report(Operation operation) {
+        List<MethodSnapshot> snapshots = snapshot(operation.stats);
+        System.out.println(format(operation.name, snapshots));
+
+        if (jsonFile != null && !jsonFile.isBlank()) {
+            try {
+                Path path = Path.of(jsonFile);
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                Files.writeString(path, toJson(operation.name, snapshots) + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.warn("Nie udało się zapisać metryk repozytoriów do {}: {}", jsonFile, e.getMessage());
+            }
+        }
+    }
+
+    static String format(String operationName, List<MethodSnapshot> snapshots) {
+        var sb = new StringBuilder();
+        long calls = snapshots.stream().mapToLong(MethodSnapshot::calls).sum();
+        double totalMs = snapshots.stream().mapToDouble(MethodSnapshot::totalMs).sum();
+        sb.append("\n📏 METRYKI ZAPYTAŃ: ").append(operationName).append('\n');
+        sb.append(String.format("⏱️  Zapytań: %d, łączny czas w repozytoriach: %.1f ms\n", calls, totalMs));
+        if (snapshots.isEmpty()) {
+            return sb.toString();
+        }
+        sb.append(String.format("%-50s %8s %10s %10s %9s %9s %9s\n",
+                "Metoda", "Wywołań", "Wierszy", "Suma ms", "p50 ms", "p95 ms", "p99 ms"));
+        for (MethodSnapshot s : snapshots) {
+            sb.append(String.format("%-50s %8d %10d %10.1f %9.2f %9.2f %9.2f%s\n",
+                    s.method(), s.calls(), s.rows(), s.totalMs(), s.p50Ms(), s.p95Ms(), s.p99Ms(),
+                    s.isPossibleNPlusOne() ? "  ⚠️ możliwe N+1" : ""));
+        }
+        return sb.toString();
+    }
+
+    static String toJson(String operationName, List<MethodSnapshot> snapshots) {
+        var sb = new StringBuilder();
+        sb.append("{\"operation\":\"").append(escape(operationName)).append('"')
+                .append(",\"timestamp\":\"").append(LocalDateTime.now()).append('"')
+                .append(",\"methods\":[");
+        for (int i = 0; i < snapshots.size(); i++) {
+            MethodSnapshot s = snapshots.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"method\":\"").append(escape(s.method())).append('"')
+                    .append(",\"calls\":").append(s.calls())
+                    .append(",\"rows\":").append(s.rows())
+                    .append(",\"totalMs\":").append(round(s.totalMs()))
+                    .append(",\"p50Ms\":").append(round(s.p50Ms()))
+                    .append(",\"p95Ms\":").append(round(s.p95Ms()))
+                    .append(",\"p99Ms\":").append(round(s.p99Ms()))
+                    .append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static List<MethodSnapshot> snapshot(Map<String, MethodStats> stats) {
+        var result = new ArrayList<MethodSnapshot>();
+        stats.forEach((method, s) -> result.add(s.snapshot(method)));
+        result.sort(Comparator.comparingDouble(MethodSnapshot::totalMs).reversed());
+        return result;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String round(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Liczniki jednej metody - czasy w buforze cyklicznym ostatnich MAX_SAMPLES wywołań.
+     */
+    private static final class MethodStats {
+        private long calls;
+        private long rows;
+        private long totalNanos;
+        private final long[] samples = new long[MAX_SAMPLES];
+
+        synchronized void record(long nanos, long rowCount) {
+            samples[(int) (calls % MAX_SAMPLES)] = nanos;
+            calls++;
+            rows += rowCount;
+            totalNanos += nanos;
+        }
+
+        synchronized void addRows(long rowCount) {
+            rows += rowCount;
+        }
+
+        synchronized MethodSnapshot snapshot(String method) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(calls, MAX_SAMPLES));
+            Arrays.sort(sorted);
+            return new MethodSnapshot(method, calls, rows, toMs(totalNanos),
+                    toMs(percentile(sorted, 0.50)), toMs(percentile(sorted, 0.95)), toMs(percentile(sorted, 0.99)));
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private static double toMs(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pl.kurs.sogaapplication.service.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import pl.kurs.sogaapplication.repositories.DokumentJpaRepository;
+import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Owija repozytoria RachunekJpaRepository, DokumentJpaRepository i SalesJdbcRepository proxy mierzącym
+ * czas wywołań i liczbę zwróconych wierszy (zapis do RepositoryMetrics).
+ *
+ * Działa tylko przy restaurant.metrics.enabled=true - w przeciwnym razie repozytoria nie są owijane.
+ * Dla wyników typu Stream czas obejmuje otwarcie kursora, a wiersze doliczane są w trakcie czytania.
+ * Metody SalesJdbcRepository zwracają liczbę przeczytanych wierszy, a czas obejmuje też obsługę wierszy w handlerze.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<RepositoryMetrics> metricsProvider;
+    private final boolean enabled;
+
+    // BeanPostProcessor tworzony jest przed resztą kontekstu - RepositoryMetrics pobieramy leniwie
+    public RepositoryMetricsPostProcessor(ObjectProvider<RepositoryMetrics> metricsProvider, Environment environment) {
+        this.metricsProvider = metricsProvider;
+        this.enabled = environment.getProperty("restaurant.metrics.enabled", Boolean.class, false);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof RachunekJpaRepository || bean instanceof DokumentJpaRepository
+                || bean instanceof SalesJdbcRepository)) {
+            return bean;
+        }
+        boolean jdbc = bean instanceof SalesJdbcRepository;
+        String prefix = jdbc ? "SalesJdbcRepository."
+                : bean instanceof RachunekJpaRepository ? "RachunekJpaRepository." : "DokumentJpaRepository.";
+
+        var proxyFactory = new ProxyFactory(bean);
+        // SalesJdbcRepository nie ma interfejsu - proxy klasy (CGLIB)
+        proxyFactory.setProxyTargetClass(jdbc);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (jdbc && !invocation.getMethod().getName().startsWith("forEach")) {
+                return invocation.proceed();
+            }
+            String method = prefix + invocation.getMethod().getName();
+            RepositoryMetrics metrics = metricsProvider.getObject();
+            long start = System.nanoTime();
+            Object result = invocation.proceed();
+            long nanos = System.nanoTime() - start;
+
+            if (result instanceof Stream<?> stream) {
+                metrics.record(method, nanos, 0);
+                return stream.peek(row -> metrics.addRows(method, 1));
+            }
+            if (jdbc && result instanceof Long rows) {
+                metrics.record(method, nanos, rows);
+                return result;
+            }
+            metrics.record(method, nanos, countRows(result));
+            return result;
+        });
+        return proxyFactory.getProxy();
+    }
+
+    private static long countRows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Iterable<?> iterable) {
+            long count = 0;
+            for (Object ignored : iterable) {
+                count++;
+            }
+            return count;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,130 @@
+package pl.kurs.sogaapplication.service.metrics;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.core.metrics.StartupStep;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raport czasu startu aplikacji (argument --startup-report): czas od startu JVM do main, fazy Spring Boot
+ * zebrane przez BufferingApplicationStartup i najwolniej tworzone beany.
+ *
+ * Tworzony w main przed SpringApplication.run, drukowany tuż przed pokazaniem menu CLI.
+ */
+public final class StartupTimingReport {
+
+    /** Kroki Spring Boot / kontekstu pokazywane jako fazy (w kolejności wykonania). */
+    private static final Map<String, String> PHASES = new LinkedHashMap<>();
+
+    static {
+        PHASES.put("spring.boot.application.starting", "Start SpringApplication");
+        PHASES.put("spring.boot.application.environment-prepared", "Środowisko (properties, profile)");
+        PHASES.put("spring.boot.application.context-prepared", "Przygotowanie kontekstu");
+        PHASES.put("spring.boot.application.context-loaded", "Załadowanie źródeł kontekstu");
+        PHASES.put("spring.context.beanfactory.post-process", "  Skanowanie i konfiguracje (@Configuration)");
+        PHASES.put("spring.data.repository.scanning", "  Skanowanie repozytoriów Spring Data");
+        PHASES.put("spring.context.beans.post-process", "  Rejestracja BeanPostProcessorów");
+        PHASES.put("spring.context.refresh", "Odświeżenie kontekstu (razem)");
+        PHASES.put("spring.boot.application.started", "Runnery i zdarzenie started");
+        PHASES.put("spring.boot.application.ready", "Zdarzenie ready (słuchacze ApplicationReadyEvent)");
+    }
+
+    private static final int SLOWEST_BEANS = 8;
+    private static final int BUFFER_CAPACITY = 8192;
+
+    private final long jvmToMainMillis;
+    private final long mainStartNanos;
+    private final BufferingApplicationStartup applicationStartup;
+    private long runNanos;
+
+    private StartupTimingReport(long jvmToMainMillis, long mainStartNanos) {
+        this.jvmToMainMillis = jvmToMainMillis;
+        this.mainStartNanos = mainStartNanos;
+        this.applicationStartup = new BufferingApplicationStartup(BUFFER_CAPACITY);
+    }
+
+    /**
+     * Wywoływane jako pierwsza instrukcja main - zapamiętuje czas od startu JVM.
+     */
+    public static StartupTimingReport start() {
+        long mainStartNanos = System.nanoTime();
+        return new StartupTimingReport(ManagementFactory.getRuntimeMXBean().getUptime(), mainStartNanos);
+    }
+
+    /**
+     * ApplicationStartup do ustawienia w SpringApplication przed run.
+     */
+    public BufferingApplicationStartup getApplicationStartup() {
+        return applicationStartup;
+    }
+
+    /**
+     * Zapamiętuje moment zakończenia SpringApplication.run.
+     */
+    public void contextStarted() {
+        runNanos = System.nanoTime() - mainStartNanos;
+    }
+
+    /**
+     * Formatuje raport; wywołane tuż przed pokazaniem menu.
+     */
+    public String format() {
+        long toMenuNanos = System.nanoTime() - mainStartNanos;
+        List<StartupTimeline.TimelineEvent> events = applicationStartup.getBufferedTimeline().getEvents();
+
+        Map<String, Duration> phaseTimes = new LinkedHashMap<>();
+        List<StartupTimeline.TimelineEvent> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            String name = event.getStartupStep().getName();
+            if (PHASES.containsKey(name)) {
+                phaseTimes.merge(name, event.getDuration(), Duration::plus);
+            } else if ("spring.beans.instantiate".equals(name)) {
+                beans.add(event);
+            }
+        }
+        beans.sort(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("⏱️  CZAS STARTU APLIKACJI\n");
+        sb.append("=".repeat(70)).append("\n");
+        sb.append(String.format("%-50s %10d ms\n", "Start JVM → main (ładowanie klas, CDS)", jvmToMainMillis));
+        for (var phase : PHASES.entrySet()) {
+            Duration duration = phaseTimes.get(phase.getKey());
+            if (duration != null) {
+                sb.append(String.format("%-50s %10d ms\n", phase.getValue(), duration.toMillis()));
+            }
+        }
+        sb.append(String.format("%-50s %10d ms\n", "SpringApplication.run (razem)", runNanos / 1_000_000));
+        sb.append("-".repeat(70)).append("\n");
+
+        sb.append(String.format("Najwolniejsze beany (z zależnościami, %d utworzonych):\n", beans.size()));
+        for (int i = 0; i < Math.min(SLOWEST_BEANS, beans.size()); i++) {
+            StartupTimeline.TimelineEvent bean = beans.get(i);
+            sb.append(String.format("  %-48s %10d ms\n", beanName(bean.getStartupStep()), bean.getDuration().toMillis()));
+        }
+        if (events.size() >= BUFFER_CAPACITY) {
+            sb.append("  (bufor kroków pełny - część kroków pominięta)\n");
+        }
+        sb.append("-".repeat(70)).append("\n");
+        sb.append(String.format("%-50s %10d ms\n", "Menu gotowe (od startu JVM)", jvmToMainMillis + toMenuNanos / 1_000_000));
+        sb.append("=".repeat(70)).append("\n");
+        return sb.toString();
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                String name = tag.getValue();
+                return name.length() > 48 ? "..." + name.substring(name.length() - 45) : name;
+            }
+        }
+        return step.getName();
+    }
+}
@@ -0,0 +1,73 @@
+package pl.kurs.sogaapplication.service.snapshot;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+/**
+ * Źródła danych w trybie kopii analitycznej (restaurant.snapshot.enabled=true).
+ *
+ * - productionDataSource - pula ze spring.datasource.* (embedded, maximum-pool-size=1), jak bez kopii,
+ * - snapshotDataSource - osobny plik Firebirda z kopią tabel, pula restaurant.snapshot.pool-size połączeń,
+ * - dataSource (@Primary, używany przez JPA) - SnapshotRoutingDataSource za LazyConnectionDataSourceProxy.
+ *
+ * Kopia jest również plikiem Firebirda, bo zapytania natywne repozytoriów używają składni Firebirda
+ * (EXTRACT(WEEKDAY ...), DATEDIFF, FIRST) - ten sam SQL działa na obu bazach bez zmian.
+ * Bez włączonej kopii konfiguracja nie jest ładowana i DataSource tworzy Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(name = "restaurant.snapshot.enabled", havingValue = "true")
+public class SnapshotDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource productionDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource snapshotDataSource(DataSourceProperties properties,
+                                               @Value("${restaurant.snapshot.file:./snapshot/gastro-snapshot.fdb}") String file,
+                                               @Value("${restaurant.snapshot.pool-size:4}") int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("snapshot");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(snapshotUrl(file));
+        dataSource.setUsername(properties.determineUsername());
+        dataSource.setPassword(properties.determinePassword());
+        dataSource.setMaximumPoolSize(Math.max(1, poolSize));
+        dataSource.setMinimumIdle(0);
+        // Pula tylko do czytania - SnapshotMirrorService zapisuje kopię własnym połączeniem
+        dataSource.setReadOnly(true);
+        // Plik kopii zakładany jest przy pierwszym odświeżeniu - pula nie może łączyć się przy starcie
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public SnapshotRoutingDataSource snapshotRoutingDataSource(
+            @Qualifier("productionDataSource") HikariDataSource productionDataSource,
+            @Qualifier("snapshotDataSource") HikariDataSource snapshotDataSource) {
+        return new SnapshotRoutingDataSource(productionDataSource, snapshotDataSource);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(SnapshotRoutingDataSource snapshotRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(snapshotRoutingDataSource);
+    }
+
+    static String snapshotUrl(String file) {
+        return "jdbc:firebirdsql:embedded:" + Path.of(file).toAbsolutePath().normalize() + "?encoding=UTF8";
+    }
+}
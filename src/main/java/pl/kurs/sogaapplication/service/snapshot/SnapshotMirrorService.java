@@ -0,0 +1,465 @@
+package pl.kurs.sogaapplication.service.snapshot;
+
+import org.firebirdsql.management.FBManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.kurs.sogaapplication.service.config.ProductCategoryTableService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utrzymuje kopię analityczną tabel produkcyjnego pliku Firebirda w osobnym pliku (restaurant.snapshot.file),
+ * z której czytają transakcje tylko do odczytu (SnapshotRoutingDataSource).
+ *
+ * Odświeżanie (w tle zaraz po starcie i co restaurant.snapshot.refresh-interval-ms):
+ * - RACHUNKI + POZRACH oraz DOKUMENTY kopiowane są przyrostowo po znaczniku ID (ID_RACH / ID_DOK) zapisanym
+ *   w SNAPSHOT_META; dodatkowo ponownie kopiowane są wiersze z ostatnich restaurant.snapshot.reload-days dni
+ *   (rachunki otwarte w chwili poprzedniej kopii i dokumenty poprawiane po wystawieniu),
+ * - TOWARY, UZYTKOWNICY, MAGAZYNY (małe słowniki) i PRODUCT_CATEGORY (ProductCategoryTableService)
+ *   kopiowane są w całości,
+ * - tabele przyrostowe kopiowane są porcjami po restaurant.snapshot.chunk-size wierszy (zakres ID): każda porcja
+ *   to krótka transakcja odczytu z produkcji i jedna transakcja zapisu do kopii razem ze znacznikiem,
+ *   a połączenie produkcyjne (pula ma jedno połączenie) wraca do puli między porcjami - CLI i obserwator
+ *   rachunków nie czekają na całe kopiowanie, a przerwana pierwsza kopia jest kontynuowana od znacznika,
+ * - rachunek kopiowany jest w jednej porcji razem z pozycjami (POZRACH), więc raporty czytające kopię
+ *   w trakcie odświeżania widzą każdy rachunek w całości - najwyżej bez rachunków z dalszych porcji.
+ *
+ * Tabele kopii zakładane są na podstawie metadanych tabel produkcyjnych. Starsze edycje rachunków (sprzed okna
+ * reload-days) nie są wykrywane - w razie potrzeby należy usunąć plik kopii, zostanie zbudowany od zera.
+ *
+ * Włączany przez restaurant.snapshot.enabled=true (razem z SnapshotDataSourceConfig).
+ */
+@Service
+@ConditionalOnProperty(name = "restaurant.snapshot.enabled", havingValue = "true")
+public class SnapshotMirrorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotMirrorService.class);
+
+    private static final String META_WATERMARK_PREFIX = "watermark.";
+
+    /**
+     * Tabela kopiowana przyrostowo po ID; childTable (opcjonalna) ma tę samą kolumnę ID i kopiowana jest razem z nią.
+     */
+    private record IncrementalTable(String table, String idColumn, String dateColumn,
+                                    boolean timestampColumn, String childTable) {
+    }
+
+    private static final List<IncrementalTable> INCREMENTAL_TABLES = List.of(
+            new IncrementalTable("RACHUNKI", "ID_RACH", "DATA_ROZ", true, "POZRACH"),
+            new IncrementalTable("DOKUMENTY", "ID_DOK", "DATA_WST", false, null));
+
+    private static final List<String> DICTIONARY_TABLES = List.of("TOWARY", "UZYTKOWNICY", "MAGAZYNY", "PRODUCT_CATEGORY");
+
+    /** Indeksy zakładane w kopii - kolumny złączeń i filtrów zapytań analitycznych. */
+    private static final Map<String, List<String>> INDEXES = Map.of(
+            "RACHUNKI", List.of("ID_RACH", "DATA_ROZ", "ID_UZ"),
+            "POZRACH", List.of("ID_RACH", "ID_TW"),
+            "DOKUMENTY", List.of("ID_DOK", "DATA_WST"),
+            "TOWARY", List.of("ID_TW"),
+            "UZYTKOWNICY", List.of("ID_UZ"),
+            "MAGAZYNY", List.of("ID_MA"),
+            "PRODUCT_CATEGORY", List.of("ID_TW"));
+
+    private final DataSource productionDataSource;
+    private final SnapshotRoutingDataSource routingDataSource;
+    private final ProductCategoryTableService productCategoryTable;
+
+    @Value("${restaurant.snapshot.file:./snapshot/gastro-snapshot.fdb}")
+    private String file;
+
+    @Value("${restaurant.snapshot.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${restaurant.snapshot.chunk-size:20000}")
+    private int chunkSize;
+
+    @Value("${restaurant.snapshot.reload-days:2}")
+    private int reloadDays;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    /** Kolumny tabel kopii (kolejność jak w produkcji), ustalane przy pierwszym odświeżeniu. */
+    private final Map<String, List<String>> columns = new HashMap<>();
+
+    public SnapshotMirrorService(@Qualifier("productionDataSource") DataSource productionDataSource,
+                                 SnapshotRoutingDataSource routingDataSource,
+                                 ProductCategoryTableService productCategoryTable) {
+        this.productionDataSource = productionDataSource;
+        this.routingDataSource = routingDataSource;
+        this.productCategoryTable = productCategoryTable;
+    }
+
+    /**
+     * Wynik odświeżenia - liczba skopiowanych wierszy per tabela.
+     */
+    public record RefreshResult(Map<String, Long> rowsPerTable, long millis) {
+
+        public long totalRows() {
+            return rowsPerTable.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * Pierwsze odświeżenie startuje od razu (initialDelay = 0) w wątku harmonogramu - start aplikacji
+     * i menu CLI nie czekają na kopiowanie.
+     */
+    @Scheduled(fixedDelayString = "${restaurant.snapshot.refresh-interval-ms:300000}", initialDelay = 0)
+    public void refreshPeriodically() {
+        refreshQuietly();
+    }
+
+    public boolean isReady() {
+        return routingDataSource.isSnapshotReady();
+    }
+
+    private void refreshQuietly() {
+        try {
+            RefreshResult result = refresh();
+            logger.info("Kopia analityczna odświeżona: {} wierszy {} w {} ms",
+                    result.totalRows(), result.rowsPerTable(), result.millis());
+        } catch (RuntimeException | SQLException e) {
+            logger.warn("Nie udało się odświeżyć kopii analitycznej{}: {}",
+                    isReady() ? " (raporty czytają poprzednią kopię)" : " (raporty czytają z produkcji)",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Dociąga zmiany z produkcji do kopii. Po pierwszym udanym odświeżeniu transakcje tylko do odczytu
+     * zaczynają korzystać z kopii.
+     */
+    public synchronized RefreshResult refresh() throws SQLException {
+        long start = System.nanoTime();
+        ensureDatabase();
+        // PRODUCT_CATEGORY musi istnieć w produkcji przed kopiowaniem (przy fast-start zakładana w tle)
+        productCategoryTable.ensureSynced();
+
+        Map<String, Long> rowsPerTable = new LinkedHashMap<>();
+        try (Connection target = DriverManager.getConnection(SnapshotDataSourceConfig.snapshotUrl(file),
+                username, password)) {
+            withSource(source -> {
+                ensureTables(source, target);
+                return null;
+            });
+            Map<String, Long> watermarks = loadWatermarks(target);
+
+            target.setAutoCommit(false);
+            for (IncrementalTable table : INCREMENTAL_TABLES) {
+                copyIncremental(target, table, watermarks.get(table.table()), rowsPerTable);
+            }
+            withSource(source -> {
+                inTransaction(target, () -> {
+                    for (String table : DICTIONARY_TABLES) {
+                        execute(target, "DELETE FROM " + table);
+                        rowsPerTable.put(table, copyRows(source, target, table, "", List.of()));
+                    }
+                });
+                return null;
+            });
+        }
+
+        routingDataSource.setSnapshotReady(true);
+        return new RefreshResult(Collections.unmodifiableMap(rowsPerTable), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Kopiuje zakres (low, MAX(ID)] porcjami po chunkSize wierszy tabeli głównej. Koniec porcji to ID
+     * chunkSize-tego wiersza po low; ostatnia porcja usuwa też z kopii wiersze powyżej MAX(ID) produkcji.
+     */
+    private void copyIncremental(Connection target, IncrementalTable table, Long watermark,
+                                 Map<String, Long> rowsPerTable) throws SQLException {
+        // Okno ponownego kopiowania: od najmniejszego ID z ostatnich reload-days dni
+        LocalDate reloadFrom = LocalDate.now().minusDays(Math.max(0, reloadDays));
+        Object reloadParam = table.timestampColumn() ? reloadFrom.atStartOfDay() : reloadFrom;
+        Long[] bounds = withSource(source -> new Long[] {
+                queryLong(source, "SELECT MAX(" + table.idColumn() + ") FROM " + table.table(), List.of()),
+                queryLong(source, "SELECT MIN(" + table.idColumn() + ") FROM " + table.table()
+                        + " WHERE " + table.dateColumn() + " >= ?", List.of(reloadParam))});
+        Long sourceMax = bounds[0];
+        Long reloadMinId = bounds[1];
+        if (sourceMax == null) {
+            rowsPerTable.put(table.table(), 0L);
+            return;
+        }
+
+        // Pierwsza kopia (brak znacznika) obejmuje całą tabelę
+        long low = watermark != null ? Math.min(watermark, sourceMax) : Long.MIN_VALUE;
+        if (reloadMinId != null) {
+            low = Math.min(low, reloadMinId - 1);
+        }
+
+        String chunkEndSql = "SELECT MAX(" + table.idColumn() + ") FROM (SELECT FIRST " + Math.max(1, chunkSize)
+                + " " + table.idColumn() + " FROM " + table.table() + " WHERE " + table.idColumn() + " > ? AND "
+                + table.idColumn() + " <= ? ORDER BY " + table.idColumn() + ")";
+        String range = " WHERE " + table.idColumn() + " > ? AND " + table.idColumn() + " <= ?";
+        long[] rows = new long[2];
+        boolean last = false;
+        while (!last) {
+            long from = low;
+            Long chunkEnd = withSource(source -> queryLong(source, chunkEndSql, List.of(from, sourceMax)));
+            long to = chunkEnd != null ? chunkEnd : sourceMax;
+            last = to >= sourceMax;
+            String deleteRange = last ? " WHERE " + table.idColumn() + " > ?" : range;
+            Object[] deleteParams = last ? new Object[] {from} : new Object[] {from, to};
+
+            withSource(source -> {
+                inTransaction(target, () -> {
+                    if (table.childTable() != null) {
+                        execute(target, "DELETE FROM " + table.childTable() + deleteRange, deleteParams);
+                    }
+                    execute(target, "DELETE FROM " + table.table() + deleteRange, deleteParams);
+                    rows[0] += copyRows(source, target, table.table(), range, List.of(from, to));
+                    if (table.childTable() != null) {
+                        rows[1] += copyRows(source, target, table.childTable(), range, List.of(from, to));
+                    }
+                    saveWatermark(target, table.table(), to);
+                });
+                return null;
+            });
+            low = to;
+        }
+
+        rowsPerTable.put(table.table(), rows[0]);
+        if (table.childTable() != null) {
+            rowsPerTable.put(table.childTable(), rows[1]);
+        }
+    }
+
+    /**
+     * Praca na połączeniu produkcyjnym w krótkiej transakcji tylko do odczytu (REPEATABLE_READ = snapshot
+     * Firebirda); połączenie wraca do puli zaraz po niej.
+     */
+    private <T> T withSource(SourceWork<T> work) throws SQLException {
+        try (Connection source = productionDataSource.getConnection()) {
+            source.setReadOnly(true);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            source.setAutoCommit(false);
+            try {
+                return work.apply(source);
+            } finally {
+                source.rollback();
+            }
+        }
+    }
+
+    private static void inTransaction(Connection target, SqlAction action) throws SQLException {
+        try {
+            action.run();
+            target.commit();
+        } catch (SQLException | RuntimeException e) {
+            target.rollback();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SourceWork<T> {
+        T apply(Connection source) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    private long copyRows(Connection source, Connection target, String table, String where,
+                          List<Object> params) throws SQLException {
+        List<String> tableColumns = columns.get(table);
+        String columnList = String.join(", ", tableColumns);
+        String placeholders = String.join(", ", Collections.nCopies(tableColumns.size(), "?"));
+
+        long rows = 0;
+        try (PreparedStatement select = source.prepareStatement("SELECT " + columnList + " FROM " + table + where);
+             PreparedStatement insert = target.prepareStatement(
+                     "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")")) {
+            select.setFetchSize(batchSize);
+            for (int i = 0; i < params.size(); i++) {
+                select.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = select.executeQuery()) {
+                int pending = 0;
+                while (rs.next()) {
+                    for (int c = 1; c <= tableColumns.size(); c++) {
+                        insert.setObject(c, rs.getObject(c));
+                    }
+                    insert.addBatch();
+                    rows++;
+                    if (++pending == batchSize) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void ensureDatabase() {
+        Path path = Path.of(file).toAbsolutePath().normalize();
+        if (Files.exists(path)) {
+            return;
+        }
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            FBManager manager = new FBManager("EMBEDDED");
+            manager.start();
+            try {
+                manager.createDatabase(path.toString(), username, password);
+            } finally {
+                manager.stop();
+            }
+            logger.info("Założono plik kopii analitycznej {}", path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Nie można utworzyć katalogu kopii analitycznej " + path, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Nie można założyć pliku kopii analitycznej " + path, e);
+        }
+    }
+
+    /**
+     * Zakłada brakujące tabele kopii (kolumny i typy jak w produkcji) oraz tabelę znaczników.
+     */
+    private void ensureTables(Connection source, Connection target) throws SQLException {
+        target.setAutoCommit(true);
+        if (!tableExists(target, "SNAPSHOT_META")) {
+            execute(target, "CREATE TABLE SNAPSHOT_META (KLUCZ VARCHAR(50) NOT NULL PRIMARY KEY, WARTOSC BIGINT)");
+        }
+
+        List<String> tables = new ArrayList<>();
+        for (IncrementalTable table : INCREMENTAL_TABLES) {
+            tables.add(table.table());
+            if (table.childTable() != null) {
+                tables.add(table.childTable());
+            }
+        }
+        tables.addAll(DICTIONARY_TABLES);
+
+        for (String table : tables) {
+            List<String> names = new ArrayList<>();
+            List<String> definitions = new ArrayList<>();
+            try (Statement statement = source.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+                ResultSetMetaData meta = rs.getMetaData();
+                for (int c = 1; c <= meta.getColumnCount(); c++) {
+                    String name = meta.getColumnName(c);
+                    names.add(name);
+                    definitions.add(name + " " + columnType(meta, c, table));
+                }
+            }
+            columns.put(table, List.copyOf(names));
+
+            if (tableExists(target, table)) {
+                continue;
+            }
+            execute(target, "CREATE TABLE " + table + " (" + String.join(", ", definitions) + ")");
+            for (String column : INDEXES.getOrDefault(table, List.of())) {
+                execute(target, "CREATE INDEX SNAP_" + table + "_" + column + " ON " + table + " (" + column + ")");
+            }
+            logger.info("Założono tabelę kopii {} ({} kolumn)", table, names.size());
+        }
+    }
+
+    private static String columnType(ResultSetMetaData meta, int column, String table) throws SQLException {
+        int precision = meta.getPrecision(column);
+        return switch (meta.getColumnType(column)) {
+            case Types.SMALLINT -> "SMALLINT";
+            case Types.INTEGER -> "INTEGER";
+            case Types.BIGINT -> "BIGINT";
+            case Types.NUMERIC -> "NUMERIC(" + precision + ", " + meta.getScale(column) + ")";
+            case Types.DECIMAL -> "DECIMAL(" + precision + ", " + meta.getScale(column) + ")";
+            case Types.FLOAT, Types.REAL, Types.DOUBLE -> "DOUBLE PRECISION";
+            case Types.BOOLEAN -> "BOOLEAN";
+            case Types.DATE -> "DATE";
+            case Types.TIME -> "TIME";
+            case Types.TIMESTAMP -> "TIMESTAMP";
+            case Types.CHAR -> "CHAR(" + precision + ") CHARACTER SET UTF8";
+            case Types.VARCHAR -> "VARCHAR(" + precision + ") CHARACTER SET UTF8";
+            case Types.BINARY -> "CHAR(" + precision + ") CHARACTER SET OCTETS";
+            case Types.VARBINARY -> "VARCHAR(" + precision + ") CHARACTER SET OCTETS";
+            case Types.LONGVARCHAR, Types.CLOB -> "BLOB SUB_TYPE TEXT CHARACTER SET UTF8";
+            case Types.LONGVARBINARY, Types.BLOB -> "BLOB SUB_TYPE BINARY";
+            default -> throw new IllegalStateException("Nieobsługiwany typ kolumny " + table + "."
+                    + meta.getColumnName(column) + ": " + meta.getColumnTypeName(column));
+        };
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        return queryLong(connection, "SELECT COUNT(*) FROM RDB$RELATIONS WHERE RDB$RELATION_NAME = ?",
+                List.of(table)) > 0;
+    }
+
+    private static Map<String, Long> loadWatermarks(Connection target) throws SQLException {
+        Map<String, Long> watermarks = new HashMap<>();
+        try (Statement statement = target.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT KLUCZ, WARTOSC FROM SNAPSHOT_META")) {
+            while (rs.next()) {
+                String key = rs.getString(1);
+                if (key.startsWith(META_WATERMARK_PREFIX)) {
+                    watermarks.put(key.substring(META_WATERMARK_PREFIX.length()), rs.getLong(2));
+                }
+            }
+        }
+        return watermarks;
+    }
+
+    private static void saveWatermark(Connection target, String table, long watermark) throws SQLException {
+        execute(target, "UPDATE OR INSERT INTO SNAPSHOT_META (KLUCZ, WARTOSC) VALUES (?, ?) MATCHING (KLUCZ)",
+                META_WATERMARK_PREFIX + table, watermark);
+    }
+
+    private static Long queryLong(Connection connection, String sql, List<Object> params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long value = rs.getLong(1);
+                return rs.wasNull() ? null : value;
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package pl.kurs.sogaapplication.service.snapshot;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Kieruje połączenia transakcji tylko do odczytu (@Transactional(readOnly = true) - serwisy analiz)
+ * do kopii bazy, a wszystkie pozostałe do produkcyjnego pliku Firebirda.
+ *
+ * Dopóki kopia nie zostanie wypełniona pierwszym odświeżeniem (SnapshotMirrorService), wszystko idzie do produkcji.
+ * Musi być opakowany w LazyConnectionDataSourceProxy - fizyczne połączenie pobierane jest dopiero przy pierwszym
+ * zapytaniu, gdy flaga readOnly transakcji jest już ustawiona.
+ */
+public class SnapshotRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRODUCTION,
+        SNAPSHOT
+    }
+
+    private volatile boolean snapshotReady;
+
+    public SnapshotRoutingDataSource(DataSource production, DataSource snapshot) {
+        setTargetDataSources(Map.of(Target.PRODUCTION, production, Target.SNAPSHOT, snapshot));
+        setDefaultTargetDataSource(production);
+        afterPropertiesSet();
+    }
+
+    public boolean isSnapshotReady() {
+        return snapshotReady;
+    }
+
+    void setSnapshotReady(boolean snapshotReady) {
+        this.snapshotReady = snapshotReady;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return snapshotReady && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? Target.SNAPSHOT
+                : Target.PRODUCTION;
+    }
+}
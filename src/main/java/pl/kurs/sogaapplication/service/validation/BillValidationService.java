@@ -4,10 +4,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import pl.kurs.sogaapplication.models.Rachunek;
+import org.springframework.transaction.annotation.Transactional;
+import pl.kurs.sogaapplication.models.BillView;
 import pl.kurs.sogaapplication.models.SuspiciousBill;
+import pl.kurs.sogaapplication.models.business.MoneyAccumulator;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
 import pl.kurs.sogaapplication.service.config.RestaurantConfigService;
-import pl.kurs.sogaapplication.service.core.RachunekService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -26,7 +28,7 @@ public class BillValidationService {
     
     private static final Logger logger = LoggerFactory.getLogger(BillValidationService.class);
     
-    private final RachunekService rachunekService;
+    private final SalesJdbcRepository salesJdbcRepository;
     private final RestaurantConfigService configService;
     
     // Konfiguracja walidacji
@@ -45,14 +47,20 @@ public class BillValidationService {
     @Value("${restaurant.validation.enabled:true}")
     private boolean validationEnabled;
     
-    public BillValidationService(RachunekService rachunekService, RestaurantConfigService configService) {
-        this.rachunekService = rachunekService;
+    // Tryb strumieniowy: wstępny filtr w SQL i przetwarzanie kandydatów po jednym (stała pamięć)
+    @Value("${restaurant.validation.streaming:true}")
+    private boolean streamingEnabled;
+    
+    public BillValidationService(SalesJdbcRepository salesJdbcRepository,
+                                 RestaurantConfigService configService) {
+        this.salesJdbcRepository = salesJdbcRepository;
         this.configService = configService;
     }
     
     /**
      * Znajduje podejrzane rachunki dla danego okresu
      */
+    @Transactional(readOnly = true)
     public List<SuspiciousBill> findSuspiciousBills(LocalDate from, LocalDate to) {
         if (!validationEnabled) {
             logger.debug("Walidacja rachunków jest wyłączona");
@@ -61,27 +69,47 @@ public class BillValidationService {
         
         logger.info("Szukanie podejrzanych rachunków od {} do {}", from, to);
         
-        List<Rachunek> bills = rachunekService.findByDateRange(from, to);
-        List<SuspiciousBill> suspiciousBills = new ArrayList<>();
-        
-        for (Rachunek bill : bills) {
-            // Sprawdź wszystkie kryteria podejrzanych rachunków
-            List<SuspiciousBill> billIssues = validateBill(bill);
-            suspiciousBills.addAll(billIssues);
+        if (streamingEnabled) {
+            return findSuspiciousBillsStreaming(from, to);
         }
         
+        // Wszystkie rachunki okresu jako BillView - każdy walidowany od razu, bez listy encji w pamięci
+        List<SuspiciousBill> suspiciousBills = new ArrayList<>();
+        salesJdbcRepository.forEachBill(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                bill -> suspiciousBills.addAll(validateBill(bill)));
+        
         logger.info("Znaleziono {} podejrzanych rachunków", suspiciousBills.size());
         return suspiciousBills;
     }
     
+    /**
+     * Wersja strumieniowa: baza zwraca tylko kandydatów (kwota > suspiciousAmount i krótki czas
+     * albo data w przyszłości), każdy kandydat jest walidowany od razu po odczytaniu.
+     * Pozycje czytane są tylko dla rachunków, które spełniają regułę kwoty i czasu (sprawdzenie abonamentów).
+     */
+    private List<SuspiciousBill> findSuspiciousBillsStreaming(LocalDate from, LocalDate to) {
+        List<SuspiciousBill> suspiciousBills = new ArrayList<>();
+        long candidates = salesJdbcRepository.forEachSuspiciousBillCandidate(
+                from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay(),
+                configService.getAllSellers(),
+                suspiciousAmount,
+                suspiciousDurationMinutes,
+                LocalDateTime.now(),
+                bill -> suspiciousBills.addAll(validateBill(bill)));
+        
+        logger.info("Znaleziono {} podejrzanych rachunków (kandydatów z bazy: {})", suspiciousBills.size(), candidates);
+        return suspiciousBills;
+    }
+    
     /**
      * Waliduje pojedynczy rachunek - wszystkie warunki muszą być spełnione jednocześnie
      */
-    public List<SuspiciousBill> validateBill(Rachunek bill) {
+    public List<SuspiciousBill> validateBill(BillView bill) {
         List<SuspiciousBill> issues = new ArrayList<>();
         
         // Sprawdź czy sprzedawca jest w liście wszystkich sprzedawców
-        Integer sellerId = bill.getUzytkownik() != null ? bill.getUzytkownik().getId() : null;
+        Integer sellerId = bill.sellerId();
         if (sellerId == null || !configService.getAllSellers().contains(sellerId)) {
             return issues; // Nie waliduj rachunków spoza listy sprzedawców
         }
@@ -94,12 +122,12 @@ public class BillValidationService {
             // DODATKOWA REGUŁA: jeśli rachunek to głównie abonament / duże pakiety,
             // nie traktuj go jako podejrzany.
             if (isHighSubscriptionBill(bill)) {
-                logger.debug("Rachunek {}: wysoka kwota + krótki czas, ale zawiera abonament/kupony - pomijam z podejrzanych", bill.getId());
+                logger.debug("Rachunek {}: wysoka kwota + krótki czas, ale zawiera abonament/kupony - pomijam z podejrzanych", bill.id());
                 return issues;
             }
 
             String reason = String.format("PODEJRZANY RACHUNEK: %.2f zł w czasie %s (sprzedawca: %s)", 
-                    bill.getWartNu(), getDurationFormatted(bill), getSellerName(bill));
+                    bill.wartNu(), getDurationFormatted(bill), getSellerName(bill));
             String severity = isVerySuspicious(bill) ? "BARDZO PODEJRZANY" : "PODEJRZANY";
             issues.add(SuspiciousBill.from(bill, reason, severity));
         }
@@ -107,7 +135,7 @@ public class BillValidationService {
         // Dodatkowe walidacje (opcjonalne - można wyłączyć w konfiguracji)
         
         // Walidacja 2: Rachunek w przyszłości (błąd daty)
-        if (bill.getDataRozpoczecia().isAfter(LocalDateTime.now())) {
+        if (bill.dataRozpoczecia().isAfter(LocalDateTime.now())) {
             String reason = "Rachunek w przyszłości - błąd daty";
             String severity = "BŁĄD DATY";
             issues.add(SuspiciousBill.from(bill, reason, severity));
@@ -119,30 +147,30 @@ public class BillValidationService {
     /**
      * Sprawdza czy rachunek spełnia kryteria wysokiej kwoty i krótkiego czasu
      */
-    private boolean isHighAmountShortDuration(Rachunek bill) {
-        return bill.getWartNu().compareTo(suspiciousAmount) > 0 &&
+    private boolean isHighAmountShortDuration(BillView bill) {
+        return bill.wartNu().compareTo(suspiciousAmount) > 0 &&
                getDuration(bill).toMinutes() < suspiciousDurationMinutes;
     }
     
     /**
      * Sprawdza czy rachunek jest bardzo podejrzany
      */
-    private boolean isVerySuspicious(Rachunek bill) {
-        return bill.getWartNu().compareTo(verySuspiciousAmount) > 0 &&
+    private boolean isVerySuspicious(BillView bill) {
+        return bill.wartNu().compareTo(verySuspiciousAmount) > 0 &&
                getDuration(bill).toMinutes() < verySuspiciousDurationMinutes;
     }
     
     /**
      * Zwraca czas trwania rachunku
      */
-    private Duration getDuration(Rachunek bill) {
-        return Duration.between(bill.getDataRozpoczecia(), bill.getDataZakonczenia());
+    private Duration getDuration(BillView bill) {
+        return bill.duration();
     }
     
     /**
      * Zwraca sformatowany czas trwania
      */
-    private String getDurationFormatted(Rachunek bill) {
+    private String getDurationFormatted(BillView bill) {
         Duration duration = getDuration(bill);
         long minutes = duration.toMinutes();
         if (minutes < 60) {
@@ -161,32 +189,27 @@ public class BillValidationService {
      * Aktualnie traktujemy jako abonamentowe towary o ID_TW: 4794, 4468.
      * Wystarczy, że na rachunku pojawi się chociaż jedna taka pozycja.
      */
-    private boolean isHighSubscriptionBill(Rachunek bill) {
+    private boolean isHighSubscriptionBill(BillView bill) {
         // ID_TW produktów abonamentowych / kuponów
         Set<Long> subscriptionProductIds = Set.of(4794L, 4468L);
 
-        if (bill.getPozycje() == null || bill.getPozycje().isEmpty()) {
-            return false;
-        }
-
-        return bill.getPozycje().stream()
-                .filter(p -> p.getTowar() != null && p.getTowar().getIdTowaru() != null)
-                .anyMatch(p -> subscriptionProductIds.contains(p.getTowar().getIdTowaru()));
+        boolean[] found = {false};
+        salesJdbcRepository.forEachLine(List.of(bill.id()), line -> {
+            if (line.towarId() != null && subscriptionProductIds.contains(line.towarId())) {
+                found[0] = true;
+            }
+        });
+        return found[0];
     }
     
     /**
      * Zwraca nazwę sprzedawcy
      */
-    private String getSellerName(Rachunek bill) {
-        if (bill.getUzytkownik() == null) {
+    private String getSellerName(BillView bill) {
+        if (bill.sellerId() == null) {
             return "Nieznany";
         }
-        
-        if (org.hibernate.Hibernate.isInitialized(bill.getUzytkownik())) {
-            return bill.getUzytkownik().getNazwaUzytkownika();
-        } else {
-            return "ID: " + bill.getUzytkownik().getId();
-        }
+        return bill.sellerName() != null ? bill.sellerName() : "ID: " + bill.sellerId();
     }
     
     /**
@@ -197,22 +220,25 @@ public class BillValidationService {
             return new SuspiciousBillStats(0, 0, BigDecimal.ZERO, 0, 0);
         }
         
+        // Jeden przebieg po liście zamiast pięciu strumieni
         long totalCount = suspiciousBills.size();
-        long verySuspiciousCount = suspiciousBills.stream()
-                .mapToLong(bill -> bill.severity().equals("BARDZO PODEJRZANY") ? 1 : 0)
-                .sum();
-        
-        BigDecimal totalAmount = suspiciousBills.stream()
-                .map(SuspiciousBill::amount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        long highAmountCount = suspiciousBills.stream()
-                .mapToLong(bill -> bill.amount().compareTo(verySuspiciousAmount) > 0 ? 1 : 0)
-                .sum();
-        
-        long shortDurationCount = suspiciousBills.stream()
-                .mapToLong(bill -> bill.duration().toMinutes() < verySuspiciousDurationMinutes ? 1 : 0)
-                .sum();
+        long verySuspiciousCount = 0;
+        long highAmountCount = 0;
+        long shortDurationCount = 0;
+        var totalAmountSum = new MoneyAccumulator();
+        for (SuspiciousBill bill : suspiciousBills) {
+            if (bill.severity().equals("BARDZO PODEJRZANY")) {
+                verySuspiciousCount++;
+            }
+            if (bill.amount().compareTo(verySuspiciousAmount) > 0) {
+                highAmountCount++;
+            }
+            if (bill.duration().toMinutes() < verySuspiciousDurationMinutes) {
+                shortDurationCount++;
+            }
+            totalAmountSum.add(bill.amount());
+        }
+        BigDecimal totalAmount = totalAmountSum.toBigDecimal();
         
         return new SuspiciousBillStats(
                 totalCount, verySuspiciousCount, totalAmount, highAmountCount, shortDurationCount
@@ -0,0 +1,174 @@
+package pl.kurs.sogaapplication.service.validation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.kurs.sogaapplication.models.SuspiciousBill;
+import pl.kurs.sogaapplication.repositories.RachunekJpaRepository;
+import pl.kurs.sogaapplication.repositories.SalesJdbcRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Obserwator nowych rachunków - co restaurant.validation.watcher.poll-interval-ms pobiera paczkę rachunków
+ * o ID_RACH większym niż zapamiętany znacznik i przepuszcza je przez BillValidationService.validateBill.
+ *
+ * - znacznik (high-water mark) zapisywany jest w pliku, więc po restarcie historia nie jest skanowana ponownie;
+ *   przy pierwszym uruchomieniu startujemy od aktualnego MAX(ID_RACH),
+ * - podejrzane rachunki trafiają do bufora ostatnich zdarzeń (ring buffer) i do dopisywanego logu,
+ * - każde odpytanie to jedno krótkie zapytanie o maksymalnie batch-size rachunków, żeby nie blokować
+ *   jedynego połączenia embedded Firebirda (spring.datasource.hikari.maximum-pool-size=1),
+ * - transakcja nie jest oznaczona jako tylko do odczytu, żeby przy włączonej kopii analitycznej
+ *   (restaurant.snapshot.enabled) obserwator czytał nowe rachunki z produkcji, a nie z opóźnionej kopii.
+ *
+ * Włączany przez restaurant.validation.watcher.enabled=true.
+ */
+@Service
+@ConditionalOnProperty(name = "restaurant.validation.watcher.enabled", havingValue = "true")
+public class SuspiciousBillWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuspiciousBillWatcher.class);
+
+    private final RachunekJpaRepository rachunekRepository;
+    private final SalesJdbcRepository salesJdbcRepository;
+    private final BillValidationService billValidationService;
+
+    @Value("${restaurant.validation.watcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${restaurant.validation.watcher.buffer-size:200}")
+    private int bufferSize;
+
+    @Value("${restaurant.validation.watcher.state-file:./watcher/high-water-mark.txt}")
+    private String stateFile;
+
+    @Value("${restaurant.validation.watcher.log-file:./watcher/suspicious-bills.log}")
+    private String logFile;
+
+    private final Deque<SuspiciousBill> recentSuspiciousBills = new ArrayDeque<>();
+
+    private Long highWaterMark;
+
+    public SuspiciousBillWatcher(RachunekJpaRepository rachunekRepository,
+                                 SalesJdbcRepository salesJdbcRepository,
+                                 BillValidationService billValidationService) {
+        this.rachunekRepository = rachunekRepository;
+        this.salesJdbcRepository = salesJdbcRepository;
+        this.billValidationService = billValidationService;
+    }
+
+    /**
+     * Jedno odpytanie bazy: waliduje kolejną paczkę nowych rachunków i przesuwa znacznik.
+     */
+    @Scheduled(fixedDelayString = "${restaurant.validation.watcher.poll-interval-ms:5000}",
+            initialDelayString = "${restaurant.validation.watcher.poll-interval-ms:5000}")
+    @Transactional
+    public void poll() {
+        try {
+            if (highWaterMark == null) {
+                highWaterMark = loadHighWaterMark();
+                logger.info("Obserwator rachunków startuje od ID_RACH > {}", highWaterMark);
+            }
+
+            List<SuspiciousBill> flagged = new ArrayList<>();
+            long[] lastId = {highWaterMark};
+            long checked = salesJdbcRepository.forEachBillAfterId(highWaterMark, batchSize, bill -> {
+                flagged.addAll(billValidationService.validateBill(bill));
+                lastId[0] = bill.id();
+            });
+            if (checked == 0) {
+                return;
+            }
+
+            if (!flagged.isEmpty()) {
+                flagged.forEach(bill -> logger.warn("{}: {}", bill.severity(), bill.getDescription()));
+                remember(flagged);
+                appendToLog(flagged);
+            }
+
+            highWaterMark = lastId[0];
+            saveHighWaterMark(highWaterMark);
+            logger.debug("Obserwator rachunków: sprawdzono {}, podejrzanych {}, znacznik {}",
+                    checked, flagged.size(), highWaterMark);
+        } catch (RuntimeException | IOException e) {
+            logger.warn("Obserwator rachunków - błąd odpytania, ponowię przy kolejnym cyklu: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Zwraca ostatnie wykryte podejrzane rachunki (najnowsze na końcu).
+     */
+    public List<SuspiciousBill> getRecentSuspiciousBills() {
+        synchronized (recentSuspiciousBills) {
+            return List.copyOf(recentSuspiciousBills);
+        }
+    }
+
+    private void remember(List<SuspiciousBill> flagged) {
+        synchronized (recentSuspiciousBills) {
+            for (SuspiciousBill bill : flagged) {
+                if (recentSuspiciousBills.size() >= bufferSize) {
+                    recentSuspiciousBills.removeFirst();
+                }
+                recentSuspiciousBills.addLast(bill);
+            }
+        }
+    }
+
+    private void appendToLog(List<SuspiciousBill> flagged) throws IOException {
+        var sb = new StringBuilder();
+        LocalDateTime detectedAt = LocalDateTime.now();
+        for (SuspiciousBill bill : flagged) {
+            sb.append(detectedAt).append(';')
+                    .append(bill.billId()).append(';')
+                    .append(bill.startTime()).append(';')
+                    .append(bill.amount().toPlainString()).append(';')
+                    .append(bill.sellerId()).append(';')
+                    .append(bill.severity()).append(';')
+                    .append(bill.reason()).append('\n');
+        }
+        Path path = Path.of(logFile);
+        createParentDirectories(path);
+        Files.writeString(path, sb.toString(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private Long loadHighWaterMark() throws IOException {
+        Path path = Path.of(stateFile);
+        if (Files.exists(path)) {
+            String content = Files.readString(path, StandardCharsets.UTF_8).trim();
+            if (!content.isEmpty()) {
+                return Long.parseLong(content);
+            }
+        }
+        Long maxId = rachunekRepository.findMaxRachunekId();
+        long start = maxId != null ? maxId : 0L;
+        saveHighWaterMark(start);
+        return start;
+    }
+
+    private void saveHighWaterMark(long value) throws IOException {
+        Path path = Path.of(stateFile);
+        createParentDirectories(path);
+        Files.writeString(path, Long.toString(value), StandardCharsets.UTF_8);
+    }
+
+    private static void createParentDirectories(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package pl.kurs.sogaapplication.models.business;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoneyAccumulatorTest {
+
+    @Test
+    void mixedScalesMatchBigDecimalReduce() {
+        assertSameAsReduce(values("12.5", "0.0001", "3", "7.25", "100.1234", "0.10"));
+    }
+
+    @Test
+    void negativeValuesMatchBigDecimalReduce() {
+        assertSameAsReduce(values("-12.50", "7.2500", "-0.0001", "5", "-100"));
+    }
+
+    @Test
+    void nullsAreSkipped() {
+        assertSameAsReduce(Arrays.asList(new BigDecimal("1.25"), null, new BigDecimal("-3.5"), null));
+    }
+
+    @Test
+    void emptySumIsZeroWithScaleZero() {
+        BigDecimal sum = new MoneyAccumulator().toBigDecimal();
+
+        assertEquals(BigDecimal.ZERO, sum);
+        assertEquals(0, sum.scale());
+    }
+
+    @Test
+    void resultScaleIsLargestScaleAndNotNegative() {
+        assertSameAsReduce(values("1E+3", "2.5"));
+        assertSameAsReduce(values("1E+3"));
+
+        MoneyAccumulator sum = new MoneyAccumulator().add(new BigDecimal("1.5")).add(new BigDecimal("2.125"));
+        assertEquals(3, sum.toBigDecimal().scale());
+    }
+
+    @Test
+    void overflowOfLongSwitchesToBigDecimal() {
+        List<BigDecimal> values = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            values.add(new BigDecimal("90000000000000.0000"));
+        }
+        values.add(new BigDecimal("-0.0001"));
+
+        assertSameAsReduce(values);
+    }
+
+    @Test
+    void rescaleOverflowSwitchesToBigDecimal() {
+        assertSameAsReduce(values("900000000000000000", "0.000000001", "-1"));
+    }
+
+    @Test
+    void valuesWiderThanLongAreSummedExactly() {
+        assertSameAsReduce(values("12345678901234567890.12", "1.1", "-98765432109876543210"));
+    }
+
+    @Test
+    void unscaledAndCentsMatchBigDecimal() {
+        MoneyAccumulator sum = new MoneyAccumulator()
+                .add(1234L, 4)
+                .addCents(-250)
+                .add(5L, 0);
+
+        assertEquals(new BigDecimal("0.1234").add(new BigDecimal("-2.50")).add(new BigDecimal("5")), sum.toBigDecimal());
+    }
+
+    @Test
+    void addingAccumulatorsMatchesSingleSum() {
+        MoneyAccumulator first = new MoneyAccumulator().add(new BigDecimal("10.05")).add(new BigDecimal("-0.0005"));
+        MoneyAccumulator second = new MoneyAccumulator().add(new BigDecimal("99999999999999999999.9"));
+
+        assertEquals(new BigDecimal("10.05").add(new BigDecimal("-0.0005")).add(new BigDecimal("99999999999999999999.9")),
+                first.add(second).toBigDecimal());
+    }
+
+    private static List<BigDecimal> values(String... values) {
+        return Arrays.stream(values).map(BigDecimal::new).toList();
+    }
+
+    private static void assertSameAsReduce(List<BigDecimal> values) {
+        BigDecimal expected = values.stream()
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        MoneyAccumulator sum = new MoneyAccumulator();
+        values.forEach(sum::add);
+
+        // equals porównuje także skalę
+        assertEquals(expected, sum.toBigDecimal());
+        assertEquals(expected.signum(), sum.signum());
+    }
+}
@@ -0,0 +1,148 @@
+package pl.kurs.sogaapplication.service.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.kurs.sogaapplication.models.business.ProductCategory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarSalesRoundTripTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @TempDir
+    Path tempDir;
+
+    private record Row(long billId, LocalDateTime time, int sellerId, Long towarId, Integer groupId,
+                       BigDecimal quantity, BigDecimal netValue, ProductCategory category) {
+    }
+
+    @Test
+    void roundTripPreservesRowsAcrossChunks() throws IOException {
+        // Trzy porcje: pełne dwie i niepełna trzecia
+        List<Row> rows = rows(2 * ColumnarSalesFormat.CHUNK_ROWS + 1_234);
+        Path file = write(rows);
+
+        SalesFacts facts = ColumnarSalesReader.read(file);
+
+        assertEquals(FROM, facts.getFrom());
+        assertEquals(TO, facts.getTo());
+        assertEquals(rows.size(), facts.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            assertEquals(row.billId(), facts.billId(i), "billId w wierszu " + i);
+            assertEquals(row.time(), facts.timestamp(i), "czas w wierszu " + i);
+            assertEquals(row.sellerId(), facts.sellerId(i));
+            assertEquals(row.towarId(), facts.towarId(i), "towar w wierszu " + i);
+            assertEquals(row.groupId(), facts.groupId(i), "grupa w wierszu " + i);
+            assertEquals(0, row.quantity().compareTo(facts.quantity(i)), "ilość w wierszu " + i);
+            assertEquals(0, row.netValue().compareTo(facts.netValue(i)), "wartość w wierszu " + i);
+            assertEquals(row.category(), facts.category(i));
+        }
+    }
+
+    @Test
+    void mixedChunkScalesAreMergedToLargestScale() throws IOException {
+        List<Row> rows = rows(ColumnarSalesFormat.CHUNK_ROWS + 10);
+        // Pierwsza porcja w skali 2, druga w skali 4
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            BigDecimal netValue = i < ColumnarSalesFormat.CHUNK_ROWS
+                    ? row.netValue().setScale(2, RoundingMode.HALF_UP)
+                    : row.netValue().setScale(4, RoundingMode.HALF_UP);
+            rows.set(i, new Row(row.billId(), row.time(), row.sellerId(), row.towarId(), row.groupId(),
+                    row.quantity().setScale(0, RoundingMode.HALF_UP), netValue, row.category()));
+        }
+
+        SalesFacts facts = ColumnarSalesReader.read(write(rows));
+
+        assertEquals(4, facts.netValue(0).scale());
+        assertEquals(0, facts.quantity(0).scale());
+        assertEquals(0, rows.get(0).netValue().compareTo(facts.netValue(0)));
+        int last = rows.size() - 1;
+        assertEquals(rows.get(last).netValue(), facts.netValue(last));
+    }
+
+    @Test
+    void emptyExportHasHeaderAndNoRows() throws IOException {
+        Path file = write(List.of());
+
+        SalesFacts facts = ColumnarSalesReader.read(file);
+
+        assertEquals(0, facts.size());
+        assertEquals(FROM, facts.getFrom());
+        assertEquals(TO, facts.getTo());
+    }
+
+    @Test
+    void corruptColumnLengthFailsWithoutHugeAllocation() throws IOException {
+        Path file = write(rows(100));
+        // Nagłówek: magic (8) + wersja (4) + od (8) + do (8), liczba wierszy porcji (4), długość skompresowana (4)
+        try (var raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(ColumnarSalesFormat.MAGIC.length + 4 + 8 + 8 + 4 + 4);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertThrows(IOException.class, () -> ColumnarSalesReader.read(file));
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = write(rows(100));
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 4));
+
+        assertThrows(IOException.class, () -> ColumnarSalesReader.read(file));
+    }
+
+    private Path write(List<Row> rows) throws IOException {
+        Path file = tempDir.resolve("sales.sogacol");
+        try (var writer = new ColumnarSalesWriter(file, FROM, TO)) {
+            for (Row row : rows) {
+                writer.append(row.billId(), row.time(), row.sellerId(), row.towarId(), row.groupId(),
+                        row.quantity(), row.netValue(), row.category());
+            }
+            assertEquals(rows.size(), writer.getRowCount());
+        }
+        return file;
+    }
+
+    /**
+     * Wiersze z ujemnymi deltami ID i czasu (korekty, rachunki zamykane w innej kolejności), pozycjami bez towaru
+     * i grupy, ujemnymi wartościami oraz różnymi skalami w obrębie porcji.
+     */
+    private static List<Row> rows(int count) {
+        Random random = new Random(7);
+        ProductCategory[] categories = ProductCategory.values();
+        List<Row> rows = new ArrayList<>(count);
+        long billId = 1_000_000;
+        LocalDateTime time = FROM.atTime(8, 0);
+        for (int i = 0; i < count; i++) {
+            billId += random.nextInt(5) - 2;
+            time = time.plusSeconds(random.nextInt(600) - 120);
+            boolean noProduct = random.nextInt(20) == 0;
+            Long towarId = noProduct ? null : (long) random.nextInt(3_000) - 10;
+            Integer groupId = noProduct || random.nextInt(10) == 0 ? null : random.nextInt(40);
+            BigDecimal quantity = BigDecimal.valueOf(random.nextInt(2_000) - 100, random.nextInt(4));
+            BigDecimal netValue = BigDecimal.valueOf(random.nextInt(5_000_000) - 500_000, random.nextBoolean() ? 2 : 4);
+            rows.add(new Row(billId, time, 1 + random.nextInt(12), towarId, groupId, quantity, netValue,
+                    categories[random.nextInt(categories.length)]));
+        }
+        return rows;
+    }
+}